@@ -0,0 +1,45 @@
+package com.fitness.activityservice.config;
+
+import com.fitness.common.model.ActivityMetrics;
+import org.bson.Document;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.data.convert.ReadingConverter;
+import org.springframework.data.convert.WritingConverter;
+
+import java.util.List;
+
+/**
+ * Stores {@link ActivityMetrics} as the flat {@code metrics} sub-document activities have always had, rather
+ * than as a mapped entity with its internal fields.
+ */
+final class ActivityMetricsConverters {
+
+    private ActivityMetricsConverters() {
+    }
+
+    static List<Converter<?, ?>> all() {
+        return List.of(MetricsToDocument.INSTANCE, DocumentToMetrics.INSTANCE);
+    }
+
+    @WritingConverter
+    enum MetricsToDocument implements Converter<ActivityMetrics, Document> {
+        INSTANCE;
+
+        @Override
+        public Document convert(ActivityMetrics metrics) {
+            Document document = new Document();
+            metrics.forEach(document::append);
+            return document;
+        }
+    }
+
+    @ReadingConverter
+    enum DocumentToMetrics implements Converter<Document, ActivityMetrics> {
+        INSTANCE;
+
+        @Override
+        public ActivityMetrics convert(Document document) {
+            return ActivityMetrics.of(document);
+        }
+    }
+}
@@ -1,9 +1,97 @@
 package com.fitness.activityservice.config;
 
+import com.fitness.activityservice.model.Activity;
+import com.fitness.activityservice.model.ActivityRollup;
+import com.fitness.activityservice.model.ActivitySampleBucket;
+import com.fitness.activityservice.model.OutboxEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.data.mongodb.MongoTransactionManager;
+import org.springframework.data.mongodb.ReactiveMongoDatabaseFactory;
+import org.springframework.data.mongodb.ReactiveMongoTransactionManager;
 import org.springframework.data.mongodb.config.EnableMongoAuditing;
+import org.springframework.data.mongodb.config.EnableReactiveMongoAuditing;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexField;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+
+import java.util.Collection;
+import java.util.List;
 
 @Configuration
 @EnableMongoAuditing
+@EnableReactiveMongoAuditing
+@RequiredArgsConstructor
 public class MongoConfig {
+
+    private static final List<Class<?>> INDEXED_DOCUMENTS = List.of(Activity.class, ActivityRollup.class,
+            ActivitySampleBucket.class, OutboxEvent.class);
+    private static final String OUTBOX_PAYLOAD = "payload";
+
+    private final MongoTemplate mongoTemplate;
+
+    /**
+     * Writes an activity and its outbox event atomically. Multi-document transactions need MongoDB to run as a
+     * replica set; only the {@code dev} profile may switch them off, see {@link
+     * com.fitness.activityservice.service.ActivityOutboxService}.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "activity.outbox.transactional", havingValue = "true", matchIfMissing = true)
+    public MongoTransactionManager transactionManager(MongoDatabaseFactory mongoDatabaseFactory) {
+        return new MongoTransactionManager(mongoDatabaseFactory);
+    }
+
+    /**
+     * The same for the write path of the {@code reactive} profile.
+     */
+    @Bean
+    @Profile("reactive")
+    @ConditionalOnProperty(name = "activity.outbox.transactional", havingValue = "true", matchIfMissing = true)
+    public ReactiveMongoTransactionManager reactiveTransactionManager(ReactiveMongoDatabaseFactory reactiveMongoDatabaseFactory) {
+        return new ReactiveMongoTransactionManager(reactiveMongoDatabaseFactory);
+    }
+
+    /**
+     * Static so the conversions can be created before this configuration, which itself needs the template.
+     */
+    @Bean
+    public static MongoCustomConversions mongoCustomConversions() {
+        return new MongoCustomConversions(ActivityMetricsConverters.all());
+    }
+
+    /**
+     * The resolver follows embedded entities, which would copy every index of {@link Activity} onto the outbox as
+     * {@code payload.*}. The outbox is only ever read by its own fields, so those are skipped, and dropped where an
+     * earlier version created them.
+     */
+    @EventListener(ContextRefreshedEvent.class)
+    public void initIndexes() {
+        IndexResolver indexResolver = new MongoPersistentEntityIndexResolver(mongoTemplate.getConverter().getMappingContext());
+        for (Class<?> documentType : INDEXED_DOCUMENTS) {
+            IndexOperations indexOperations = mongoTemplate.indexOps(documentType);
+            for (IndexDefinition index : indexResolver.resolveIndexFor(documentType)) {
+                if (documentType != OutboxEvent.class || !coversPayload(index.getIndexKeys().keySet())) {
+                    indexOperations.createIndex(index);
+                }
+            }
+        }
+        IndexOperations outboxIndexes = mongoTemplate.indexOps(OutboxEvent.class);
+        outboxIndexes.getIndexInfo().stream()
+                .filter(index -> coversPayload(index.getIndexFields().stream().map(IndexField::getKey).toList()))
+                .forEach(index -> outboxIndexes.dropIndex(index.getName()));
+    }
+
+    private static boolean coversPayload(Collection<String> keys) {
+        return keys.stream().anyMatch(key -> key.startsWith(OUTBOX_PAYLOAD + "."));
+    }
 }
@@ -0,0 +1,31 @@
+package com.fitness.activityservice.config;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.web.reactive.config.BlockingExecutionConfigurer;
+import org.springframework.web.reactive.config.WebFluxConfigurer;
+
+/**
+ * In the {@code reactive} profile the service runs on WebFlux. Controller methods that do not return a reactive
+ * type (history, stats, samples, ...) still block on the Mongo driver, so they run on the application task
+ * executor rather than on an event-loop thread.
+ */
+@Configuration
+@Profile("reactive")
+public class ReactiveWebConfig implements WebFluxConfigurer {
+
+    private final AsyncTaskExecutor applicationTaskExecutor;
+
+    public ReactiveWebConfig(@Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+                             AsyncTaskExecutor applicationTaskExecutor) {
+        this.applicationTaskExecutor = applicationTaskExecutor;
+    }
+
+    @Override
+    public void configureBlockingExecution(BlockingExecutionConfigurer configurer) {
+        configurer.setExecutor(applicationTaskExecutor);
+    }
+}
@@ -1,24 +1,58 @@
 package com.fitness.activityservice.controller;
 
+import com.fitness.activityservice.dto.ActivityBatchResponse;
+import com.fitness.activityservice.dto.ActivityHistoryPage;
 import com.fitness.activityservice.dto.ActivityRequest;
 import com.fitness.activityservice.dto.ActivityResponse;
+import com.fitness.activityservice.model.ActivityType;
+import com.fitness.activityservice.service.ActivityHistoryService;
 import com.fitness.activityservice.service.ActivityService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Sort;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.time.LocalDateTime;
+import java.util.List;
+
 @RestController
 @RequestMapping("/api/activity/activitycontroller")
+@Profile("!reactive")
 public class ActivityController {
 
     @Autowired
     ActivityService activityService;
 
+    @Autowired
+    ActivityHistoryService activityHistoryService;
+
     @PostMapping("/trackActivity")
     public ResponseEntity<ActivityResponse> trackActivity(@RequestBody ActivityRequest activityRequest) {
         return ResponseEntity.ok(activityService.trackActivity(activityRequest));
     }
+
+    @PostMapping("/trackActivities")
+    public ResponseEntity<ActivityBatchResponse> trackActivities(@RequestBody List<ActivityRequest> activityRequests) {
+        return ResponseEntity.ok(activityService.trackActivities(activityRequests));
+    }
+
+    @GetMapping("/getActivityHistory/{userId}")
+    public ResponseEntity<ActivityHistoryPage> getActivityHistory(
+            @PathVariable String userId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) ActivityType activityType,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(defaultValue = "DESC") Sort.Direction order) {
+        return ResponseEntity.ok(activityHistoryService.getHistory(userId, from, to, activityType, cursor, size, order));
+    }
 }
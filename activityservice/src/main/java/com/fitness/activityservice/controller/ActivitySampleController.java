@@ -0,0 +1,40 @@
+package com.fitness.activityservice.controller;
+
+import com.fitness.activityservice.dto.ActivitySampleChunk;
+import com.fitness.activityservice.dto.ActivitySampleIngestResponse;
+import com.fitness.activityservice.dto.ActivitySamplesResponse;
+import com.fitness.activityservice.service.ActivitySampleService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/activity/activitysamples")
+@RequiredArgsConstructor
+public class ActivitySampleController {
+
+    private final ActivitySampleService activitySampleService;
+
+    @PostMapping("/ingestSamples/{activityId}")
+    public ResponseEntity<ActivitySampleIngestResponse> ingestSamples(@PathVariable String activityId,
+                                                                      @RequestBody ActivitySampleChunk chunk) {
+        return ResponseEntity.ok(activitySampleService.ingest(activityId, chunk));
+    }
+
+    /**
+     * {@code from} and {@code to} are epoch milliseconds.
+     */
+    @GetMapping("/getSamples/{activityId}")
+    public ResponseEntity<ActivitySamplesResponse> getSamples(@PathVariable String activityId,
+                                                              @RequestParam(required = false) Long from,
+                                                              @RequestParam(required = false) Long to,
+                                                              @RequestParam(required = false) Integer maxPoints) {
+        return ResponseEntity.ok(activitySampleService.getSamples(activityId, from, to, maxPoints));
+    }
+}
@@ -0,0 +1,43 @@
+package com.fitness.activityservice.controller;
+
+import com.fitness.activityservice.dto.ActivityStatsResponse;
+import com.fitness.activityservice.model.RollupPeriod;
+import com.fitness.activityservice.service.ActivityRollupService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+
+@RestController
+@RequestMapping("/api/activity/activitystats")
+@RequiredArgsConstructor
+public class ActivityStatsController {
+
+    private final ActivityRollupService activityRollupService;
+
+    @GetMapping("/getStats/{userId}")
+    public ResponseEntity<ActivityStatsResponse> getStats(
+            @PathVariable String userId,
+            @RequestParam(defaultValue = "WEEK") RollupPeriod period,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return ResponseEntity.ok(activityRollupService.getStats(userId, period, from, to));
+    }
+
+    @PostMapping("/rebuild/{userId}")
+    public ResponseEntity<Integer> rebuild(@PathVariable String userId) {
+        return ResponseEntity.ok(activityRollupService.rebuild(userId));
+    }
+
+    @PostMapping("/rebuild")
+    public ResponseEntity<Integer> rebuildAll() {
+        return ResponseEntity.ok(activityRollupService.rebuildAll());
+    }
+}
@@ -0,0 +1,63 @@
+package com.fitness.activityservice.controller;
+
+import com.fitness.activityservice.dto.ActivityBatchResponse;
+import com.fitness.activityservice.dto.ActivityHistoryPage;
+import com.fitness.activityservice.dto.ActivityRequest;
+import com.fitness.activityservice.dto.ActivityResponse;
+import com.fitness.activityservice.model.ActivityType;
+import com.fitness.activityservice.service.ActivityHistoryService;
+import com.fitness.activityservice.service.ReactiveActivityService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Sort;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+
+/**
+ * {@link ActivityController} for the {@code reactive} profile: same paths, requests and responses, but the write
+ * endpoints are non-blocking pipelines. A batch body is decoded as a stream and read no further than the batch limit.
+ */
+@RestController
+@RequestMapping("/api/activity/activitycontroller")
+@Profile("reactive")
+public class ReactiveActivityController {
+
+    @Autowired
+    ReactiveActivityService reactiveActivityService;
+
+    @Autowired
+    ActivityHistoryService activityHistoryService;
+
+    @PostMapping("/trackActivity")
+    public Mono<ResponseEntity<ActivityResponse>> trackActivity(@RequestBody Mono<ActivityRequest> activityRequest) {
+        return activityRequest.flatMap(reactiveActivityService::trackActivity).map(ResponseEntity::ok);
+    }
+
+    @PostMapping("/trackActivities")
+    public Mono<ResponseEntity<ActivityBatchResponse>> trackActivities(@RequestBody Flux<ActivityRequest> activityRequests) {
+        return reactiveActivityService.trackActivities(activityRequests).map(ResponseEntity::ok);
+    }
+
+    @GetMapping("/getActivityHistory/{userId}")
+    public ResponseEntity<ActivityHistoryPage> getActivityHistory(
+            @PathVariable String userId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) ActivityType activityType,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(defaultValue = "DESC") Sort.Direction order) {
+        return ResponseEntity.ok(activityHistoryService.getHistory(userId, from, to, activityType, cursor, size, order));
+    }
+}
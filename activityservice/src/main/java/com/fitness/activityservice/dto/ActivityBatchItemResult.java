@@ -0,0 +1,23 @@
+package com.fitness.activityservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ActivityBatchItemResult {
+
+    public enum Status {
+        ACCEPTED,
+        INVALID_USER,
+        INVALID_METRICS,
+        FAILED
+    }
+
+    private int index;
+    private Status status;
+    private ActivityResponse activity;
+    private String error;
+}
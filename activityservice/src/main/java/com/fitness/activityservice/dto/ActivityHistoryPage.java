@@ -0,0 +1,16 @@
+package com.fitness.activityservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * One page of a user's activity history. {@code nextCursor} is null on the last page.
+ */
+@Data
+@AllArgsConstructor
+public class ActivityHistoryPage {
+    private List<ActivityResponse> items;
+    private String nextCursor;
+}
@@ -1,10 +1,10 @@
 package com.fitness.activityservice.dto;
 
 import com.fitness.activityservice.model.ActivityType;
+import com.fitness.common.model.ActivityMetrics;
 import lombok.Data;
 
 import java.time.LocalDateTime;
-import java.util.Map;
 
 @Data
 public class ActivityRequest {
@@ -14,5 +14,7 @@ public class ActivityRequest {
     private Integer duration;
     private Integer caloriesBurned;
     private LocalDateTime startTime;
-    private Map<String, Object> additionalMetrics;
+    private ActivityMetrics additionalMetrics;
+    // true to have the recommendation generated afresh instead of reused from aiservice's cache
+    private boolean aiCacheBypass;
 }
@@ -1,10 +1,10 @@
 package com.fitness.activityservice.dto;
 
 import com.fitness.activityservice.model.ActivityType;
+import com.fitness.common.model.ActivityMetrics;
 import lombok.Data;
 
 import java.time.LocalDateTime;
-import java.util.Map;
 
 @Data
 public class ActivityResponse {
@@ -14,7 +14,7 @@ public class ActivityResponse {
     private Integer duration;
     private Integer caloriesBurned;
     private LocalDateTime startTime;
-    private Map<String, Object> additionalMetrics;
+    private ActivityMetrics additionalMetrics;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
 }
@@ -0,0 +1,22 @@
+package com.fitness.activityservice.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One sensor reading. {@code timestamp} is in epoch milliseconds; channels the device did not record are null.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ActivitySample {
+    private long timestamp;
+    private Integer heartRate;
+    private Integer cadence;
+    private Double latitude;
+    private Double longitude;
+    private Double altitude;
+}
@@ -0,0 +1,10 @@
+package com.fitness.activityservice.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class ActivitySampleChunk {
+    private List<ActivitySample> samples;
+}
@@ -0,0 +1,12 @@
+package com.fitness.activityservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class ActivitySampleIngestResponse {
+    private String activityId;
+    private int accepted;
+    private int buckets;
+}
@@ -0,0 +1,19 @@
+package com.fitness.activityservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Samples of an activity within a time range. When the range holds more than the requested number of points
+ * they are averaged over windows of {@code resolutionMillis}; a resolution of 0 means the raw samples.
+ */
+@Data
+@AllArgsConstructor
+public class ActivitySamplesResponse {
+    private String activityId;
+    private int rawCount;
+    private long resolutionMillis;
+    private List<ActivitySample> samples;
+}
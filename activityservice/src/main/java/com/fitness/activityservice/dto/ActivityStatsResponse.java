@@ -0,0 +1,34 @@
+package com.fitness.activityservice.dto;
+
+import com.fitness.activityservice.model.ActivityType;
+import com.fitness.activityservice.model.RollupPeriod;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ActivityStatsResponse {
+    private String userId;
+    private RollupPeriod period;
+    private List<Bucket> buckets;
+    private Map<ActivityType, Bucket> totalsByType;
+    private int currentStreakDays;
+    private int longestStreakDays;
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Bucket {
+        private LocalDate periodStart;
+        private ActivityType activityType;
+        private long count;
+        private long totalDuration;
+        private long totalCalories;
+    }
+}
@@ -1,5 +1,7 @@
 package com.fitness.activityservice.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fitness.common.model.ActivityMetrics;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -7,13 +9,19 @@ import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.annotation.Transient;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.Field;
 
 import java.time.LocalDateTime;
-import java.util.Map;
 
 @Document(collection = "activities")
+@CompoundIndexes({
+        @CompoundIndex(name = "user_start", def = "{'userId': 1, 'startTime': -1, '_id': -1}"),
+        @CompoundIndex(name = "user_type_start", def = "{'userId': 1, 'activityType': 1, 'startTime': -1, '_id': -1}")
+})
 @Data
 @Builder
 @AllArgsConstructor
@@ -27,9 +35,13 @@ public class Activity {
     private Integer caloriesBurned;
     private LocalDateTime startTime;
     @Field("metrics")
-    private Map<String, Object> additionalMetrics;
+    private ActivityMetrics additionalMetrics;
     @CreatedDate
     private LocalDateTime createdAt;
     @LastModifiedDate
     private LocalDateTime updatedAt;
+    // asks aiservice not to answer from its recommendation cache; only travels on the outbox event
+    @Transient
+    @JsonIgnore
+    private boolean aiCacheBypass;
 }
@@ -0,0 +1,39 @@
+package com.fitness.activityservice.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Totals of one user's activities of one type within a day, week or month. The id is derived from those four
+ * values, so tracking an activity is a single {@code $inc} upsert per period.
+ */
+@Document(collection = "activity_rollups")
+@CompoundIndex(name = "user_period_start", def = "{'userId': 1, 'period': 1, 'periodStart': 1}")
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ActivityRollup {
+    @Id
+    private String id;
+    private String userId;
+    private RollupPeriod period;
+    private LocalDate periodStart;
+    private ActivityType activityType;
+    private long count;
+    private long totalDuration;
+    private long totalCalories;
+    private LocalDateTime updatedAt;
+
+    public static String idFor(String userId, RollupPeriod period, LocalDate periodStart, ActivityType activityType) {
+        return userId + "|" + period + "|" + periodStart + "|" + activityType;
+    }
+}
@@ -0,0 +1,52 @@
+package com.fitness.activityservice.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Up to {@code activity.samples.bucket-size} consecutive sensor samples of one activity. Timestamps are stored
+ * as millisecond offsets from {@code start} and every channel as scaled integers, both delta/varint packed.
+ * The id is derived from the activity and the first timestamp, so re-sending a chunk overwrites its buckets.
+ */
+@Document(collection = "activity_samples")
+@CompoundIndex(name = "activity_start", def = "{'activityId': 1, 'start': 1}")
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ActivitySampleBucket {
+    @Id
+    private String id;
+    private String activityId;
+    private String userId;
+    private Instant start;
+    private Instant end;
+    private int count;
+    private byte[] timestamps;
+    private Map<String, EncodedSeries> channels;
+
+    public static String idFor(String activityId, long start) {
+        return activityId + "|" + start;
+    }
+
+    /**
+     * The values of one channel. {@code present} is a bitmap over the bucket's samples and is only stored when
+     * some samples lack the channel; {@code values} then holds just the {@code size} present values.
+     */
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class EncodedSeries {
+        private int size;
+        private byte[] values;
+        private byte[] present;
+    }
+}
@@ -0,0 +1,30 @@
+package com.fitness.activityservice.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * Progress of the outbox relay: the last event it published and the lease that keeps a single
+ * activityservice instance relaying at a time.
+ */
+@Document(collection = "activity_outbox_checkpoint")
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class OutboxCheckpoint {
+    @Id
+    private String id;
+    private String lastEventId;
+    private LocalDateTime lastEventCreatedAt;
+    private long publishedCount;
+    private String leaseOwner;
+    private LocalDateTime leaseUntil;
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,36 @@
+package com.fitness.activityservice.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * An activity event waiting to be relayed to Kafka. Written next to the {@link Activity} it describes and
+ * removed by the outbox relay once the broker has acknowledged it.
+ */
+@Document(collection = "activity_outbox")
+@CompoundIndex(name = "due_events", def = "{'nextAttemptAt': 1, '_id': 1}")
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class OutboxEvent {
+    @Id
+    private String id;
+    private String aggregateId;
+    private String topic;
+    private String messageKey;
+    private Activity payload;
+    // sent as the ai-cache-bypass record header
+    private boolean aiCacheBypass;
+    private LocalDateTime createdAt;
+    private int attempts;
+    private LocalDateTime nextAttemptAt;
+    private String lastError;
+}
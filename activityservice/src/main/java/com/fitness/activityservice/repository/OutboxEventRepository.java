@@ -0,0 +1,9 @@
+package com.fitness.activityservice.repository;
+
+import com.fitness.activityservice.model.OutboxEvent;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface OutboxEventRepository extends MongoRepository<OutboxEvent, String> {
+}
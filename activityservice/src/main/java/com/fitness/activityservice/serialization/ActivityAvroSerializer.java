@@ -0,0 +1,198 @@
+package com.fitness.activityservice.serialization;
+
+import com.fitness.activityservice.model.Activity;
+import com.fitness.common.model.ActivityMetrics;
+import com.fitness.common.serialization.AvroSchemaRegistry;
+import org.apache.avro.Schema;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.EncoderFactory;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Serializer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes {@link Activity} events as Avro binary in the {@code activity-event} schema looked up in the
+ * {@link AvroSchemaRegistry} by {@value #WRITER_SCHEMA_ID_CONFIG}. Each record starts with a zero magic byte and
+ * the 4-byte schema id, so readers can resolve it against whatever schema version they were built with. The
+ * fields are encoded directly, in schema order, instead of going through a generic record. Enable it with
+ * {@code spring.kafka.producer.value-serializer}; the registry location is the producer property
+ * {@value #REGISTRY_LOCATION_CONFIG}.
+ */
+public class ActivityAvroSerializer implements Serializer<Activity> {
+
+    public static final String REGISTRY_LOCATION_CONFIG = "avro.registry.location";
+    public static final String WRITER_SCHEMA_ID_CONFIG = "avro.writer.schema-id";
+    public static final int WRITER_SCHEMA_ID = 1;
+    static final byte MAGIC_BYTE = 0;
+
+    private static final List<String> FIELDS = List.of("id", "userId", "activityType", "duration", "caloriesBurned",
+            "startTime", "metrics", "createdAt", "updatedAt");
+    // branches of the metrics value union: ["null", "boolean", "int", "long", "double", "string"]
+    private static final int METRIC_NULL = 0;
+    private static final int METRIC_BOOLEAN = 1;
+    private static final int METRIC_INT = 2;
+    private static final int METRIC_LONG = 3;
+    private static final int METRIC_DOUBLE = 4;
+    private static final int METRIC_STRING = 5;
+
+    private byte[] header;
+    private List<String> activityTypeSymbols;
+
+    public ActivityAvroSerializer() {
+    }
+
+    public ActivityAvroSerializer(AvroSchemaRegistry registry, int schemaId) {
+        init(registry, schemaId);
+    }
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        Object location = configs.get(REGISTRY_LOCATION_CONFIG);
+        Object schemaId = configs.get(WRITER_SCHEMA_ID_CONFIG);
+        init(AvroSchemaRegistry.at(location == null ? AvroSchemaRegistry.DEFAULT_LOCATION : location.toString()),
+                schemaId == null ? WRITER_SCHEMA_ID : Integer.parseInt(schemaId.toString()));
+    }
+
+    private void init(AvroSchemaRegistry registry, int schemaId) {
+        Schema schema = registry.byId(schemaId);
+        List<String> fields = schema.getFields().stream().map(Schema.Field::name).toList();
+        if (!fields.equals(FIELDS)) {
+            throw new IllegalStateException("Schema " + schemaId + " does not have the layout this serializer writes: " + fields);
+        }
+        activityTypeSymbols = schema.getField("activityType").schema().getTypes().get(1).getEnumSymbols();
+        header = new byte[]{MAGIC_BYTE, (byte) (schemaId >>> 24), (byte) (schemaId >>> 16), (byte) (schemaId >>> 8), (byte) schemaId};
+    }
+
+    /**
+     * Position of the type in the pinned schema's symbols. Types added after the schema was pinned are written as
+     * {@code OTHER}, as the reader does for symbols it does not know.
+     */
+    private int activityTypeIndex(String activityType) {
+        int index = activityTypeSymbols.indexOf(activityType);
+        if (index < 0) {
+            index = activityTypeSymbols.indexOf("OTHER");
+        }
+        if (index < 0) {
+            throw new SerializationException("Activity type " + activityType + " is not in the writer schema");
+        }
+        return index;
+    }
+
+    @Override
+    public byte[] serialize(String topic, Activity activity) {
+        if (activity == null) {
+            return null;
+        }
+        if (header == null) {
+            init(AvroSchemaRegistry.at(AvroSchemaRegistry.DEFAULT_LOCATION), WRITER_SCHEMA_ID);
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+        out.writeBytes(header);
+        try {
+            BinaryEncoder encoder = EncoderFactory.get().binaryEncoder(out, null);
+            writeOptionalString(encoder, activity.getId());
+            writeOptionalString(encoder, activity.getUserId());
+            if (activity.getActivityType() == null) {
+                encoder.writeIndex(0);
+            } else {
+                encoder.writeIndex(1);
+                encoder.writeEnum(activityTypeIndex(activity.getActivityType().name()));
+            }
+            writeOptionalInt(encoder, activity.getDuration());
+            writeOptionalInt(encoder, activity.getCaloriesBurned());
+            writeOptionalTimestamp(encoder, activity.getStartTime());
+            writeMetrics(encoder, activity.getAdditionalMetrics());
+            writeOptionalTimestamp(encoder, activity.getCreatedAt());
+            writeOptionalTimestamp(encoder, activity.getUpdatedAt());
+            encoder.flush();
+        } catch (IOException | RuntimeException e) {
+            throw new SerializationException("Failed to write activity " + activity.getId() + " as Avro", e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Writes the known metrics straight from their primitives, then fits the overflow values into the schema's
+     * map of primitives; nested values are sent as their string form.
+     */
+    private static void writeMetrics(BinaryEncoder encoder, ActivityMetrics metrics) throws IOException {
+        encoder.writeMapStart();
+        int count = metrics == null ? 0 : metrics.size();
+        encoder.setItemCount(count);
+        if (count > 0) {
+            for (ActivityMetrics.Metric metric : ActivityMetrics.Metric.values()) {
+                if (metrics.has(metric)) {
+                    encoder.startItem();
+                    encoder.writeString(metric.key());
+                    if (metric.isIntegral()) {
+                        encoder.writeIndex(METRIC_INT);
+                        encoder.writeInt((int) metrics.get(metric));
+                    } else {
+                        encoder.writeIndex(METRIC_DOUBLE);
+                        encoder.writeDouble(metrics.get(metric));
+                    }
+                }
+            }
+            for (Map.Entry<String, Object> metric : metrics.getOther().entrySet()) {
+                encoder.startItem();
+                encoder.writeString(metric.getKey());
+                writeMetricValue(encoder, metric.getValue());
+            }
+        }
+        encoder.writeMapEnd();
+    }
+
+    private static void writeMetricValue(BinaryEncoder encoder, Object value) throws IOException {
+        if (value == null) {
+            encoder.writeIndex(METRIC_NULL);
+        } else if (value instanceof Boolean flag) {
+            encoder.writeIndex(METRIC_BOOLEAN);
+            encoder.writeBoolean(flag);
+        } else if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            encoder.writeIndex(METRIC_INT);
+            encoder.writeInt(((Number) value).intValue());
+        } else if (value instanceof Long longValue) {
+            encoder.writeIndex(METRIC_LONG);
+            encoder.writeLong(longValue);
+        } else if (value instanceof Number number) {
+            encoder.writeIndex(METRIC_DOUBLE);
+            encoder.writeDouble(number.doubleValue());
+        } else {
+            encoder.writeIndex(METRIC_STRING);
+            encoder.writeString(value.toString());
+        }
+    }
+
+    private static void writeOptionalString(BinaryEncoder encoder, String value) throws IOException {
+        if (value == null) {
+            encoder.writeIndex(0);
+        } else {
+            encoder.writeIndex(1);
+            encoder.writeString(value);
+        }
+    }
+
+    private static void writeOptionalInt(BinaryEncoder encoder, Integer value) throws IOException {
+        if (value == null) {
+            encoder.writeIndex(0);
+        } else {
+            encoder.writeIndex(1);
+            encoder.writeInt(value);
+        }
+    }
+
+    private static void writeOptionalTimestamp(BinaryEncoder encoder, LocalDateTime value) throws IOException {
+        if (value == null) {
+            encoder.writeIndex(0);
+        } else {
+            encoder.writeIndex(1);
+            encoder.writeLong(value.toInstant(ZoneOffset.UTC).toEpochMilli());
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.fitness.activityservice.serialization;
+
+import java.io.ByteArrayOutputStream;
+
+/**
+ * Packs a series of integers as the zigzag-encoded difference to the previous value, written as a base-128
+ * varint. Sensor streams change slowly from one sample to the next, so most values fit in a single byte.
+ */
+public final class DeltaVarintCodec {
+
+    private DeltaVarintCodec() {
+    }
+
+    public static byte[] encode(long[] values, int count) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(count + 8);
+        long previous = 0;
+        for (int i = 0; i < count; i++) {
+            long delta = values[i] - previous;
+            long zigzag = (delta << 1) ^ (delta >> 63);
+            while ((zigzag & ~0x7FL) != 0) {
+                out.write((int) ((zigzag & 0x7F) | 0x80));
+                zigzag >>>= 7;
+            }
+            out.write((int) zigzag);
+            previous = values[i];
+        }
+        return out.toByteArray();
+    }
+
+    public static long[] decode(byte[] bytes, int count) {
+        long[] values = new long[count];
+        long previous = 0;
+        int position = 0;
+        for (int i = 0; i < count; i++) {
+            long zigzag = 0;
+            int shift = 0;
+            byte b;
+            do {
+                if (position == bytes.length) {
+                    throw new IllegalArgumentException("Encoded series ends after " + i + " of " + count + " values");
+                }
+                b = bytes[position++];
+                zigzag |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            previous += (zigzag >>> 1) ^ -(zigzag & 1);
+            values[i] = previous;
+        }
+        return values;
+    }
+}
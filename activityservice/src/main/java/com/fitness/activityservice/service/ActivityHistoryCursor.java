@@ -0,0 +1,37 @@
+package com.fitness.activityservice.service;
+
+import com.fitness.activityservice.model.Activity;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * Position after the last activity of a history page, in (startTime, id) order; startTime is null for activities
+ * recorded without one. Clients get it as an opaque base64url token.
+ */
+record ActivityHistoryCursor(LocalDateTime startTime, String id) {
+
+    static ActivityHistoryCursor after(Activity activity) {
+        return new ActivityHistoryCursor(activity.getStartTime(), activity.getId());
+    }
+
+    String encode() {
+        String raw = (startTime == null ? "" : startTime.toString()) + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static ActivityHistoryCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.indexOf('|');
+            String startTime = raw.substring(0, separator);
+            return new ActivityHistoryCursor(startTime.isEmpty() ? null : LocalDateTime.parse(startTime),
+                    raw.substring(separator + 1));
+        } catch (RuntimeException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor: " + token);
+        }
+    }
+}
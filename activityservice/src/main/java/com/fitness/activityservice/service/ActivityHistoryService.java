@@ -0,0 +1,95 @@
+package com.fitness.activityservice.service;
+
+import com.fitness.activityservice.dto.ActivityHistoryPage;
+import com.fitness.activityservice.model.Activity;
+import com.fitness.activityservice.model.ActivityType;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Reads a user's activity history ordered by startTime. Queries are shaped to be served by the
+ * {@code user_start} and {@code user_type_start} indexes of {@link Activity}: equality on userId (and
+ * activityType), then a range and sort on startTime with _id as the tie-breaker.
+ */
+@Service
+@RequiredArgsConstructor
+public class ActivityHistoryService {
+
+    private final MongoTemplate mongoTemplate;
+    private final ActivityService activityService;
+
+    @Value("${activity.history.default-size:20}")
+    private int defaultPageSize;
+
+    @Value("${activity.history.max-size:100}")
+    private int maxPageSize;
+
+    /**
+     * Returns one page of the user's activities started in [{@code from}, {@code to}), optionally of one type.
+     * {@code cursor} is the {@code nextCursor} of the previous page; pages are keyset based, so reading deep
+     * into the history costs the same as reading the first page.
+     */
+    public ActivityHistoryPage getHistory(String userId, LocalDateTime from, LocalDateTime to, ActivityType activityType,
+                                          String cursor, Integer size, Sort.Direction direction) {
+        int pageSize = size == null || size < 1 ? defaultPageSize : Math.min(size, maxPageSize);
+        Query query = historyQuery(userId, from, to, activityType,
+                cursor == null ? null : ActivityHistoryCursor.decode(cursor), direction)
+                .limit(pageSize + 1);
+        List<Activity> activities = mongoTemplate.find(query, Activity.class);
+        String nextCursor = null;
+        if (activities.size() > pageSize) {
+            activities = activities.subList(0, pageSize);
+            nextCursor = ActivityHistoryCursor.after(activities.get(pageSize - 1)).encode();
+        }
+        return new ActivityHistoryPage(activities.stream().map(activityService::mapToResponse).toList(), nextCursor);
+    }
+
+    static Query historyQuery(String userId, LocalDateTime from, LocalDateTime to, ActivityType activityType,
+                              ActivityHistoryCursor after, Sort.Direction direction) {
+        Criteria criteria = Criteria.where("userId").is(userId);
+        if (activityType != null) {
+            criteria = criteria.and("activityType").is(activityType);
+        }
+        // activities without a startTime only drop out when a range is asked for
+        if (from != null || to != null) {
+            Criteria startTime = criteria.and("startTime");
+            if (from != null) {
+                startTime.gte(from);
+            }
+            if (to != null) {
+                startTime.lt(to);
+            }
+        }
+        if (after != null) {
+            criteria = criteria.orOperator(afterCursor(after, direction));
+        }
+        return new Query(criteria).with(Sort.by(direction, "startTime", "id"));
+    }
+
+    /**
+     * Activities after the cursor in (startTime, id) order. Mongo sorts a missing startTime before every date, and
+     * range operators on a date never match it, so those activities need their own branches.
+     */
+    private static Criteria[] afterCursor(ActivityHistoryCursor after, Sort.Direction direction) {
+        boolean descending = direction.isDescending();
+        Criteria sameStartTime = Criteria.where("startTime").is(after.startTime());
+        Criteria tieBreak = descending ? sameStartTime.and("id").lt(after.id()) : sameStartTime.and("id").gt(after.id());
+        if (after.startTime() == null) {
+            return descending
+                    ? new Criteria[]{tieBreak}
+                    : new Criteria[]{tieBreak, Criteria.where("startTime").ne(null)};
+        }
+        return descending
+                ? new Criteria[]{Criteria.where("startTime").lt(after.startTime()), tieBreak,
+                        Criteria.where("startTime").is(null)}
+                : new Criteria[]{Criteria.where("startTime").gt(after.startTime()), tieBreak};
+    }
+}
@@ -0,0 +1,261 @@
+package com.fitness.activityservice.service;
+
+import com.fitness.activityservice.model.Activity;
+import com.fitness.activityservice.model.OutboxCheckpoint;
+import com.fitness.activityservice.model.OutboxEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drains the activity outbox to Kafka in batches. Only the instance holding the checkpoint lease relays, and it
+ * renews the lease before every batch; events the broker does not acknowledge are retried with exponential
+ * backoff. Events of a message key stay in order: while one waits for a retry, the later ones wait behind it.
+ */
+@Component
+@Slf4j
+public class ActivityOutboxRelay {
+
+    private static final String RELAY_ID = "activity-events-relay";
+    // read by aiservice's ActivityMessageListener
+    static final String AI_CACHE_BYPASS_HEADER = "ai-cache-bypass";
+
+    private final MongoTemplate mongoTemplate;
+    private final KafkaTemplate<String, Activity> kafkaTemplate;
+    private final int batchSize;
+    private final int maxBatchesPerRun;
+    private final Duration sendTimeout;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final Duration leaseDuration;
+    private final String instanceId = UUID.randomUUID().toString();
+
+    private final AtomicLong pendingEvents = new AtomicLong();
+    private final AtomicLong lagMillis = new AtomicLong();
+    private final Counter publishedCounter;
+    private final Counter failedCounter;
+
+    public ActivityOutboxRelay(MongoTemplate mongoTemplate,
+                               KafkaTemplate<String, Activity> kafkaTemplate,
+                               MeterRegistry meterRegistry,
+                               @Value("${activity.outbox.batch-size:500}") int batchSize,
+                               @Value("${activity.outbox.max-batches-per-run:10}") int maxBatchesPerRun,
+                               @Value("${activity.outbox.send-timeout:10s}") Duration sendTimeout,
+                               @Value("${activity.outbox.initial-backoff:1s}") Duration initialBackoff,
+                               @Value("${activity.outbox.max-backoff:5m}") Duration maxBackoff,
+                               @Value("${activity.outbox.lease-duration:30s}") Duration leaseDuration) {
+        this.mongoTemplate = mongoTemplate;
+        this.kafkaTemplate = kafkaTemplate;
+        this.batchSize = batchSize;
+        this.maxBatchesPerRun = maxBatchesPerRun;
+        this.sendTimeout = sendTimeout;
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+        this.leaseDuration = leaseDuration;
+        // a batch waits up to sendTimeout for its acks, which has to end before the lease taken for it does
+        if (sendTimeout.compareTo(leaseDuration) >= 0) {
+            throw new IllegalArgumentException("activity.outbox.send-timeout (" + sendTimeout
+                    + ") must be shorter than activity.outbox.lease-duration (" + leaseDuration + ")");
+        }
+        Gauge.builder("activity.outbox.pending", pendingEvents, AtomicLong::get)
+                .description("Activity events waiting in the outbox")
+                .register(meterRegistry);
+        Gauge.builder("activity.outbox.lag.seconds", lagMillis, lag -> lag.get() / 1000.0)
+                .description("Age of the oldest activity event waiting in the outbox")
+                .register(meterRegistry);
+        this.publishedCounter = Counter.builder("activity.outbox.published").register(meterRegistry);
+        this.failedCounter = Counter.builder("activity.outbox.failed").register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${activity.outbox.poll-interval:500ms}")
+    public void relay() {
+        try {
+            for (int i = 0; i < maxBatchesPerRun && acquireLease(); i++) {
+                if (relayBatch() < batchSize) {
+                    break;
+                }
+            }
+            updateLag();
+        } catch (Exception e) {
+            log.error("Outbox relay run failed", e);
+        }
+    }
+
+    private int relayBatch() {
+        LocalDateTime now = LocalDateTime.now();
+        Query dueEvents = new Query(Criteria.where("nextAttemptAt").lte(now))
+                .with(Sort.by("nextAttemptAt", "_id"))
+                .limit(batchSize);
+        List<OutboxEvent> events = mongoTemplate.find(dueEvents, OutboxEvent.class);
+        if (events.isEmpty()) {
+            return 0;
+        }
+
+        // Keys with an event waiting for its retry are held back until it has gone out, and an event being
+        // retried goes out without the later events of its key. Within a batch, the idempotent producer keeps
+        // the sends of a key in order.
+        Map<String, LocalDateTime> heldKeys = retryingKeys(events, now);
+        Map<String, String> firstOfRetriedKey = new HashMap<>();
+        events.stream()
+                .filter(event -> event.getAttempts() > 0)
+                .forEach(event -> firstOfRetriedKey.put(event.getMessageKey(), event.getId()));
+        for (OutboxEvent event : events) {
+            // ObjectId hex strings order by creation
+            firstOfRetriedKey.computeIfPresent(event.getMessageKey(),
+                    (key, first) -> event.getId().compareTo(first) < 0 ? event.getId() : first);
+        }
+        List<OutboxEvent> sent = new ArrayList<>(events.size());
+        BulkOperations retries = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, OutboxEvent.class);
+        for (OutboxEvent event : events) {
+            String key = event.getMessageKey();
+            LocalDateTime heldUntil = heldKeys.get(key);
+            if (heldUntil != null) {
+                // postponed behind the retry, so the held events do not fill every batch until it is due
+                retries.updateOne(new Query(Criteria.where("_id").is(event.getId())),
+                        new Update().set("nextAttemptAt", heldUntil));
+            } else if (event.getId().equals(firstOfRetriedKey.getOrDefault(key, event.getId()))) {
+                sent.add(event);
+            }
+            // the other events of a retried key stay due and go out once the retry has been acknowledged
+        }
+
+        List<CompletableFuture<SendResult<String, Activity>>> sends = new ArrayList<>(sent.size());
+        for (OutboxEvent event : sent) {
+            sends.add(send(event));
+        }
+        kafkaTemplate.flush();
+
+        long deadline = System.nanoTime() + sendTimeout.toNanos();
+        List<String> publishedIds = new ArrayList<>();
+        OutboxEvent lastPublished = null;
+        Map<String, LocalDateTime> failedKeys = new HashMap<>();
+        int failed = 0;
+        for (int i = 0; i < sent.size(); i++) {
+            OutboxEvent event = sent.get(i);
+            try {
+                sends.get(i).get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                publishedIds.add(event.getId());
+                lastPublished = event;
+            } catch (Exception e) {
+                failed++;
+                int attempts = event.getAttempts() + 1;
+                // later failures of a key retry with the first, so they cannot overtake it
+                LocalDateTime nextAttemptAt = failedKeys.computeIfAbsent(event.getMessageKey(),
+                        key -> now.plus(backoff(attempts)));
+                retries.updateOne(new Query(Criteria.where("_id").is(event.getId())), new Update()
+                        .set("attempts", attempts)
+                        .set("nextAttemptAt", nextAttemptAt)
+                        .set("lastError", String.valueOf(e.getMessage())));
+            }
+        }
+
+        if (!publishedIds.isEmpty()) {
+            mongoTemplate.remove(new Query(Criteria.where("_id").in(publishedIds)), OutboxEvent.class);
+            mongoTemplate.updateFirst(new Query(Criteria.where("_id").is(RELAY_ID)), new Update()
+                    .set("lastEventId", lastPublished.getId())
+                    .set("lastEventCreatedAt", lastPublished.getCreatedAt())
+                    .set("updatedAt", LocalDateTime.now())
+                    .inc("publishedCount", publishedIds.size()), OutboxCheckpoint.class);
+            publishedCounter.increment(publishedIds.size());
+        }
+        if (failed > 0 || !heldKeys.isEmpty()) {
+            retries.execute();
+        }
+        if (failed > 0) {
+            failedCounter.increment(failed);
+            log.warn("{} of {} outbox events were not acknowledged by Kafka, retrying later", failed, sent.size());
+        }
+        return events.size();
+    }
+
+    /**
+     * The message keys of the given events that have an event waiting for a retry, with the latest time one of
+     * them is due.
+     */
+    private Map<String, LocalDateTime> retryingKeys(List<OutboxEvent> events, LocalDateTime now) {
+        Set<String> keys = new HashSet<>();
+        events.forEach(event -> keys.add(event.getMessageKey()));
+        Query waiting = new Query(Criteria.where("nextAttemptAt").gt(now).and("messageKey").in(keys));
+        waiting.fields().include("messageKey", "nextAttemptAt");
+        Map<String, LocalDateTime> retrying = new HashMap<>();
+        for (OutboxEvent event : mongoTemplate.find(waiting, OutboxEvent.class)) {
+            retrying.merge(event.getMessageKey(), event.getNextAttemptAt(),
+                    (a, b) -> a.isAfter(b) ? a : b);
+        }
+        return retrying;
+    }
+
+    private CompletableFuture<SendResult<String, Activity>> send(OutboxEvent event) {
+        try {
+            ProducerRecord<String, Activity> record = new ProducerRecord<>(event.getTopic(), event.getMessageKey(),
+                    event.getPayload());
+            if (event.isAiCacheBypass()) {
+                record.headers().add(AI_CACHE_BYPASS_HEADER, "true".getBytes(StandardCharsets.UTF_8));
+            }
+            return kafkaTemplate.send(record);
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private Duration backoff(int attempts) {
+        long millis = initialBackoff.toMillis() << Math.min(attempts - 1, 20);
+        millis = Math.min(millis, maxBackoff.toMillis());
+        return Duration.ofMillis(millis / 2 + ThreadLocalRandom.current().nextLong(millis / 2 + 1));
+    }
+
+    /**
+     * Takes or renews the relay lease on the checkpoint document. Fails with a duplicate key when another
+     * instance holds an unexpired lease.
+     */
+    private boolean acquireLease() {
+        LocalDateTime now = LocalDateTime.now();
+        Query query = new Query(Criteria.where("_id").is(RELAY_ID)
+                .orOperator(Criteria.where("leaseOwner").is(instanceId), Criteria.where("leaseUntil").lt(now)));
+        Update update = new Update()
+                .set("leaseOwner", instanceId)
+                .set("leaseUntil", now.plus(leaseDuration));
+        try {
+            mongoTemplate.upsert(query, update, OutboxCheckpoint.class);
+            return true;
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+
+    private void updateLag() {
+        pendingEvents.set(mongoTemplate.estimatedCount(OutboxEvent.class));
+        OutboxEvent oldest = mongoTemplate.findOne(new Query().with(Sort.by("_id")).limit(1), OutboxEvent.class);
+        lagMillis.set(oldest == null || oldest.getCreatedAt() == null ? 0
+                : Math.max(0, Duration.between(oldest.getCreatedAt(), LocalDateTime.now()).toMillis()));
+    }
+}
@@ -0,0 +1,80 @@
+package com.fitness.activityservice.service;
+
+import com.fitness.activityservice.model.Activity;
+import com.fitness.activityservice.model.OutboxEvent;
+import com.fitness.activityservice.repository.OutboxEventRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.MongoTransactionManager;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.Profiles;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Writes activity events to the outbox collection. {@link ActivityOutboxRelay} takes them to Kafka, so the
+ * request path never waits on the broker.
+ */
+@Service
+@Slf4j
+public class ActivityOutboxService {
+
+    static final String DEV_PROFILE = "dev";
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final String topicName;
+
+    public ActivityOutboxService(OutboxEventRepository outboxEventRepository,
+                                 ObjectProvider<MongoTransactionManager> transactionManager,
+                                 Environment environment,
+                                 @Value("${kafka.topic.name}") String topicName) {
+        this.outboxEventRepository = outboxEventRepository;
+        MongoTransactionManager mongoTransactionManager = transactionManager.getIfAvailable();
+        // without a transaction an activity can be stored and its event lost, which the outbox is there to prevent
+        if (mongoTransactionManager == null && !environment.acceptsProfiles(Profiles.of(DEV_PROFILE))) {
+            throw new IllegalStateException("activity.outbox.transactional is off outside the " + DEV_PROFILE
+                    + " profile; activities and their outbox events must be written in one transaction");
+        }
+        this.transactionTemplate = mongoTransactionManager != null ? new TransactionTemplate(mongoTransactionManager) : null;
+        this.topicName = topicName;
+    }
+
+    /**
+     * Runs the given writes in a Mongo transaction. Only in the {@code dev} profile, with
+     * {@code activity.outbox.transactional} off, are they run as they are.
+     */
+    public <T> T inTransaction(Supplier<T> writes) {
+        if (transactionTemplate == null) {
+            return writes.get();
+        }
+        return transactionTemplate.execute(status -> writes.get());
+    }
+
+    public void enqueue(Activity activity) {
+        outboxEventRepository.insert(toEvent(activity, LocalDateTime.now()));
+    }
+
+    public void enqueueAll(List<Activity> activities) {
+        LocalDateTime now = LocalDateTime.now();
+        outboxEventRepository.insert(activities.stream().map(activity -> toEvent(activity, now)).toList());
+        log.info("Queued {} activity events", activities.size());
+    }
+
+    OutboxEvent toEvent(Activity activity, LocalDateTime now) {
+        return OutboxEvent.builder()
+                .aggregateId(activity.getId())
+                .topic(topicName)
+                .messageKey(activity.getUserId())
+                .payload(activity)
+                .aiCacheBypass(activity.isAiCacheBypass())
+                .createdAt(now)
+                .nextAttemptAt(now)
+                .build();
+    }
+}
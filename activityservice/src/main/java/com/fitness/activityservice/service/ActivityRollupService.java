@@ -0,0 +1,280 @@
+package com.fitness.activityservice.service;
+
+import com.fitness.activityservice.dto.ActivityStatsResponse;
+import com.fitness.activityservice.model.Activity;
+import com.fitness.activityservice.model.ActivityRollup;
+import com.fitness.activityservice.model.ActivityType;
+import com.fitness.activityservice.model.RollupPeriod;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.util.Pair;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Maintains the {@code activity_rollups} collection: per user, {@link ActivityType} and day/week/month totals
+ * of count, duration and calories. Tracked activities are added with {@code $inc} upserts, stats are served from
+ * the rollups alone, and {@link #rebuild(String)} recomputes a user's rollups from the raw activities to repair
+ * any drift (e.g. an increment doubled by a client retry). Users whose increments failed are rebuilt every
+ * {@code activity.rollup.repair-interval}.
+ */
+@Service
+@Slf4j
+public class ActivityRollupService {
+
+    private final MongoTemplate mongoTemplate;
+    private final Counter failedCounter;
+    private final Set<String> usersToRepair = ConcurrentHashMap.newKeySet();
+
+    public ActivityRollupService(MongoTemplate mongoTemplate, MeterRegistry meterRegistry) {
+        this.mongoTemplate = mongoTemplate;
+        this.failedCounter = Counter.builder("activity.rollups.failed")
+                .description("Rollup increments that failed and wait for a rebuild of their user")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Adds the activities to their rollups. Activities sharing a rollup are summed first, so a batch costs one
+     * upsert per touched rollup in a single bulk write. Inside a transaction a failure is rethrown, as the
+     * transaction is aborted and the activities are not stored either.
+     */
+    public void apply(Collection<Activity> activities) {
+        List<Pair<Query, Update>> increments = increments(activities);
+        if (increments.isEmpty()) {
+            return;
+        }
+        BulkOperations bulkOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ActivityRollup.class)
+                .upsert(increments);
+        try {
+            bulkOperations.execute();
+        } catch (DataAccessException e) {
+            if (TransactionSynchronizationManager.isActualTransactionActive()) {
+                throw e;
+            }
+            failed(activities, e);
+        }
+    }
+
+    /**
+     * Records increments that failed after their activities were stored, so {@link #repairFailed()} rebuilds
+     * the rollups of their users.
+     */
+    void failed(Collection<Activity> activities, Throwable cause) {
+        log.error("Failed to update rollups for {} activities, rebuilding them later", activities.size(), cause);
+        failedCounter.increment();
+        activities.stream().map(Activity::getUserId).filter(Objects::nonNull).forEach(usersToRepair::add);
+    }
+
+    /**
+     * Rebuilds the rollups of the users whose increments failed. A user whose rebuild fails as well is tried
+     * again on the next run.
+     */
+    @Scheduled(fixedDelayString = "${activity.rollup.repair-interval:1m}")
+    public void repairFailed() {
+        for (String userId : List.copyOf(usersToRepair)) {
+            try {
+                usersToRepair.remove(userId);
+                rebuild(userId);
+            } catch (DataAccessException e) {
+                usersToRepair.add(userId);
+                log.warn("Rebuilding the rollups of user {} failed, retrying later", userId, e);
+            }
+        }
+    }
+
+    /**
+     * One {@code $inc} upsert per rollup touched by the activities, for callers writing them with their own
+     * template (the reactive write path).
+     */
+    List<Pair<Query, Update>> increments(Collection<Activity> activities) {
+        LocalDateTime now = LocalDateTime.now();
+        return accumulate(activities.stream()).values().stream()
+                .map(delta -> Pair.<Query, Update>of(
+                        Query.query(Criteria.where("id").is(delta.getId())),
+                        new Update()
+                                .setOnInsert("userId", delta.getUserId())
+                                .setOnInsert("period", delta.getPeriod())
+                                .setOnInsert("periodStart", delta.getPeriodStart())
+                                .setOnInsert("activityType", delta.getActivityType())
+                                .inc("count", delta.getCount())
+                                .inc("totalDuration", delta.getTotalDuration())
+                                .inc("totalCalories", delta.getTotalCalories())
+                                .set("updatedAt", now)))
+                .toList();
+    }
+
+    /**
+     * Reads the user's rollups of one period size with a start in [{@code from}, {@code to}], plus their totals
+     * per type and the user's current and longest streak of active days.
+     */
+    public ActivityStatsResponse getStats(String userId, RollupPeriod period, LocalDate from, LocalDate to) {
+        Criteria criteria = Criteria.where("userId").is(userId).and("period").is(period);
+        if (from != null || to != null) {
+            Criteria periodStart = criteria.and("periodStart");
+            if (from != null) {
+                periodStart.gte(period.start(from));
+            }
+            if (to != null) {
+                periodStart.lte(to);
+            }
+        }
+        List<ActivityRollup> rollups = mongoTemplate.find(
+                new Query(criteria).with(Sort.by("periodStart", "activityType")), ActivityRollup.class);
+
+        List<ActivityStatsResponse.Bucket> buckets = rollups.stream()
+                .map(rollup -> new ActivityStatsResponse.Bucket(rollup.getPeriodStart(), rollup.getActivityType(),
+                        rollup.getCount(), rollup.getTotalDuration(), rollup.getTotalCalories()))
+                .toList();
+        Map<ActivityType, ActivityStatsResponse.Bucket> totalsByType = new EnumMap<>(ActivityType.class);
+        for (ActivityRollup rollup : rollups) {
+            if (rollup.getActivityType() == null) {
+                continue;
+            }
+            ActivityStatsResponse.Bucket total = totalsByType.computeIfAbsent(rollup.getActivityType(),
+                    type -> new ActivityStatsResponse.Bucket(null, type, 0, 0, 0));
+            total.setCount(total.getCount() + rollup.getCount());
+            total.setTotalDuration(total.getTotalDuration() + rollup.getTotalDuration());
+            total.setTotalCalories(total.getTotalCalories() + rollup.getTotalCalories());
+        }
+
+        int[] streaks = streaks(userId, LocalDate.now());
+        return new ActivityStatsResponse(userId, period, buckets, totalsByType, streaks[0], streaks[1]);
+    }
+
+    /**
+     * Recomputes the user's rollups from their activities and replaces the stored ones. Activities tracked while
+     * the rebuild runs may be counted by the next rebuild rather than this one.
+     */
+    public int rebuild(String userId) {
+        Query activitiesQuery = Query.query(Criteria.where("userId").is(userId));
+        activitiesQuery.fields().include("userId", "activityType", "duration", "caloriesBurned", "startTime", "createdAt");
+        Map<String, ActivityRollup> rollups;
+        try (Stream<Activity> activities = mongoTemplate.stream(activitiesQuery, Activity.class)) {
+            rollups = accumulate(activities);
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        if (!rollups.isEmpty()) {
+            BulkOperations bulkOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ActivityRollup.class);
+            rollups.values().forEach(rollup -> bulkOperations.upsert(
+                    Query.query(Criteria.where("id").is(rollup.getId())),
+                    new Update()
+                            .set("userId", rollup.getUserId())
+                            .set("period", rollup.getPeriod())
+                            .set("periodStart", rollup.getPeriodStart())
+                            .set("activityType", rollup.getActivityType())
+                            .set("count", rollup.getCount())
+                            .set("totalDuration", rollup.getTotalDuration())
+                            .set("totalCalories", rollup.getTotalCalories())
+                            .set("updatedAt", now)));
+            bulkOperations.execute();
+        }
+        mongoTemplate.remove(Query.query(Criteria.where("userId").is(userId).and("id").nin(rollups.keySet())),
+                ActivityRollup.class);
+        log.info("Rebuilt {} rollups for user {}", rollups.size(), userId);
+        return rollups.size();
+    }
+
+    /**
+     * Rebuilds every user's rollups. Runs on {@code activity.rollup.rebuild-cron} when that is set. Users are
+     * walked one at a time in userId order, each found with one seek on the {@code user_start} index, so no
+     * result has to hold every user id.
+     */
+    @Scheduled(cron = "${activity.rollup.rebuild-cron:-}")
+    public int rebuildAll() {
+        int rebuilt = 0;
+        int users = 0;
+        for (String userId = nextUserId(null); userId != null; userId = nextUserId(userId)) {
+            rebuilt += rebuild(userId);
+            users++;
+        }
+        log.info("Rebuilt {} rollups for {} users", rebuilt, users);
+        return rebuilt;
+    }
+
+    /**
+     * The smallest userId after the given one, or the first when it is null; null when there is none.
+     */
+    private String nextUserId(String after) {
+        Query query = new Query(after == null ? Criteria.where("userId").ne(null) : Criteria.where("userId").gt(after))
+                .with(Sort.by("userId"))
+                .limit(1);
+        query.fields().include("userId");
+        Activity activity = mongoTemplate.findOne(query, Activity.class);
+        return activity == null ? null : activity.getUserId();
+    }
+
+    private static Map<String, ActivityRollup> accumulate(Stream<Activity> activities) {
+        Map<String, ActivityRollup> rollups = new LinkedHashMap<>();
+        activities.forEach(activity -> {
+            if (activity.getUserId() == null) {
+                return;
+            }
+            LocalDateTime at = activity.getStartTime() != null ? activity.getStartTime() : activity.getCreatedAt();
+            LocalDate date = (at != null ? at : LocalDateTime.now()).toLocalDate();
+            for (RollupPeriod period : RollupPeriod.values()) {
+                LocalDate periodStart = period.start(date);
+                String id = ActivityRollup.idFor(activity.getUserId(), period, periodStart, activity.getActivityType());
+                ActivityRollup rollup = rollups.computeIfAbsent(id, key -> ActivityRollup.builder()
+                        .id(key)
+                        .userId(activity.getUserId())
+                        .period(period)
+                        .periodStart(periodStart)
+                        .activityType(activity.getActivityType())
+                        .build());
+                rollup.setCount(rollup.getCount() + 1);
+                rollup.setTotalDuration(rollup.getTotalDuration() + valueOf(activity.getDuration()));
+                rollup.setTotalCalories(rollup.getTotalCalories() + valueOf(activity.getCaloriesBurned()));
+            }
+        });
+        return rollups;
+    }
+
+    /**
+     * Current and longest runs of consecutive active days, from the DAY rollups. The current streak counts as
+     * long as the last active day is today or yesterday.
+     */
+    private int[] streaks(String userId, LocalDate today) {
+        Query query = Query.query(Criteria.where("userId").is(userId).and("period").is(RollupPeriod.DAY));
+        query.fields().include("periodStart");
+        TreeSet<LocalDate> activeDays = new TreeSet<>();
+        mongoTemplate.find(query, ActivityRollup.class).forEach(rollup -> activeDays.add(rollup.getPeriodStart()));
+
+        int longest = 0;
+        int run = 0;
+        LocalDate previous = null;
+        for (LocalDate day : activeDays) {
+            run = previous != null && previous.plusDays(1).equals(day) ? run + 1 : 1;
+            longest = Math.max(longest, run);
+            previous = day;
+        }
+        boolean ongoing = previous != null && !previous.isBefore(today.minusDays(1));
+        return new int[]{ongoing ? run : 0, longest};
+    }
+
+    private static long valueOf(Integer value) {
+        return value == null ? 0 : value;
+    }
+}
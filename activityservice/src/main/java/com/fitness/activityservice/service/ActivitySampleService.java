@@ -0,0 +1,319 @@
+package com.fitness.activityservice.service;
+
+import com.fitness.activityservice.dto.ActivitySample;
+import com.fitness.activityservice.dto.ActivitySampleChunk;
+import com.fitness.activityservice.dto.ActivitySampleIngestResponse;
+import com.fitness.activityservice.dto.ActivitySamplesResponse;
+import com.fitness.activityservice.model.Activity;
+import com.fitness.activityservice.model.ActivitySampleBucket;
+import com.fitness.activityservice.serialization.DeltaVarintCodec;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Stores the per-second sensor streams of an activity next to, not inside, its summary document. Chunks are
+ * split into {@link ActivitySampleBucket}s of {@code activity.samples.bucket-size} samples written with one bulk
+ * upsert; reads decode the buckets overlapping the requested range and average them down to at most
+ * {@code maxPoints} samples.
+ */
+@Service
+@Slf4j
+public class ActivitySampleService {
+
+    private static final SampleChannel[] CHANNELS = SampleChannel.values();
+
+    private final MongoTemplate mongoTemplate;
+    private final int bucketSize;
+    private final int maxChunkSize;
+    private final int defaultPoints;
+    private final int maxPoints;
+
+    public ActivitySampleService(MongoTemplate mongoTemplate,
+                                 @Value("${activity.samples.bucket-size:600}") int bucketSize,
+                                 @Value("${activity.samples.max-chunk-size:20000}") int maxChunkSize,
+                                 @Value("${activity.samples.default-points:1000}") int defaultPoints,
+                                 @Value("${activity.samples.max-points:10000}") int maxPoints) {
+        this.mongoTemplate = mongoTemplate;
+        this.bucketSize = bucketSize;
+        this.maxChunkSize = maxChunkSize;
+        this.defaultPoints = defaultPoints;
+        this.maxPoints = maxPoints;
+    }
+
+    public ActivitySampleIngestResponse ingest(String activityId, ActivitySampleChunk chunk) {
+        List<ActivitySample> samples = chunk == null || chunk.getSamples() == null ? List.of() : chunk.getSamples();
+        if (samples.size() > maxChunkSize) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Chunk too large: " + samples.size() + " > " + maxChunkSize);
+        }
+        Query activityQuery = Query.query(Criteria.where("_id").is(activityId));
+        activityQuery.fields().include("userId");
+        Activity activity = mongoTemplate.findOne(activityQuery, Activity.class);
+        if (activity == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Activity not found: " + activityId);
+        }
+        if (samples.isEmpty()) {
+            return new ActivitySampleIngestResponse(activityId, 0, 0);
+        }
+
+        ActivitySample[] sorted = samples.toArray(new ActivitySample[0]);
+        Arrays.sort(sorted, Comparator.comparingLong(ActivitySample::getTimestamp));
+        validate(sorted);
+
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ActivitySampleBucket.class);
+        int buckets = 0;
+        for (int from = 0; from < sorted.length; from += bucketSize) {
+            ActivitySampleBucket bucket = encode(activityId, activity.getUserId(), sorted, from, Math.min(sorted.length, from + bucketSize));
+            bulk.replaceOne(Query.query(Criteria.where("_id").is(bucket.getId())), bucket, FindAndReplaceOptions.options().upsert());
+            buckets++;
+        }
+        bulk.execute();
+        log.debug("Stored {} samples of activity {} in {} buckets", sorted.length, activityId, buckets);
+        return new ActivitySampleIngestResponse(activityId, sorted.length, buckets);
+    }
+
+    /**
+     * Returns the samples between {@code from} and {@code to} (epoch millis, inclusive, both optional). If there
+     * are more than {@code points} of them they are averaged per channel over equal time windows.
+     */
+    public ActivitySamplesResponse getSamples(String activityId, Long from, Long to, Integer points) {
+        long lower = from == null ? Long.MIN_VALUE : from;
+        long upper = to == null ? Long.MAX_VALUE : to;
+        int limit = Math.max(1, Math.min(points == null ? defaultPoints : points, maxPoints));
+
+        Criteria criteria = Criteria.where("activityId").is(activityId);
+        if (to != null) {
+            criteria.and("start").lte(Instant.ofEpochMilli(upper));
+        }
+        if (from != null) {
+            criteria.and("end").gte(Instant.ofEpochMilli(lower));
+        }
+        Query query = Query.query(criteria).with(Sort.by("start", "_id"));
+
+        Series series = new Series();
+        for (ActivitySampleBucket bucket : mongoTemplate.find(query, ActivitySampleBucket.class)) {
+            decode(bucket, lower, upper, series);
+        }
+        series.sortAndDeduplicate();
+
+        if (series.size <= limit) {
+            return new ActivitySamplesResponse(activityId, series.size, 0, series.toSamples());
+        }
+        long span = series.times[series.size - 1] - series.times[0] + 1;
+        long window = (span + limit - 1) / limit;
+        return new ActivitySamplesResponse(activityId, series.size, window, series.downsample(window));
+    }
+
+    private static void validate(ActivitySample[] samples) {
+        List<String> violations = new ArrayList<>();
+        for (ActivitySample sample : samples) {
+            if (sample.getTimestamp() <= 0) {
+                violations.add("timestamp missing");
+            }
+            for (SampleChannel channel : CHANNELS) {
+                Double value = channel.read(sample);
+                String violation = value == null ? null : channel.check(value);
+                if (violation != null) {
+                    violations.add(violation + " at " + sample.getTimestamp());
+                }
+            }
+            if (violations.size() >= 10) {
+                break;
+            }
+        }
+        if (!violations.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid samples: " + String.join("; ", violations));
+        }
+    }
+
+    static ActivitySampleBucket encode(String activityId, String userId, ActivitySample[] samples, int from, int to) {
+        int count = to - from;
+        long start = samples[from].getTimestamp();
+        long[] offsets = new long[count];
+        for (int i = 0; i < count; i++) {
+            offsets[i] = samples[from + i].getTimestamp() - start;
+        }
+
+        Map<String, ActivitySampleBucket.EncodedSeries> channels = new LinkedHashMap<>();
+        long[] values = new long[count];
+        for (SampleChannel channel : CHANNELS) {
+            byte[] present = new byte[(count + 7) >>> 3];
+            int size = 0;
+            for (int i = 0; i < count; i++) {
+                Double value = channel.read(samples[from + i]);
+                if (value != null) {
+                    values[size++] = channel.toStored(value);
+                    present[i >>> 3] |= (byte) (1 << (i & 7));
+                }
+            }
+            if (size > 0) {
+                channels.put(channel.key(), new ActivitySampleBucket.EncodedSeries(size,
+                        DeltaVarintCodec.encode(values, size), size == count ? null : present));
+            }
+        }
+        return ActivitySampleBucket.builder()
+                .id(ActivitySampleBucket.idFor(activityId, start))
+                .activityId(activityId)
+                .userId(userId)
+                .start(Instant.ofEpochMilli(start))
+                .end(Instant.ofEpochMilli(samples[to - 1].getTimestamp()))
+                .count(count)
+                .timestamps(DeltaVarintCodec.encode(offsets, count))
+                .channels(channels)
+                .build();
+    }
+
+    private static void decode(ActivitySampleBucket bucket, long lower, long upper, Series series) {
+        int count = bucket.getCount();
+        long start = bucket.getStart().toEpochMilli();
+        long[] offsets = DeltaVarintCodec.decode(bucket.getTimestamps(), count);
+        double[][] channelValues = new double[CHANNELS.length][];
+        for (SampleChannel channel : CHANNELS) {
+            ActivitySampleBucket.EncodedSeries encoded = bucket.getChannels() == null ? null : bucket.getChannels().get(channel.key());
+            if (encoded == null) {
+                continue;
+            }
+            long[] stored = DeltaVarintCodec.decode(encoded.getValues(), encoded.getSize());
+            double[] values = new double[count];
+            byte[] present = encoded.getPresent();
+            for (int i = 0, next = 0; i < count; i++) {
+                boolean has = present == null || (present[i >>> 3] & (1 << (i & 7))) != 0;
+                values[i] = has ? channel.fromStored(stored[next++]) : Double.NaN;
+            }
+            channelValues[channel.ordinal()] = values;
+        }
+        for (int i = 0; i < count; i++) {
+            long timestamp = start + offsets[i];
+            if (timestamp >= lower && timestamp <= upper) {
+                series.add(timestamp, channelValues, i);
+            }
+        }
+    }
+
+    /**
+     * Decoded samples as parallel primitive columns; missing channel values are NaN.
+     */
+    private static final class Series {
+        private long[] times = new long[256];
+        private final double[][] values = new double[CHANNELS.length][256];
+        private int size;
+
+        void add(long timestamp, double[][] channelValues, int index) {
+            if (size == times.length) {
+                times = Arrays.copyOf(times, size * 2);
+                for (int c = 0; c < values.length; c++) {
+                    values[c] = Arrays.copyOf(values[c], size * 2);
+                }
+            }
+            times[size] = timestamp;
+            for (int c = 0; c < values.length; c++) {
+                values[c][size] = channelValues[c] == null ? Double.NaN : channelValues[c][index];
+            }
+            size++;
+        }
+
+        /**
+         * Buckets from separately sent chunks may overlap; orders by time and keeps the last sample written for
+         * a timestamp.
+         */
+        void sortAndDeduplicate() {
+            boolean ordered = true;
+            for (int i = 1; i < size && ordered; i++) {
+                ordered = times[i - 1] < times[i];
+            }
+            if (ordered) {
+                return;
+            }
+            Integer[] order = new Integer[size];
+            for (int i = 0; i < size; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, Comparator.comparingLong(i -> times[i]));
+            long[] sortedTimes = new long[size];
+            double[][] sortedValues = new double[values.length][size];
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                int source = order[i];
+                if (kept > 0 && sortedTimes[kept - 1] == times[source]) {
+                    kept--;
+                }
+                sortedTimes[kept] = times[source];
+                for (int c = 0; c < values.length; c++) {
+                    sortedValues[c][kept] = values[c][source];
+                }
+                kept++;
+            }
+            times = sortedTimes;
+            System.arraycopy(sortedValues, 0, values, 0, values.length);
+            size = kept;
+        }
+
+        List<ActivitySample> toSamples() {
+            List<ActivitySample> samples = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                ActivitySample sample = new ActivitySample();
+                sample.setTimestamp(times[i]);
+                for (SampleChannel channel : CHANNELS) {
+                    double value = values[channel.ordinal()][i];
+                    if (!Double.isNaN(value)) {
+                        channel.write(sample, value);
+                    }
+                }
+                samples.add(sample);
+            }
+            return samples;
+        }
+
+        /**
+         * Averages every channel over consecutive windows of {@code window} millis, stamped with the time of
+         * the window's first sample.
+         */
+        List<ActivitySample> downsample(long window) {
+            List<ActivitySample> samples = new ArrayList<>();
+            double[] sums = new double[CHANNELS.length];
+            int[] counts = new int[CHANNELS.length];
+            long origin = times[0];
+            int i = 0;
+            while (i < size) {
+                long windowIndex = (times[i] - origin) / window;
+                ActivitySample sample = new ActivitySample();
+                sample.setTimestamp(times[i]);
+                Arrays.fill(sums, 0);
+                Arrays.fill(counts, 0);
+                for (; i < size && (times[i] - origin) / window == windowIndex; i++) {
+                    for (int c = 0; c < CHANNELS.length; c++) {
+                        double value = values[c][i];
+                        if (!Double.isNaN(value)) {
+                            sums[c] += value;
+                            counts[c]++;
+                        }
+                    }
+                }
+                for (SampleChannel channel : CHANNELS) {
+                    int c = channel.ordinal();
+                    if (counts[c] > 0) {
+                        channel.write(sample, sums[c] / counts[c]);
+                    }
+                }
+                samples.add(sample);
+            }
+            return samples;
+        }
+    }
+}
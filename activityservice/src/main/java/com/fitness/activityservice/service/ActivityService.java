@@ -1,27 +1,49 @@
 package com.fitness.activityservice.service;
 
+import com.fitness.activityservice.dto.ActivityBatchItemResult;
+import com.fitness.activityservice.dto.ActivityBatchResponse;
 import com.fitness.activityservice.dto.ActivityRequest;
 import com.fitness.activityservice.dto.ActivityResponse;
 import com.fitness.activityservice.model.Activity;
 import com.fitness.activityservice.repository.ActivityRepository;
 import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 @Service
 @Slf4j
 public class ActivityService {
+
+    static final String ROLLED_BACK = "Not stored, the batch was rolled back: another activity failed to insert";
+
     @Autowired
     private UserValidationService userValidationService;
     @Autowired
     private ActivityRepository activityRepository;
     @Autowired
-    private KafkaTemplate<String, Activity> kafkaTemplate;
+    private ActivityOutboxService activityOutboxService;
+    @Autowired
+    private ActivityRollupService activityRollupService;
+    @Autowired
+    private MongoTemplate mongoTemplate;
 
-    @Value("${kafka.topic.name}")
-    private String topicName;
+    @Value("${activity.batch.max-size:1000}")
+    private int maxBatchSize;
 
     public ActivityResponse trackActivity(ActivityRequest activityRequest) {
 
@@ -36,26 +58,126 @@ public class ActivityService {
         if (!isValidUser) {
             throw new RuntimeException("Invalid User: " + activityRequest.getUserId());
         }
-        Activity activity = Activity.builder()
+        List<String> metricViolations = validateMetrics(activityRequest);
+        if (!metricViolations.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid metrics: " + String.join("; ", metricViolations));
+        }
+        Activity activity = mapToActivity(activityRequest);
+        Activity savedActivity = activityOutboxService.inTransaction(() -> {
+            Activity saved = activityRepository.save(activity);
+            activityOutboxService.enqueue(saved);
+            activityRollupService.apply(List.of(saved));
+            return saved;
+        });
+        return mapToResponse(savedActivity);
+    }
+
+    /**
+     * Ingests a batch of activities: distinct users are validated in one pass, valid activities are written
+     * with a single unordered bulk insert and their events are queued in the outbox in one write. Every item
+     * gets its own result so partial failures are visible to the caller.
+     */
+    public ActivityBatchResponse trackActivities(List<ActivityRequest> activityRequests) {
+        if (activityRequests.size() > maxBatchSize) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Batch too large: " + activityRequests.size() + " > " + maxBatchSize);
+        }
+        Map<String, Boolean> validUsers = userValidationService.validateUsers(
+                activityRequests.stream().map(ActivityRequest::getUserId).toList());
+
+        ActivityBatchItemResult[] results = new ActivityBatchItemResult[activityRequests.size()];
+        List<Activity> activities = new ArrayList<>();
+        List<Integer> activityIndexes = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < activityRequests.size(); i++) {
+            ActivityRequest activityRequest = activityRequests.get(i);
+            if (!validUsers.getOrDefault(activityRequest.getUserId(), false)) {
+                results[i] = new ActivityBatchItemResult(i, ActivityBatchItemResult.Status.INVALID_USER, null,
+                        "Invalid User: " + activityRequest.getUserId());
+                continue;
+            }
+            List<String> metricViolations = validateMetrics(activityRequest);
+            if (!metricViolations.isEmpty()) {
+                results[i] = new ActivityBatchItemResult(i, ActivityBatchItemResult.Status.INVALID_METRICS, null,
+                        "Invalid metrics: " + String.join("; ", metricViolations));
+                continue;
+            }
+            // Bulk inserts neither report generated ids back nor run creation auditing, so both are set here.
+            Activity activity = mapToActivity(activityRequest);
+            activity.setId(new ObjectId().toHexString());
+            activity.setCreatedAt(now);
+            activity.setUpdatedAt(now);
+            activities.add(activity);
+            activityIndexes.add(i);
+        }
+
+        // As in trackActivity, the activities and their outbox events commit together. Inside a transaction a
+        // failed insert aborts it on the server, so the exception leaves the transaction and every activity of
+        // the batch is reported as failed; without one the other inserts are kept.
+        Map<Integer, String> failedInserts = new HashMap<>();
+        List<Activity> savedActivities = List.of();
+        try {
+            if (!activities.isEmpty()) {
+                savedActivities = activityOutboxService.inTransaction(() -> {
+                    try {
+                        mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Activity.class)
+                                .insert(activities)
+                                .execute();
+                    } catch (BulkOperationException e) {
+                        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+                            throw e;
+                        }
+                        e.getErrors().forEach(error -> failedInserts.put(error.getIndex(), error.getMessage()));
+                    }
+                    List<Activity> saved = new ArrayList<>(activities.size());
+                    for (int i = 0; i < activities.size(); i++) {
+                        if (!failedInserts.containsKey(i)) {
+                            saved.add(activities.get(i));
+                        }
+                    }
+                    if (!saved.isEmpty()) {
+                        activityOutboxService.enqueueAll(saved);
+                        activityRollupService.apply(saved);
+                    }
+                    return saved;
+                });
+            }
+        } catch (BulkOperationException e) {
+            log.warn("Rolled back a batch of {} activities after {} failed inserts", activities.size(), e.getErrors().size());
+            for (int i = 0; i < activities.size(); i++) {
+                failedInserts.put(i, ROLLED_BACK);
+            }
+            e.getErrors().forEach(error -> failedInserts.put(error.getIndex(), error.getMessage()));
+        }
+
+        for (int i = 0; i < activities.size(); i++) {
+            int index = activityIndexes.get(i);
+            results[index] = failedInserts.containsKey(i)
+                    ? new ActivityBatchItemResult(index, ActivityBatchItemResult.Status.FAILED, null, failedInserts.get(i))
+                    : new ActivityBatchItemResult(index, ActivityBatchItemResult.Status.ACCEPTED,
+                            mapToResponse(activities.get(i)), null);
+        }
+        int accepted = savedActivities.size();
+        return new ActivityBatchResponse(accepted, results.length - accepted, Arrays.asList(results));
+    }
+
+    static List<String> validateMetrics(ActivityRequest activityRequest) {
+        return activityRequest.getAdditionalMetrics() == null ? List.of() : activityRequest.getAdditionalMetrics().validate();
+    }
+
+    Activity mapToActivity(ActivityRequest activityRequest) {
+        return Activity.builder()
                 .userId(activityRequest.getUserId())
                 .activityType(activityRequest.getActivityType())
                 .caloriesBurned(activityRequest.getCaloriesBurned())
                 .additionalMetrics(activityRequest.getAdditionalMetrics())
                 .duration(activityRequest.getDuration())
                 .startTime(activityRequest.getStartTime())
+                .aiCacheBypass(activityRequest.isAiCacheBypass())
                 .build();
-        Activity savedActivity = activityRepository.save(activity);
-        try {
-            log.info("Send data to kafka");
-            kafkaTemplate.send(topicName, savedActivity.getUserId(), savedActivity);
-        } catch (Exception e) {
-//            throw new RuntimeException(e);
-            e.printStackTrace();
-        }
-        return mapToResponse(savedActivity);
     }
 
-    private ActivityResponse mapToResponse(Activity savedActivity) {
+    ActivityResponse mapToResponse(Activity savedActivity) {
         ActivityResponse activityResponse = new ActivityResponse();
         activityResponse.setId(savedActivity.getId());
         activityResponse.setUserId(savedActivity.getUserId());
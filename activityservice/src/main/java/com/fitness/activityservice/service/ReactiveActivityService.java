@@ -0,0 +1,262 @@
+package com.fitness.activityservice.service;
+
+import com.fitness.activityservice.dto.ActivityBatchItemResult;
+import com.fitness.activityservice.dto.ActivityBatchResponse;
+import com.fitness.activityservice.dto.ActivityRequest;
+import com.fitness.activityservice.dto.ActivityResponse;
+import com.fitness.activityservice.model.Activity;
+import com.fitness.activityservice.model.ActivityRollup;
+import com.fitness.activityservice.model.OutboxEvent;
+import com.fitness.activityservice.repository.ReactiveActivityRepository;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.ReactiveMongoTransactionManager;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.ReactiveBulkOperations;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.util.Pair;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The write path of the {@code reactive} profile. User validation, the activity, its outbox event and the rollup
+ * increments are one non-blocking pipeline on the reactive Mongo driver, with the same rules and results as
+ * {@link ActivityService}. Kafka delivery stays with {@link ActivityOutboxRelay}, so requests never wait on the
+ * broker.
+ */
+@Service
+@Profile("reactive")
+@Slf4j
+public class ReactiveActivityService {
+
+    private final ActivityService activityService;
+    private final UserValidationService userValidationService;
+    private final ReactiveActivityRepository reactiveActivityRepository;
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+    private final ActivityOutboxService activityOutboxService;
+    private final ActivityRollupService activityRollupService;
+    private final TransactionalOperator transactionalOperator;
+    private final int maxBatchSize;
+    private final int chunkSize;
+
+    public ReactiveActivityService(ActivityService activityService,
+                                   UserValidationService userValidationService,
+                                   ReactiveActivityRepository reactiveActivityRepository,
+                                   ReactiveMongoTemplate reactiveMongoTemplate,
+                                   ActivityOutboxService activityOutboxService,
+                                   ActivityRollupService activityRollupService,
+                                   ObjectProvider<ReactiveMongoTransactionManager> transactionManager,
+                                   @Value("${activity.batch.max-size:1000}") int maxBatchSize,
+                                   @Value("${activity.reactive.batch-chunk-size:200}") int chunkSize) {
+        this.activityService = activityService;
+        this.userValidationService = userValidationService;
+        this.reactiveActivityRepository = reactiveActivityRepository;
+        this.reactiveMongoTemplate = reactiveMongoTemplate;
+        this.activityOutboxService = activityOutboxService;
+        this.activityRollupService = activityRollupService;
+        ReactiveMongoTransactionManager reactiveTransactionManager = transactionManager.getIfAvailable();
+        this.transactionalOperator = reactiveTransactionManager != null
+                ? TransactionalOperator.create(reactiveTransactionManager) : null;
+        this.maxBatchSize = maxBatchSize;
+        this.chunkSize = chunkSize;
+    }
+
+    public Mono<ActivityResponse> trackActivity(ActivityRequest activityRequest) {
+        return userValidationService.validateUserReactive(activityRequest.getUserId())
+                .flatMap(isValidUser -> {
+                    if (!isValidUser) {
+                        return Mono.error(new RuntimeException("Invalid User: " + activityRequest.getUserId()));
+                    }
+                    List<String> metricViolations = ActivityService.validateMetrics(activityRequest);
+                    if (!metricViolations.isEmpty()) {
+                        return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                                "Invalid metrics: " + String.join("; ", metricViolations)));
+                    }
+                    Mono<Activity> writes = reactiveActivityRepository.save(activityService.mapToActivity(activityRequest))
+                            .flatMap(saved -> reactiveMongoTemplate.insert(activityOutboxService.toEvent(saved, LocalDateTime.now()))
+                                    .then(applyRollups(List.of(saved)))
+                                    .thenReturn(saved));
+                    return transactionalOperator == null ? writes : writes.as(transactionalOperator::transactional);
+                })
+                .map(activityService::mapToResponse);
+    }
+
+    /**
+     * Reactive {@link ActivityService#trackActivities}. At most {@code activity.batch.max-size} + 1 items are read
+     * from the body, so an oversized batch is rejected before anything is written. The distinct users of the batch
+     * are validated in one pass; the valid activities are then inserted in chunks of
+     * {@code activity.reactive.batch-chunk-size}, one chunk at a time, but all in the same transaction.
+     */
+    public Mono<ActivityBatchResponse> trackActivities(Flux<ActivityRequest> activityRequests) {
+        return activityRequests.take(maxBatchSize + 1L)
+                .collectList()
+                .flatMap(requests -> {
+                    if (requests.size() > maxBatchSize) {
+                        return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                                "Batch too large: more than " + maxBatchSize));
+                    }
+                    return userValidationService.validateUsersReactive(
+                                    requests.stream().map(ActivityRequest::getUserId).toList())
+                            .flatMap(validUsers -> trackValidated(requests, validUsers));
+                });
+    }
+
+    private Mono<ActivityBatchResponse> trackValidated(List<ActivityRequest> requests, Map<String, Boolean> validUsers) {
+        ActivityBatchItemResult[] results = new ActivityBatchItemResult[requests.size()];
+        List<Activity> activities = new ArrayList<>();
+        List<Integer> activityIndexes = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < requests.size(); i++) {
+            ActivityRequest activityRequest = requests.get(i);
+            if (!validUsers.getOrDefault(activityRequest.getUserId(), false)) {
+                results[i] = new ActivityBatchItemResult(i, ActivityBatchItemResult.Status.INVALID_USER, null,
+                        "Invalid User: " + activityRequest.getUserId());
+                continue;
+            }
+            List<String> metricViolations = ActivityService.validateMetrics(activityRequest);
+            if (!metricViolations.isEmpty()) {
+                results[i] = new ActivityBatchItemResult(i, ActivityBatchItemResult.Status.INVALID_METRICS, null,
+                        "Invalid metrics: " + String.join("; ", metricViolations));
+                continue;
+            }
+            Activity activity = activityService.mapToActivity(activityRequest);
+            activity.setId(new ObjectId().toHexString());
+            activity.setCreatedAt(now);
+            activity.setUpdatedAt(now);
+            activities.add(activity);
+            activityIndexes.add(i);
+        }
+
+        Mono<Map<Integer, String>> failedInserts = activities.isEmpty() ? Mono.just(Map.of()) : writeAll(activities, now);
+        return failedInserts.map(failed -> {
+            for (int i = 0; i < activities.size(); i++) {
+                int index = activityIndexes.get(i);
+                results[index] = failed.containsKey(i)
+                        ? new ActivityBatchItemResult(index, ActivityBatchItemResult.Status.FAILED, null, failed.get(i))
+                        : new ActivityBatchItemResult(index, ActivityBatchItemResult.Status.ACCEPTED,
+                                activityService.mapToResponse(activities.get(i)), null);
+            }
+            int accepted = activities.size() - failed.size();
+            return new ActivityBatchResponse(accepted, results.length - accepted, Arrays.asList(results));
+        });
+    }
+
+    /**
+     * Writes the activities chunk by chunk with their outbox events and rollups, all in one transaction as in
+     * {@link ActivityService#trackActivities}. Emits the errors of the failed inserts by position in
+     * {@code activities}. Inside the transaction a failed insert aborts it, so then every activity has failed.
+     */
+    private Mono<Map<Integer, String>> writeAll(List<Activity> activities, LocalDateTime now) {
+        Map<Integer, String> failedInserts = new HashMap<>();
+        Mono<Map<Integer, String>> writes = Flux.range(0, activities.size())
+                .buffer(chunkSize)
+                .concatMap(indexes -> writeChunk(activities, indexes, failedInserts, now))
+                .then(Mono.fromSupplier(() -> failedInserts));
+        if (transactionalOperator == null) {
+            return writes;
+        }
+        return writes.as(transactionalOperator::transactional)
+                .onErrorResume(error -> !failedInserts.isEmpty(), error -> {
+                    log.warn("Rolled back a batch of {} activities after {} failed inserts", activities.size(),
+                            failedInserts.size());
+                    Map<Integer, String> failed = new HashMap<>();
+                    for (int i = 0; i < activities.size(); i++) {
+                        failed.put(i, ActivityService.ROLLED_BACK);
+                    }
+                    failed.putAll(failedInserts);
+                    return Mono.just(failed);
+                });
+    }
+
+    private Mono<Void> writeChunk(List<Activity> activities, List<Integer> indexes, Map<Integer, String> failedInserts,
+                                  LocalDateTime now) {
+        List<Activity> chunk = indexes.stream().map(activities::get).toList();
+        return insertAll(chunk).flatMap(failed -> {
+            failed.forEach((i, error) -> failedInserts.put(indexes.get(i), error.getMessage()));
+            if (!failed.isEmpty() && transactionalOperator != null) {
+                return Mono.error(new IllegalStateException(failed.size() + " activities failed to insert"));
+            }
+            List<Activity> savedActivities = new ArrayList<>(chunk.size());
+            for (int i = 0; i < chunk.size(); i++) {
+                if (!failed.containsKey(i)) {
+                    savedActivities.add(chunk.get(i));
+                }
+            }
+            if (savedActivities.isEmpty()) {
+                return Mono.empty();
+            }
+            List<OutboxEvent> events = savedActivities.stream()
+                    .map(activity -> activityOutboxService.toEvent(activity, now))
+                    .toList();
+            return reactiveMongoTemplate.insertAll(events)
+                    .then(applyRollups(savedActivities));
+        });
+    }
+
+    /**
+     * Unordered bulk insert. Emits the write errors by position in {@code activities}; empty when all went in.
+     */
+    private Mono<Map<Integer, BulkWriteError>> insertAll(List<Activity> activities) {
+        return reactiveMongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Activity.class)
+                .insert(activities)
+                .execute()
+                .map(result -> Map.<Integer, BulkWriteError>of())
+                .onErrorResume(error -> writeErrors(error) != null, error -> {
+                    Map<Integer, BulkWriteError> failed = new HashMap<>();
+                    writeErrors(error).forEach(writeError -> failed.put(writeError.getIndex(), writeError));
+                    return Mono.just(failed);
+                });
+    }
+
+    private static List<BulkWriteError> writeErrors(Throwable error) {
+        Set<Throwable> seen = new HashSet<>();
+        for (Throwable cause = error; cause != null && seen.add(cause); cause = cause.getCause()) {
+            if (cause instanceof BulkOperationException bulkOperationException) {
+                return bulkOperationException.getErrors();
+            }
+            if (cause instanceof MongoBulkWriteException mongoBulkWriteException) {
+                return mongoBulkWriteException.getWriteErrors();
+            }
+        }
+        return null;
+    }
+
+    private Mono<Void> applyRollups(List<Activity> activities) {
+        List<Pair<Query, Update>> increments = activityRollupService.increments(activities);
+        if (increments.isEmpty()) {
+            return Mono.empty();
+        }
+        ReactiveBulkOperations bulkOperations = reactiveMongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED,
+                ActivityRollup.class);
+        increments.forEach(increment -> bulkOperations.upsert(increment.getFirst(), increment.getSecond()));
+        // inside a transaction the failure aborts it, so it has to fail the write as in ActivityRollupService.apply
+        return bulkOperations.execute()
+                .onErrorResume(e -> transactionalOperator == null && e instanceof DataAccessException, e -> {
+                    activityRollupService.failed(activities, e);
+                    return Mono.empty();
+                })
+                .then();
+    }
+}
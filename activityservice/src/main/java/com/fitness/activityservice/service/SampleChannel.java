@@ -0,0 +1,69 @@
+package com.fitness.activityservice.service;
+
+import com.fitness.activityservice.dto.ActivitySample;
+
+/**
+ * The sensor channels of an {@link ActivitySample} and the fixed-point scale each is stored with: whole beats
+ * and steps, 1e-7 degrees (about a centimetre) for positions and decimetres for altitude.
+ */
+enum SampleChannel {
+    HEART_RATE("heartRate", 1),
+    CADENCE("cadence", 1),
+    LATITUDE("latitude", 10_000_000),
+    LONGITUDE("longitude", 10_000_000),
+    ALTITUDE("altitude", 10);
+
+    private final String key;
+    private final double scale;
+
+    SampleChannel(String key, double scale) {
+        this.key = key;
+        this.scale = scale;
+    }
+
+    String key() {
+        return key;
+    }
+
+    long toStored(double value) {
+        return Math.round(value * scale);
+    }
+
+    double fromStored(long value) {
+        return value / scale;
+    }
+
+    Double read(ActivitySample sample) {
+        return switch (this) {
+            case HEART_RATE -> sample.getHeartRate() == null ? null : sample.getHeartRate().doubleValue();
+            case CADENCE -> sample.getCadence() == null ? null : sample.getCadence().doubleValue();
+            case LATITUDE -> sample.getLatitude();
+            case LONGITUDE -> sample.getLongitude();
+            case ALTITUDE -> sample.getAltitude();
+        };
+    }
+
+    void write(ActivitySample sample, double value) {
+        switch (this) {
+            case HEART_RATE -> sample.setHeartRate((int) Math.round(value));
+            case CADENCE -> sample.setCadence((int) Math.round(value));
+            case LATITUDE -> sample.setLatitude(value);
+            case LONGITUDE -> sample.setLongitude(value);
+            case ALTITUDE -> sample.setAltitude(value);
+        }
+    }
+
+    /**
+     * Returns why the value is not plausible for this channel, or null if it is.
+     */
+    String check(double value) {
+        boolean valid = switch (this) {
+            case HEART_RATE -> value >= 20 && value <= 300;
+            case CADENCE -> value >= 0 && value <= 400;
+            case LATITUDE -> value >= -90 && value <= 90;
+            case LONGITUDE -> value >= -180 && value <= 180;
+            case ALTITUDE -> value >= -500 && value <= 10_000;
+        };
+        return valid ? null : key + " out of range: " + value;
+    }
+}
@@ -1,30 +1,203 @@
 package com.fitness.activityservice.service;
 
-import lombok.RequiredArgsConstructor;
+import com.fitness.common.resilience.ResilientCalls;
+import com.fitness.common.validation.UserValidationBatcher;
+import com.github.benmanes.caffeine.cache.AsyncCacheLoader;
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Validates user ids against userservice. Lookups are cached locally: positive answers live for
+ * {@code user.validation.cache.positive-ttl}, negative answers only for the much shorter
+ * {@code user.validation.cache.negative-ttl}, which bounds how long a newly registered user is still refused;
+ * there is no explicit invalidation. Concurrent misses for the same user share one remote call,
+ * and failed calls are never cached. Remote calls go through the {@code user-service} resilience instances and,
+ * with {@code user.validation.hedge.enabled}, are hedged after {@code user.validation.hedge.delay}. Bulk lookups
+ * use userservice's bulk validate endpoint, and with {@code user.validation.batch.enabled} concurrent single
+ * lookups are micro-batched into it as well.
+ */
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class UserValidationService {
 
+    static final String USER_SERVICE = "user-service";
+    private static final ParameterizedTypeReference<Map<String, Boolean>> VALIDATIONS = new ParameterizedTypeReference<>() {
+    };
+
     private final WebClient userServiceWebClient;
+    private final ResilientCalls resilientCalls;
+    private final Duration hedgeDelay;
+    private final int batchMaxSize;
+    private final UserValidationBatcher batcher;
+    private final AsyncLoadingCache<String, Boolean> validationCache;
+
+    public UserValidationService(WebClient userServiceWebClient,
+                                 ResilientCalls resilientCalls,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${user.validation.hedge.enabled:false}") boolean hedgeEnabled,
+                                 @Value("${user.validation.hedge.delay:50ms}") Duration hedgeDelay,
+                                 @Value("${user.validation.batch.enabled:false}") boolean batchEnabled,
+                                 @Value("${user.validation.batch.window:5ms}") Duration batchWindow,
+                                 @Value("${user.validation.batch.max-size:100}") int batchMaxSize,
+                                 @Value("${user.validation.cache.max-size:10000}") long maxSize,
+                                 @Value("${user.validation.cache.positive-ttl:10m}") Duration positiveTtl,
+                                 @Value("${user.validation.cache.negative-ttl:30s}") Duration negativeTtl) {
+        this.userServiceWebClient = userServiceWebClient;
+        this.resilientCalls = resilientCalls;
+        this.hedgeDelay = hedgeEnabled ? hedgeDelay : null;
+        this.batchMaxSize = batchMaxSize;
+        this.batcher = batchEnabled ? new UserValidationBatcher(this::fetchValidations, batchMaxSize, batchWindow) : null;
+        this.validationCache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new ValidationExpiry(positiveTtl, negativeTtl))
+                .recordStats()
+                .buildAsync(new ValidationLoader());
+        CaffeineCacheMetrics.monitor(meterRegistry, validationCache, "user-validation");
+    }
 
     public boolean validateUser(String userId) {
-        log.info("Calling user service for {}", userId);
         try {
-            return userServiceWebClient.get()
-                    .uri("/api/users/{userId}/validate", userId)
-                    .retrieve()
-                    .bodyToMono(Boolean.class)
-                    .block();
+            return validationCache.get(userId).join();
         } catch (Exception e) {
-            e.printStackTrace();
+            log.error("User validation failed for {}", userId, e);
         }
         return false;
     }
 
+    /**
+     * Non-blocking {@link #validateUser}: completes with {@code false} when the lookup fails.
+     */
+    public Mono<Boolean> validateUserReactive(String userId) {
+        return Mono.fromFuture(() -> validationCache.get(userId))
+                .onErrorResume(e -> {
+                    log.error("User validation failed for {}", userId, e);
+                    return Mono.just(false);
+                });
+    }
+
+    /**
+     * Validates all distinct user ids in one pass: cached answers are returned as-is and the misses are
+     * looked up with bulk calls. Ids whose lookup fails are reported as invalid.
+     */
+    public Map<String, Boolean> validateUsers(Collection<String> userIds) {
+        Set<String> distinctIds = new HashSet<>(userIds);
+        distinctIds.remove(null);
+        try {
+            return validationCache.getAll(distinctIds).join();
+        } catch (Exception e) {
+            log.error("Bulk user validation failed, falling back to per-user lookups", e);
+        }
+        Map<String, Boolean> result = new HashMap<>();
+        distinctIds.forEach(userId -> result.put(userId, validateUser(userId)));
+        return result;
+    }
+
+    /**
+     * Non-blocking {@link #validateUsers}. If the bulk lookup fails every id is looked up on its own.
+     */
+    public Mono<Map<String, Boolean>> validateUsersReactive(Collection<String> userIds) {
+        Set<String> distinctIds = new HashSet<>(userIds);
+        distinctIds.remove(null);
+        return Mono.fromFuture(() -> validationCache.getAll(distinctIds))
+                .onErrorResume(e -> {
+                    log.error("Bulk user validation failed, falling back to per-user lookups", e);
+                    return Flux.fromIterable(distinctIds)
+                            .flatMap(userId -> validateUserReactive(userId).map(valid -> Map.entry(userId, valid)))
+                            .collectMap(Map.Entry::getKey, Map.Entry::getValue);
+                });
+    }
+
+    private Mono<Boolean> fetchValidation(String userId) {
+        if (batcher != null) {
+            return batcher.validate(userId);
+        }
+        log.info("Calling user service for {}", userId);
+        Mono<Boolean> call = userServiceWebClient.get()
+                .uri("/api/users/{userId}/validate", userId)
+                .retrieve()
+                .bodyToMono(Boolean.class)
+                .defaultIfEmpty(false);
+        return guard(call);
+    }
+
+    /**
+     * Looks the users up with userservice's bulk validate endpoint, {@code user.validation.batch.max-size} ids
+     * per call.
+     */
+    private Mono<Map<String, Boolean>> fetchValidations(Set<? extends String> userIds) {
+        return Flux.fromIterable(userIds)
+                .buffer(batchMaxSize)
+                .flatMap(batch -> {
+                    log.info("Calling user service for {} users", batch.size());
+                    return guard(userServiceWebClient.post()
+                            .uri("/api/users/validate")
+                            .bodyValue(batch)
+                            .retrieve()
+                            .bodyToMono(VALIDATIONS));
+                })
+                .reduceWith(HashMap::new, (result, validations) -> {
+                    result.putAll(validations);
+                    return result;
+                });
+    }
+
+    private <T> Mono<T> guard(Mono<T> call) {
+        return hedgeDelay == null
+                ? resilientCalls.idempotent(USER_SERVICE, call)
+                : resilientCalls.hedged(USER_SERVICE, call, hedgeDelay);
+    }
+
+    /**
+     * Cache misses of {@link #validateUsers} are loaded with bulk calls; single misses go through the micro-batcher
+     * when {@code user.validation.batch.enabled} is set.
+     */
+    private class ValidationLoader implements AsyncCacheLoader<String, Boolean> {
 
+        @Override
+        public CompletableFuture<Boolean> asyncLoad(String userId, Executor executor) {
+            return fetchValidation(userId).toFuture();
+        }
+
+        @Override
+        public CompletableFuture<Map<String, Boolean>> asyncLoadAll(Set<? extends String> userIds, Executor executor) {
+            return fetchValidations(userIds).toFuture();
+        }
+    }
+
+    private record ValidationExpiry(Duration positiveTtl, Duration negativeTtl) implements Expiry<String, Boolean> {
+
+        @Override
+        public long expireAfterCreate(String userId, Boolean valid, long currentTime) {
+            return (Boolean.TRUE.equals(valid) ? positiveTtl : negativeTtl).toNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(String userId, Boolean valid, long currentTime, long currentDuration) {
+            return expireAfterCreate(userId, valid, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String userId, Boolean valid, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
 }
@@ -0,0 +1,92 @@
+package com.fitness.activityservice.model;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fitness.activityservice.config.MongoConfig;
+import com.fitness.common.model.ActivityMetrics;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.SimpleMongoClientDatabaseFactory;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ActivityMetricsTests {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void readsAndWritesTheFlatJsonClientsSend() throws Exception {
+        String json = "{\"heartRateAvg\":142,\"distance\":5.2,\"pace\":\"5.45\",\"route\":{\"name\":\"park\"},\"indoor\":false}";
+
+        ActivityMetrics metrics = objectMapper.readValue(json, ActivityMetrics.class);
+
+        assertThat(metrics.has(ActivityMetrics.Metric.HEART_RATE_AVG)).isTrue();
+        assertThat(metrics.get(ActivityMetrics.Metric.DISTANCE)).isEqualTo(5.2);
+        assertThat(metrics.get(ActivityMetrics.Metric.PACE)).isEqualTo(5.45);
+        assertThat(metrics.has(ActivityMetrics.Metric.CADENCE)).isFalse();
+        assertThat(metrics.getOther()).containsOnlyKeys("route", "indoor");
+        assertThat(objectMapper.readValue(objectMapper.writeValueAsString(metrics),
+                new TypeReference<Map<String, Object>>() {}))
+                .isEqualTo(Map.of("heartRateAvg", 142, "distance", 5.2, "pace", 5.45,
+                        "route", Map.of("name", "park"), "indoor", false));
+        assertThat(objectMapper.readValue(objectMapper.writeValueAsString(metrics), ActivityMetrics.class)).isEqualTo(metrics);
+    }
+
+    @Test
+    void reportsNonNumericAndOutOfRangeKnownMetrics() {
+        ActivityMetrics metrics = ActivityMetrics.of(Map.of("heartRateAvg", 420, "cadence", "fast", "distance", 12.5));
+
+        assertThat(metrics.validate()).containsExactly(
+                "heartRateAvg must be between 20 and 300 but was 420",
+                "cadence must be a number but was fast");
+        assertThat(ActivityMetrics.of(Map.of("heartRateMax", 171.6)).get("heartRateMax")).isEqualTo(172);
+    }
+
+    @Test
+    void storesMetricsAsTheExistingFlatSubDocument() {
+        MongoServer server = new MongoServer(new MemoryBackend());
+        try (MongoClient client = MongoClients.create(server.bindAndGetConnectionString())) {
+            MongoTemplate mongoTemplate = mongoTemplate(client);
+            mongoTemplate.getCollection("activities").insertOne(new Document("_id", "legacy")
+                    .append("metrics", new Document("heartRateAvg", 150).append("elevation", 120.5).append("device", "watch")));
+            Activity activity = Activity.builder().id("typed").userId("user-1")
+                    .additionalMetrics(new ActivityMetrics().set(ActivityMetrics.Metric.CADENCE, 88).put("device", "phone"))
+                    .build();
+            mongoTemplate.save(activity);
+
+            Activity legacy = mongoTemplate.findById("legacy", Activity.class);
+            assertThat(legacy.getAdditionalMetrics().get(ActivityMetrics.Metric.HEART_RATE_AVG)).isEqualTo(150);
+            assertThat(legacy.getAdditionalMetrics().get(ActivityMetrics.Metric.ELEVATION)).isEqualTo(120.5);
+            assertThat(legacy.getAdditionalMetrics().get("device")).isEqualTo("watch");
+            assertThat(mongoTemplate.findById("typed", Activity.class).getAdditionalMetrics()).isEqualTo(activity.getAdditionalMetrics());
+            assertThat(mongoTemplate.getCollection("activities").find(new Document("_id", "typed")).first().get("metrics", Document.class))
+                    .isEqualTo(new Document("cadence", 88).append("device", "phone"));
+        } finally {
+            server.shutdown();
+        }
+    }
+
+    private static MongoTemplate mongoTemplate(MongoClient client) {
+        MongoCustomConversions conversions = MongoConfig.mongoCustomConversions();
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        mappingContext.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+        mappingContext.setInitialEntitySet(Set.of(Activity.class));
+        mappingContext.afterPropertiesSet();
+        MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+        converter.setCustomConversions(conversions);
+        converter.afterPropertiesSet();
+        return new MongoTemplate(new SimpleMongoClientDatabaseFactory(client, "metrics-test"), converter);
+    }
+}
@@ -0,0 +1,178 @@
+package com.fitness.activityservice.service;
+
+import com.fitness.activityservice.config.MongoConfig;
+import com.fitness.activityservice.dto.ActivityHistoryPage;
+import com.fitness.activityservice.dto.ActivityResponse;
+import com.fitness.activityservice.model.Activity;
+import com.fitness.activityservice.model.ActivityType;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.client.model.IndexOptions;
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.QueryMapper;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ActivityHistoryServiceTests {
+
+    private static final LocalDateTime START = LocalDateTime.of(2025, 1, 1, 7, 0);
+
+    private MongoServer server;
+    private MongoClient client;
+    private MongoTemplate mongoTemplate;
+    private ActivityHistoryService activityHistoryService;
+
+    @BeforeEach
+    void setUp() {
+        server = new MongoServer(new MemoryBackend());
+        client = MongoClients.create(server.bindAndGetConnectionString());
+        mongoTemplate = new MongoTemplate(client, "activities-test");
+        new MongoConfig(mongoTemplate).initIndexes();
+        activityHistoryService = new ActivityHistoryService(mongoTemplate, new ActivityService());
+        ReflectionTestUtils.setField(activityHistoryService, "defaultPageSize", 20);
+        ReflectionTestUtils.setField(activityHistoryService, "maxPageSize", 100);
+
+        List<Activity> activities = new ArrayList<>();
+        for (int day = 0; day < 10; day++) {
+            activities.add(activity("user-1", day % 2 == 0 ? ActivityType.RUNNING : ActivityType.CYCLING, START.plusDays(day)));
+        }
+        // same start time as day 4, so pages have to break the tie on id
+        activities.add(activity("user-1", ActivityType.RUNNING, START.plusDays(4)));
+        activities.add(activity("user-2", ActivityType.RUNNING, START.plusDays(3)));
+        mongoTemplate.insertAll(activities);
+    }
+
+    @AfterEach
+    void tearDown() {
+        client.close();
+        server.shutdown();
+    }
+
+    @Test
+    void createsHistoryIndexesAtStartup() {
+        List<Document> indexes = mongoTemplate.getCollection("activities").listIndexes().into(new ArrayList<>());
+
+        assertThat(indexes).extracting(index -> index.getString("name")).contains("user_start", "user_type_start");
+        assertThat(keyOf(indexes, "user_start")).containsExactly("userId", "startTime", "_id");
+        assertThat(keyOf(indexes, "user_type_start")).containsExactly("userId", "activityType", "startTime", "_id");
+    }
+
+    @Test
+    void outboxIndexesStayOffTheEmbeddedActivity() {
+        mongoTemplate.getCollection("activity_outbox").createIndex(new Document("payload.userId", 1)
+                .append("payload.startTime", 1), new IndexOptions().name("payload_user_start"));
+
+        new MongoConfig(mongoTemplate).initIndexes();
+
+        List<Document> indexes = mongoTemplate.getCollection("activity_outbox").listIndexes().into(new ArrayList<>());
+        assertThat(indexes).extracting(index -> index.getString("name")).containsExactlyInAnyOrder("_id_", "due_events");
+    }
+
+    @Test
+    void historyQueriesArePrefixesOfAnIndex() {
+        // equality fields first, then the startTime range and sort, then the _id tie-breaker: a plan that
+        // walks the index bounds without a collection scan or in-memory sort
+        Query byUser = ActivityHistoryService.historyQuery("user-1", START, START.plusDays(5), null,
+                new ActivityHistoryCursor(START.plusDays(3), "000000000000000000000000"), Sort.Direction.DESC);
+        Query byType = ActivityHistoryService.historyQuery("user-1", null, null, ActivityType.RUNNING, null, Sort.Direction.ASC);
+
+        assertThat(mappedFilter(byUser).keySet()).containsExactlyInAnyOrder("userId", "startTime", "$or");
+        assertThat(mappedSort(byUser).keySet()).containsExactly("startTime", "_id");
+        assertThat(mappedFilter(byType).keySet()).containsExactlyInAnyOrder("userId", "activityType");
+        assertThat(mappedSort(byType).keySet()).containsExactly("startTime", "_id");
+    }
+
+    @Test
+    void pagesThroughHistoryNewestFirst() {
+        List<ActivityResponse> seen = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            ActivityHistoryPage page = activityHistoryService.getHistory("user-1", null, null, null, cursor, 3, Sort.Direction.DESC);
+            seen.addAll(page.getItems());
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertThat(pages).isEqualTo(4);
+        assertThat(seen).hasSize(11);
+        assertThat(seen).extracting(ActivityResponse::getId).doesNotHaveDuplicates();
+        assertThat(seen).extracting(ActivityResponse::getStartTime).isSortedAccordingTo((a, b) -> b.compareTo(a));
+        assertThat(seen).extracting(ActivityResponse::getUserId).containsOnly("user-1");
+    }
+
+    @Test
+    void pagesIncludeActivitiesWithoutStartTimeUnlessARangeIsGiven() {
+        mongoTemplate.insertAll(List.of(activity("user-1", ActivityType.YOGA, null),
+                activity("user-1", ActivityType.YOGA, null)));
+
+        for (Sort.Direction direction : Sort.Direction.values()) {
+            List<ActivityResponse> seen = new ArrayList<>();
+            String cursor = null;
+            do {
+                ActivityHistoryPage page = activityHistoryService.getHistory("user-1", null, null, null, cursor, 3, direction);
+                seen.addAll(page.getItems());
+                cursor = page.getNextCursor();
+            } while (cursor != null);
+
+            assertThat(seen).as(direction.name()).hasSize(13);
+            assertThat(seen).as(direction.name()).extracting(ActivityResponse::getId).doesNotHaveDuplicates();
+        }
+        assertThat(activityHistoryService.getHistory("user-1", START, null, null, null, 100, Sort.Direction.ASC)
+                .getItems()).hasSize(11);
+    }
+
+    @Test
+    void filtersByTypeAndTimeRange() {
+        ActivityHistoryPage page = activityHistoryService.getHistory("user-1", START.plusDays(2), START.plusDays(7),
+                ActivityType.RUNNING, null, null, Sort.Direction.ASC);
+
+        assertThat(page.getItems()).extracting(ActivityResponse::getStartTime)
+                .containsExactly(START.plusDays(2), START.plusDays(4), START.plusDays(4), START.plusDays(6));
+        assertThat(page.getNextCursor()).isNull();
+    }
+
+    private Document mappedFilter(Query query) {
+        return new QueryMapper(mongoTemplate.getConverter()).getMappedObject(query.getQueryObject(), activityEntity());
+    }
+
+    private Document mappedSort(Query query) {
+        return new QueryMapper(mongoTemplate.getConverter()).getMappedSort(query.getSortObject(), activityEntity());
+    }
+
+    private MongoPersistentEntity<?> activityEntity() {
+        return mongoTemplate.getConverter().getMappingContext().getRequiredPersistentEntity(Activity.class);
+    }
+
+    private static List<String> keyOf(List<Document> indexes, String name) {
+        return indexes.stream()
+                .filter(index -> name.equals(index.getString("name")))
+                .findFirst()
+                .map(index -> List.copyOf(index.get("key", Document.class).keySet()))
+                .orElseThrow();
+    }
+
+    private static Activity activity(String userId, ActivityType type, LocalDateTime startTime) {
+        return Activity.builder()
+                .userId(userId)
+                .activityType(type)
+                .duration(30)
+                .caloriesBurned(300)
+                .startTime(startTime)
+                .build();
+    }
+}
@@ -0,0 +1,194 @@
+package com.fitness.activityservice.service;
+
+import com.fitness.activityservice.model.Activity;
+import com.fitness.activityservice.model.ActivityType;
+import com.fitness.activityservice.model.OutboxCheckpoint;
+import com.fitness.activityservice.model.OutboxEvent;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.KafkaException;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.data.mongodb.MongoTransactionManager;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ActivityOutboxRelayTests {
+
+    private static final String TOPIC = "activity-events";
+
+    private MongoServer server;
+    private MongoClient client;
+    private MongoTemplate mongoTemplate;
+    private ActivityOutboxService outboxService;
+    private StubKafkaTemplate kafkaTemplate;
+    private ActivityOutboxRelay relay;
+
+    @BeforeEach
+    void setUp() {
+        server = new MongoServer(new MemoryBackend());
+        client = MongoClients.create(server.bindAndGetConnectionString());
+        mongoTemplate = new MongoTemplate(client, "outbox-test");
+        MockEnvironment environment = new MockEnvironment();
+        environment.setActiveProfiles(ActivityOutboxService.DEV_PROFILE);
+        outboxService = new ActivityOutboxService(null,
+                new StaticListableBeanFactory().getBeanProvider(MongoTransactionManager.class), environment, TOPIC);
+        kafkaTemplate = new StubKafkaTemplate();
+        relay = relay();
+    }
+
+    @AfterEach
+    void tearDown() {
+        client.close();
+        server.shutdown();
+    }
+
+    @Test
+    void removesAcknowledgedEventsAndAdvancesTheCheckpoint() {
+        OutboxEvent first = enqueue("user-1");
+        OutboxEvent second = enqueue("user-2");
+        OutboxEvent last = enqueue("user-1");
+
+        relay.relay();
+
+        assertThat(kafkaTemplate.sent).extracting(ProducerRecord::topic).containsOnly(TOPIC);
+        assertThat(kafkaTemplate.sent).extracting(record -> record.value().getId())
+                .containsExactly(first.getAggregateId(), second.getAggregateId(), last.getAggregateId());
+        assertThat(mongoTemplate.findAll(OutboxEvent.class)).isEmpty();
+        OutboxCheckpoint checkpoint = mongoTemplate.findAll(OutboxCheckpoint.class).get(0);
+        assertThat(checkpoint.getLastEventId()).isEqualTo(last.getId());
+        assertThat(checkpoint.getPublishedCount()).isEqualTo(3);
+    }
+
+    @Test
+    void reschedulesAFailedSendAndHoldsTheLaterEventsOfItsKeyBehindIt() {
+        kafkaTemplate.failingKeys.add("user-1");
+        OutboxEvent first = enqueue("user-1");
+        OutboxEvent second = enqueue("user-1");
+        OutboxEvent other = enqueue("user-2");
+
+        relay.relay();
+
+        // both user-1 events failed and retry together, user-2 went out
+        assertThat(mongoTemplate.findAll(OutboxEvent.class)).extracting(OutboxEvent::getId)
+                .containsExactlyInAnyOrder(first.getId(), second.getId());
+        OutboxEvent retried = mongoTemplate.findById(first.getId(), OutboxEvent.class);
+        assertThat(retried.getAttempts()).isEqualTo(1);
+        assertThat(retried.getLastError()).contains("broker down");
+        assertThat(retried.getNextAttemptAt()).isAfter(LocalDateTime.now());
+        assertThat(mongoTemplate.findById(second.getId(), OutboxEvent.class).getNextAttemptAt())
+                .isEqualTo(retried.getNextAttemptAt());
+        assertThat(mongoTemplate.findById(other.getId(), OutboxEvent.class)).isNull();
+
+        // a new event of the key is due but waits behind the retry
+        kafkaTemplate.failingKeys.clear();
+        kafkaTemplate.sent.clear();
+        OutboxEvent later = enqueue("user-1");
+        relay.relay();
+
+        assertThat(kafkaTemplate.sent).isEmpty();
+        assertThat(mongoTemplate.findById(later.getId(), OutboxEvent.class).getNextAttemptAt())
+                .isEqualTo(retried.getNextAttemptAt());
+
+        // once the retry is due the events go out one per run, in the order they were written
+        mongoTemplate.updateMulti(new Query(), new Update().set("nextAttemptAt", LocalDateTime.now().minusSeconds(1)),
+                OutboxEvent.class);
+        relay.relay();
+        relay.relay();
+        relay.relay();
+
+        assertThat(kafkaTemplate.sent).extracting(record -> record.value().getId())
+                .containsExactly(first.getAggregateId(), second.getAggregateId(), later.getAggregateId());
+        assertThat(mongoTemplate.findAll(OutboxEvent.class)).isEmpty();
+    }
+
+    @Test
+    void aSecondInstanceDoesNotRelayWhileTheFirstHoldsTheLease() {
+        relay.relay();
+        ActivityOutboxRelay second = relay();
+        enqueue("user-1");
+
+        second.relay();
+
+        assertThat(kafkaTemplate.sent).isEmpty();
+        assertThat(mongoTemplate.findAll(OutboxEvent.class)).hasSize(1);
+
+        // the first instance keeps relaying, the second takes over once the lease has run out
+        relay.relay();
+        assertThat(kafkaTemplate.sent).hasSize(1);
+        enqueue("user-1");
+        mongoTemplate.updateFirst(new Query(), new Update().set("leaseUntil", LocalDateTime.now().minusSeconds(1)),
+                OutboxCheckpoint.class);
+        second.relay();
+        assertThat(kafkaTemplate.sent).hasSize(2);
+        assertThat(mongoTemplate.findAll(OutboxEvent.class)).isEmpty();
+    }
+
+    private ActivityOutboxRelay relay() {
+        return new ActivityOutboxRelay(mongoTemplate, kafkaTemplate, new SimpleMeterRegistry(), 100, 10,
+                Duration.ofSeconds(1), Duration.ofSeconds(10), Duration.ofMinutes(1), Duration.ofSeconds(30));
+    }
+
+    /**
+     * Writes an event as the request path does; the generated ids increase with every call.
+     */
+    private OutboxEvent enqueue(String userId) {
+        Activity activity = Activity.builder()
+                .id(new ObjectId().toHexString())
+                .userId(userId)
+                .activityType(ActivityType.RUNNING)
+                .duration(30)
+                .caloriesBurned(300)
+                .build();
+        return mongoTemplate.insert(outboxService.toEvent(activity, LocalDateTime.now()));
+    }
+
+    /**
+     * Acknowledges every record at once, except those of the failing keys.
+     */
+    private static final class StubKafkaTemplate extends KafkaTemplate<String, Activity> {
+
+        private final List<ProducerRecord<String, Activity>> sent = new CopyOnWriteArrayList<>();
+        private final Set<String> failingKeys = ConcurrentHashMap.newKeySet();
+
+        StubKafkaTemplate() {
+            super(new DefaultKafkaProducerFactory<>(Map.of()));
+        }
+
+        @Override
+        public CompletableFuture<SendResult<String, Activity>> send(ProducerRecord<String, Activity> record) {
+            if (failingKeys.contains(record.key())) {
+                return CompletableFuture.failedFuture(new KafkaException("broker down"));
+            }
+            sent.add(record);
+            return CompletableFuture.completedFuture(new SendResult<>(record, null));
+        }
+
+        @Override
+        public void flush() {
+        }
+    }
+}
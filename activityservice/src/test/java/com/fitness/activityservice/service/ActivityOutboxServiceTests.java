@@ -0,0 +1,28 @@
+package com.fitness.activityservice.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.data.mongodb.MongoTransactionManager;
+import org.springframework.mock.env.MockEnvironment;
+
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ActivityOutboxServiceTests {
+
+    private final StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+
+    @Test
+    void refusesToStartWithoutTransactionsOutsideTheDevProfile() {
+        assertThatThrownBy(() -> new ActivityOutboxService(null,
+                beanFactory.getBeanProvider(MongoTransactionManager.class), new MockEnvironment(), "activity-events"))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("activity.outbox.transactional");
+
+        MockEnvironment dev = new MockEnvironment();
+        dev.setActiveProfiles(ActivityOutboxService.DEV_PROFILE);
+        assertThatCode(() -> new ActivityOutboxService(null,
+                beanFactory.getBeanProvider(MongoTransactionManager.class), dev, "activity-events"))
+                .doesNotThrowAnyException();
+    }
+}
@@ -0,0 +1,169 @@
+package com.fitness.activityservice.service;
+
+import com.fitness.activityservice.config.MongoConfig;
+import com.fitness.activityservice.dto.ActivityStatsResponse;
+import com.fitness.activityservice.model.Activity;
+import com.fitness.activityservice.model.ActivityRollup;
+import com.fitness.activityservice.model.ActivityType;
+import com.fitness.activityservice.model.RollupPeriod;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.client.model.IndexOptions;
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ActivityRollupServiceTests {
+
+    private static final LocalDate TODAY = LocalDate.now();
+
+    private MongoServer server;
+    private MongoClient client;
+    private MongoTemplate mongoTemplate;
+    private SimpleMeterRegistry meterRegistry;
+    private ActivityRollupService activityRollupService;
+
+    @BeforeEach
+    void setUp() {
+        server = new MongoServer(new MemoryBackend());
+        client = MongoClients.create(server.bindAndGetConnectionString());
+        mongoTemplate = new MongoTemplate(client, "rollups-test");
+        new MongoConfig(mongoTemplate).initIndexes();
+        meterRegistry = new SimpleMeterRegistry();
+        activityRollupService = new ActivityRollupService(mongoTemplate, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        client.close();
+        server.shutdown();
+    }
+
+    @Test
+    void incrementsDailyWeeklyAndMonthlyRollups() {
+        track(activity(ActivityType.RUNNING, TODAY, 30, 300));
+        track(activity(ActivityType.RUNNING, TODAY, 20, 200), activity(ActivityType.CYCLING, TODAY, 60, 500));
+
+        ActivityStatsResponse daily = activityRollupService.getStats("user-1", RollupPeriod.DAY, TODAY, TODAY);
+        assertThat(daily.getBuckets()).hasSize(2);
+        assertThat(daily.getTotalsByType().get(ActivityType.RUNNING))
+                .isEqualTo(new ActivityStatsResponse.Bucket(null, ActivityType.RUNNING, 2, 50, 500));
+        assertThat(daily.getTotalsByType().get(ActivityType.CYCLING).getTotalCalories()).isEqualTo(500);
+
+        ActivityStatsResponse monthly = activityRollupService.getStats("user-1", RollupPeriod.MONTH, null, null);
+        assertThat(monthly.getBuckets()).extracting(ActivityStatsResponse.Bucket::getPeriodStart)
+                .containsOnly(TODAY.withDayOfMonth(1));
+    }
+
+    @Test
+    void computesStreaksFromDailyRollups() {
+        track(activity(ActivityType.RUNNING, TODAY.minusDays(10), 30, 300),
+                activity(ActivityType.RUNNING, TODAY.minusDays(9), 30, 300),
+                activity(ActivityType.RUNNING, TODAY.minusDays(8), 30, 300),
+                activity(ActivityType.YOGA, TODAY.minusDays(1), 30, 100),
+                activity(ActivityType.RUNNING, TODAY, 30, 300));
+
+        ActivityStatsResponse stats = activityRollupService.getStats("user-1", RollupPeriod.WEEK, null, null);
+
+        assertThat(stats.getCurrentStreakDays()).isEqualTo(2);
+        assertThat(stats.getLongestStreakDays()).isEqualTo(3);
+    }
+
+    @Test
+    void rebuildMatchesIncrementalRollupsAndRepairsDrift() {
+        List<Activity> activities = List.of(
+                activity(ActivityType.RUNNING, TODAY.minusDays(40), 30, 300),
+                activity(ActivityType.RUNNING, TODAY, 20, 200),
+                activity(ActivityType.SWIMMING, TODAY, 45, 400));
+        mongoTemplate.insertAll(activities);
+        activityRollupService.apply(activities);
+        List<ActivityRollup> incremental = rollups();
+
+        // a retried request counted twice
+        activityRollupService.apply(List.of(activities.get(1)));
+        assertThat(rollups()).isNotEqualTo(incremental);
+
+        assertThat(activityRollupService.rebuildAll()).isEqualTo(incremental.size());
+        assertThat(rollups()).usingRecursiveFieldByFieldElementComparatorIgnoringFields("updatedAt")
+                .containsExactlyElementsOf(incremental);
+    }
+
+    @Test
+    void countsAFailedIncrementAndRebuildsTheUserLater() {
+        List<Activity> activities = List.of(activity(ActivityType.RUNNING, TODAY, 30, 300));
+        // a user may have only one rollup, so the second upsert of the batch fails
+        mongoTemplate.getCollection("activity_rollups").createIndex(new Document("userId", 1),
+                new IndexOptions().name("test_unique_user").unique(true));
+        track(activities.toArray(Activity[]::new));
+
+        assertThat(meterRegistry.counter("activity.rollups.failed").count()).isEqualTo(1);
+        assertThat(rollups()).hasSizeLessThan(3);
+
+        // still failing, the user stays scheduled
+        activityRollupService.repairFailed();
+        mongoTemplate.getCollection("activity_rollups").dropIndex("test_unique_user");
+        activityRollupService.repairFailed();
+
+        assertThat(rollups()).extracting(ActivityRollup::getPeriod)
+                .containsExactlyInAnyOrder(RollupPeriod.DAY, RollupPeriod.WEEK, RollupPeriod.MONTH);
+        // nothing left to repair
+        mongoTemplate.remove(new Query(), ActivityRollup.class);
+        activityRollupService.repairFailed();
+        assertThat(rollups()).isEmpty();
+    }
+
+    @Test
+    void rethrowsAFailedIncrementInsideATransaction() {
+        Activity activity = activity(ActivityType.RUNNING, TODAY, 30, 300);
+        mongoTemplate.insert(activity);
+        mongoTemplate.getCollection("activity_rollups").createIndex(new Document("userId", 1),
+                new IndexOptions().name("test_unique_user").unique(true));
+
+        // the failure aborts the transaction, so the activity is not stored either
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        try {
+            assertThatThrownBy(() -> activityRollupService.apply(List.of(activity)))
+                    .isInstanceOf(DataAccessException.class);
+        } finally {
+            TransactionSynchronizationManager.setActualTransactionActive(false);
+        }
+        assertThat(meterRegistry.counter("activity.rollups.failed").count()).isZero();
+    }
+
+    private void track(Activity... activities) {
+        List<Activity> batch = List.of(activities);
+        mongoTemplate.insertAll(batch);
+        activityRollupService.apply(batch);
+    }
+
+    private List<ActivityRollup> rollups() {
+        return mongoTemplate.findAll(ActivityRollup.class).stream()
+                .sorted(Comparator.comparing(ActivityRollup::getId))
+                .toList();
+    }
+
+    private static Activity activity(ActivityType type, LocalDate day, int duration, int calories) {
+        return Activity.builder()
+                .userId("user-1")
+                .activityType(type)
+                .duration(duration)
+                .caloriesBurned(calories)
+                .startTime(day.atTime(7, 30))
+                .build();
+    }
+}
@@ -0,0 +1,125 @@
+package com.fitness.activityservice.service;
+
+import com.fitness.activityservice.config.MongoConfig;
+import com.fitness.activityservice.dto.ActivitySample;
+import com.fitness.activityservice.dto.ActivitySampleChunk;
+import com.fitness.activityservice.dto.ActivitySamplesResponse;
+import com.fitness.activityservice.model.Activity;
+import com.fitness.activityservice.model.ActivitySampleBucket;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class ActivitySampleServiceTests {
+
+    private static final long START = 1_756_711_800_000L;
+
+    private MongoServer server;
+    private MongoClient client;
+    private MongoTemplate mongoTemplate;
+    private ActivitySampleService activitySampleService;
+
+    @BeforeEach
+    void setUp() {
+        server = new MongoServer(new MemoryBackend());
+        client = MongoClients.create(server.bindAndGetConnectionString());
+        mongoTemplate = new MongoTemplate(client, "samples-test");
+        new MongoConfig(mongoTemplate).initIndexes();
+        activitySampleService = new ActivitySampleService(mongoTemplate, 100, 20000, 1000, 10000);
+        mongoTemplate.save(Activity.builder().id("activity-1").userId("user-1").build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        client.close();
+        server.shutdown();
+    }
+
+    @Test
+    void storesSamplesInCompactBucketsAndReadsThemBack() {
+        List<ActivitySample> samples = samples(0, 250);
+        samples.get(7).setHeartRate(null);
+
+        assertThat(activitySampleService.ingest("activity-1", chunk(samples)).getBuckets()).isEqualTo(3);
+
+        List<ActivitySampleBucket> buckets = mongoTemplate.findAll(ActivitySampleBucket.class);
+        assertThat(buckets).allSatisfy(bucket -> assertThat(bucket.getUserId()).isEqualTo("user-1"));
+        ActivitySampleBucket first = buckets.stream().filter(bucket -> bucket.getStart().toEpochMilli() == START).findFirst().orElseThrow();
+        assertThat(first.getChannels().get("heartRate").getPresent()).isNotNull();
+        assertThat(first.getChannels().get("latitude").getPresent()).isNull();
+        assertThat(first.getTimestamps()).hasSize(1 + 2 * 99);
+        assertThat(first.getChannels().get("heartRate").getValues().length).isLessThan(2 * 99);
+
+        ActivitySamplesResponse response = activitySampleService.getSamples("activity-1", START + 5_000, START + 9_000, null);
+        assertThat(response.getResolutionMillis()).isZero();
+        assertThat(response.getSamples()).containsExactlyElementsOf(samples.subList(5, 10));
+    }
+
+    @Test
+    void averagesRangesWithMoreSamplesThanRequested() {
+        activitySampleService.ingest("activity-1", chunk(samples(0, 120)));
+
+        ActivitySamplesResponse response = activitySampleService.getSamples("activity-1", null, null, 12);
+
+        assertThat(response.getRawCount()).isEqualTo(120);
+        assertThat(response.getResolutionMillis()).isEqualTo(9_917);
+        assertThat(response.getSamples()).hasSize(12);
+        ActivitySample firstWindow = response.getSamples().get(0);
+        assertThat(firstWindow.getTimestamp()).isEqualTo(START);
+        assertThat(firstWindow.getHeartRate()).isEqualTo(125);
+        assertThat(firstWindow.getLatitude()).isCloseTo(51.5000045, within(1e-9));
+    }
+
+    @Test
+    void resentAndOverlappingChunksDoNotDuplicateSamples() {
+        activitySampleService.ingest("activity-1", chunk(samples(0, 150)));
+        activitySampleService.ingest("activity-1", chunk(samples(0, 150)));
+        activitySampleService.ingest("activity-1", chunk(samples(140, 160)));
+
+        ActivitySamplesResponse response = activitySampleService.getSamples("activity-1", null, null, null);
+
+        assertThat(response.getRawCount()).isEqualTo(160);
+        assertThat(response.getSamples()).containsExactlyElementsOf(samples(0, 160));
+    }
+
+    @Test
+    void rejectsImplausibleSamplesAndUnknownActivities() {
+        List<ActivitySample> samples = samples(0, 3);
+        samples.get(1).setLatitude(123.0);
+
+        assertThatThrownBy(() -> activitySampleService.ingest("activity-1", chunk(samples)))
+                .isInstanceOf(ResponseStatusException.class)
+                .hasMessageContaining("latitude out of range");
+        assertThatThrownBy(() -> activitySampleService.ingest("missing", chunk(samples(0, 3))))
+                .isInstanceOf(ResponseStatusException.class)
+                .hasMessageContaining("Activity not found");
+    }
+
+    private static List<ActivitySample> samples(int from, int to) {
+        List<ActivitySample> samples = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            samples.add(new ActivitySample(START + i * 1_000L, 120 + i % 11, 170 + i % 3,
+                    (515_000_000 + i * 10) / 1e7, (-1_200_000 - i * 20) / 1e7, (350 + i % 5) / 10.0));
+        }
+        return samples;
+    }
+
+    private static ActivitySampleChunk chunk(List<ActivitySample> samples) {
+        ActivitySampleChunk chunk = new ActivitySampleChunk();
+        chunk.setSamples(samples);
+        return chunk;
+    }
+}
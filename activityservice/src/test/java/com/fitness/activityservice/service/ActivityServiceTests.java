@@ -0,0 +1,199 @@
+package com.fitness.activityservice.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fitness.activityservice.dto.ActivityBatchItemResult;
+import com.fitness.activityservice.dto.ActivityBatchResponse;
+import com.fitness.activityservice.dto.ActivityRequest;
+import com.fitness.activityservice.model.Activity;
+import com.fitness.activityservice.model.ActivityType;
+import com.fitness.activityservice.model.OutboxEvent;
+import com.fitness.activityservice.repository.ActivityRepository;
+import com.fitness.activityservice.repository.OutboxEventRepository;
+import com.fitness.common.model.ActivityMetrics;
+import com.fitness.common.resilience.ResilientCalls;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.client.model.IndexOptions;
+import com.sun.net.httpserver.HttpServer;
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.retry.RetryRegistry;
+import io.github.resilience4j.timelimiter.TimeLimiterConfig;
+import io.github.resilience4j.timelimiter.TimeLimiterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.data.mongodb.MongoTransactionManager;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ActivityServiceTests {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final LocalDateTime START = LocalDateTime.of(2025, 3, 3, 7, 0);
+
+    private MongoServer server;
+    private MongoClient client;
+    private HttpServer userService;
+    private MongoTemplate mongoTemplate;
+    private ActivityService activityService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new MongoServer(new MemoryBackend());
+        client = MongoClients.create(server.bindAndGetConnectionString());
+        mongoTemplate = new MongoTemplate(client, "activity-test");
+        MongoRepositoryFactory repositories = new MongoRepositoryFactory(mongoTemplate);
+
+        // users whose id starts with "user-" exist
+        userService = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        userService.setExecutor(Executors.newCachedThreadPool());
+        userService.createContext("/api/users/", exchange -> {
+            Map<String, Boolean> validations = new HashMap<>();
+            for (String userId : OBJECT_MAPPER.readValue(exchange.getRequestBody(), String[].class)) {
+                validations.put(userId, userId.startsWith("user-"));
+            }
+            byte[] body = OBJECT_MAPPER.writeValueAsBytes(validations);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        userService.start();
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ResilientCalls resilientCalls = new ResilientCalls(CircuitBreakerRegistry.ofDefaults(),
+                BulkheadRegistry.ofDefaults(),
+                TimeLimiterRegistry.of(TimeLimiterConfig.custom().timeoutDuration(Duration.ofSeconds(5)).build()),
+                RetryRegistry.ofDefaults(), meterRegistry);
+
+        // mongo-java-server has no transactions
+        MockEnvironment environment = new MockEnvironment();
+        environment.setActiveProfiles(ActivityOutboxService.DEV_PROFILE);
+        activityService = new ActivityService();
+        ReflectionTestUtils.setField(activityService, "userValidationService", new UserValidationService(
+                WebClient.create("http://localhost:" + userService.getAddress().getPort()), resilientCalls,
+                meterRegistry, false, Duration.ZERO, false, Duration.ZERO, 100, 100, Duration.ofMinutes(1),
+                Duration.ofSeconds(1)));
+        ReflectionTestUtils.setField(activityService, "activityRepository",
+                repositories.getRepository(ActivityRepository.class));
+        ReflectionTestUtils.setField(activityService, "activityOutboxService", new ActivityOutboxService(
+                repositories.getRepository(OutboxEventRepository.class),
+                new StaticListableBeanFactory().getBeanProvider(MongoTransactionManager.class), environment,
+                "activity-events"));
+        ReflectionTestUtils.setField(activityService, "activityRollupService",
+                new ActivityRollupService(mongoTemplate, meterRegistry));
+        ReflectionTestUtils.setField(activityService, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(activityService, "maxBatchSize", 5);
+
+        // stands in for any unique constraint a bulk insert can run into
+        mongoTemplate.getCollection("activities").createIndex(new Document("userId", 1).append("startTime", 1),
+                new IndexOptions().name("test_unique_user_start").unique(true));
+    }
+
+    @AfterEach
+    void tearDown() {
+        userService.stop(0);
+        client.close();
+        server.shutdown();
+    }
+
+    @Test
+    void reportsTheOutcomeOfEveryItemOfABatch() {
+        mongoTemplate.insert(Activity.builder().userId("user-1").startTime(START.minusDays(1)).build());
+
+        ActivityBatchResponse response = activityService.trackActivities(List.of(
+                request("user-1", START, null),
+                request("ghost", START, null),
+                request("user-2", START, ActivityMetrics.of(Map.of("heartRateAvg", 420))),
+                request("user-1", START.minusDays(1), null),
+                request("user-2", START, null)));
+
+        assertThat(response.getAccepted()).isEqualTo(2);
+        assertThat(response.getRejected()).isEqualTo(3);
+        assertThat(response.getResults()).extracting(ActivityBatchItemResult::getIndex).containsExactly(0, 1, 2, 3, 4);
+        assertThat(response.getResults()).extracting(ActivityBatchItemResult::getStatus).containsExactly(
+                ActivityBatchItemResult.Status.ACCEPTED, ActivityBatchItemResult.Status.INVALID_USER,
+                ActivityBatchItemResult.Status.INVALID_METRICS, ActivityBatchItemResult.Status.FAILED,
+                ActivityBatchItemResult.Status.ACCEPTED);
+        assertThat(response.getResults().get(2).getError()).contains("heartRateAvg");
+        assertThat(response.getResults().get(3).getError()).contains("duplicate key");
+        assertThat(response.getResults().get(4).getActivity().getId()).isNotNull();
+        // the earlier activity and the two accepted ones, each accepted one with its event
+        assertThat(mongoTemplate.findAll(Activity.class)).hasSize(3);
+        assertThat(mongoTemplate.findAll(OutboxEvent.class)).extracting(OutboxEvent::getAggregateId)
+                .containsExactlyInAnyOrder(response.getResults().get(0).getActivity().getId(),
+                        response.getResults().get(4).getActivity().getId());
+    }
+
+    @Test
+    void reportsEveryItemAsFailedWhenAFailedInsertAbortsTheTransaction() {
+        mongoTemplate.insert(Activity.builder().userId("user-1").startTime(START).build());
+
+        // the insert failure is what the server aborts the transaction on; the rollback itself needs a replica set
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        ActivityBatchResponse response;
+        try {
+            response = activityService.trackActivities(List.of(
+                    request("user-2", START, null),
+                    request("user-1", START, null),
+                    request("ghost", START, null)));
+        } finally {
+            TransactionSynchronizationManager.setActualTransactionActive(false);
+        }
+
+        assertThat(response.getAccepted()).isZero();
+        assertThat(response.getResults()).extracting(ActivityBatchItemResult::getStatus).containsExactly(
+                ActivityBatchItemResult.Status.FAILED, ActivityBatchItemResult.Status.FAILED,
+                ActivityBatchItemResult.Status.INVALID_USER);
+        assertThat(response.getResults().get(0).getError()).contains("rolled back");
+        assertThat(response.getResults().get(1).getError()).contains("duplicate key");
+        assertThat(mongoTemplate.findAll(OutboxEvent.class)).isEmpty();
+    }
+
+    @Test
+    void rejectsAnOversizedBatchWithABadRequest() {
+        List<ActivityRequest> requests = Collections.nCopies(6, request("user-1", START, null));
+
+        assertThatThrownBy(() -> activityService.trackActivities(requests))
+                .isInstanceOf(ResponseStatusException.class)
+                .hasMessageContaining("400 BAD_REQUEST")
+                .hasMessageContaining("Batch too large: 6 > 5");
+        assertThat(mongoTemplate.findAll(Activity.class)).isEmpty();
+    }
+
+    private static ActivityRequest request(String userId, LocalDateTime startTime, ActivityMetrics metrics) {
+        ActivityRequest request = new ActivityRequest();
+        request.setUserId(userId);
+        request.setActivityType(ActivityType.RUNNING);
+        request.setDuration(30);
+        request.setCaloriesBurned(300);
+        request.setStartTime(startTime);
+        request.setAdditionalMetrics(metrics);
+        return request;
+    }
+}
@@ -0,0 +1,230 @@
+package com.fitness.activityservice.service;
+
+import com.fitness.activityservice.dto.ActivityBatchItemResult;
+import com.fitness.activityservice.dto.ActivityBatchResponse;
+import com.fitness.activityservice.dto.ActivityRequest;
+import com.fitness.activityservice.dto.ActivityResponse;
+import com.fitness.activityservice.model.Activity;
+import com.fitness.activityservice.model.ActivityRollup;
+import com.fitness.activityservice.model.ActivityType;
+import com.fitness.activityservice.model.OutboxEvent;
+import com.fitness.activityservice.repository.ReactiveActivityRepository;
+import com.fitness.common.model.ActivityMetrics;
+import com.fitness.common.resilience.ResilientCalls;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.sun.net.httpserver.HttpServer;
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.retry.RetryRegistry;
+import io.github.resilience4j.timelimiter.TimeLimiterConfig;
+import io.github.resilience4j.timelimiter.TimeLimiterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.data.mongodb.MongoTransactionManager;
+import org.springframework.data.mongodb.ReactiveMongoTransactionManager;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.repository.support.ReactiveMongoRepositoryFactory;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ReactiveActivityServiceTests {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final LocalDateTime START = LocalDateTime.of(2025, 3, 3, 7, 0);
+
+    private MongoServer server;
+    private MongoClient client;
+    private com.mongodb.reactivestreams.client.MongoClient reactiveClient;
+    private HttpServer userService;
+    private final AtomicInteger bulkValidations = new AtomicInteger();
+    private MongoTemplate mongoTemplate;
+    private ReactiveActivityService reactiveActivityService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new MongoServer(new MemoryBackend());
+        String connectionString = server.bindAndGetConnectionString();
+        client = MongoClients.create(connectionString);
+        reactiveClient = com.mongodb.reactivestreams.client.MongoClients.create(connectionString);
+        mongoTemplate = new MongoTemplate(client, "reactive-test");
+        ReactiveMongoTemplate reactiveMongoTemplate = new ReactiveMongoTemplate(reactiveClient, "reactive-test");
+
+        // only user-1 exists
+        userService = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        userService.setExecutor(Executors.newCachedThreadPool());
+        userService.createContext("/api/users/", exchange -> {
+            byte[] body;
+            if ("POST".equals(exchange.getRequestMethod())) {
+                bulkValidations.incrementAndGet();
+                Map<String, Boolean> validations = new HashMap<>();
+                for (String userId : OBJECT_MAPPER.readValue(exchange.getRequestBody(), String[].class)) {
+                    validations.put(userId, userId.equals("user-1"));
+                }
+                body = OBJECT_MAPPER.writeValueAsBytes(validations);
+            } else {
+                body = String.valueOf(exchange.getRequestURI().getPath().contains("/user-1/"))
+                        .getBytes(StandardCharsets.UTF_8);
+            }
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        userService.start();
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ResilientCalls resilientCalls = new ResilientCalls(CircuitBreakerRegistry.ofDefaults(),
+                BulkheadRegistry.ofDefaults(),
+                TimeLimiterRegistry.of(TimeLimiterConfig.custom().timeoutDuration(Duration.ofSeconds(5)).build()),
+                RetryRegistry.ofDefaults(), meterRegistry);
+        UserValidationService userValidationService = new UserValidationService(
+                WebClient.create("http://localhost:" + userService.getAddress().getPort()), resilientCalls,
+                meterRegistry, false, Duration.ZERO, false, Duration.ZERO, 100, 100, Duration.ofMinutes(1), Duration.ofSeconds(1));
+
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+        reactiveActivityService = new ReactiveActivityService(
+                new ActivityService(),
+                userValidationService,
+                new ReactiveMongoRepositoryFactory(reactiveMongoTemplate).getRepository(ReactiveActivityRepository.class),
+                reactiveMongoTemplate,
+                new ActivityOutboxService(null, beanFactory.getBeanProvider(MongoTransactionManager.class),
+                        devEnvironment(), "activity-events"),
+                new ActivityRollupService(mongoTemplate, new SimpleMeterRegistry()),
+                beanFactory.getBeanProvider(ReactiveMongoTransactionManager.class),
+                5, 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        userService.stop(0);
+        reactiveClient.close();
+        client.close();
+        server.shutdown();
+    }
+
+    @Test
+    void writesTheActivityItsOutboxEventAndRollups() {
+        ActivityResponse response = reactiveActivityService.trackActivity(request("user-1", null)).block();
+
+        assertThat(response.getId()).isNotNull();
+        assertThat(mongoTemplate.findById(response.getId(), Activity.class).getUserId()).isEqualTo("user-1");
+        assertThat(mongoTemplate.findAll(OutboxEvent.class))
+                .singleElement()
+                .satisfies(event -> {
+                    assertThat(event.getAggregateId()).isEqualTo(response.getId());
+                    assertThat(event.getTopic()).isEqualTo("activity-events");
+                });
+        // one rollup per day, week and month
+        assertThat(mongoTemplate.findAll(ActivityRollup.class))
+                .hasSize(3)
+                .allSatisfy(rollup -> assertThat(rollup.getCount()).isEqualTo(1));
+    }
+
+    @Test
+    void carriesTheCacheBypassOnTheOutboxEventOnly() {
+        ActivityRequest request = request("user-1", null);
+        request.setAiCacheBypass(true);
+
+        ActivityResponse response = reactiveActivityService.trackActivity(request).block();
+
+        assertThat(mongoTemplate.findAll(OutboxEvent.class)).singleElement()
+                .satisfies(event -> assertThat(event.isAiCacheBypass()).isTrue());
+        assertThat(mongoTemplate.getCollection("activities").find().first()).doesNotContainKey("aiCacheBypass");
+        assertThat(mongoTemplate.findById(response.getId(), Activity.class).isAiCacheBypass()).isFalse();
+    }
+
+    @Test
+    void rejectsUnknownUsersAndInvalidMetricsWithoutWriting() {
+        assertThatThrownBy(() -> reactiveActivityService.trackActivity(request("user-2", null)).block())
+                .hasMessageContaining("Invalid User: user-2");
+        assertThatThrownBy(() -> reactiveActivityService.trackActivity(
+                request("user-1", ActivityMetrics.of(Map.of("heartRateAvg", 420)))).block())
+                .isInstanceOf(ResponseStatusException.class)
+                .hasMessageContaining("heartRateAvg must be between 20 and 300");
+
+        assertThat(mongoTemplate.findAll(Activity.class)).isEmpty();
+        assertThat(mongoTemplate.findAll(OutboxEvent.class)).isEmpty();
+    }
+
+    @Test
+    void reportsEveryItemOfABatchWrittenInChunks() {
+        Flux<ActivityRequest> requests = Flux.just(request("user-1", null), request("user-2", null),
+                request("user-1", ActivityMetrics.of(Map.of("cadence", "fast"))), request("user-1", null),
+                request("user-3", null));
+
+        ActivityBatchResponse response = reactiveActivityService.trackActivities(requests).block();
+
+        assertThat(response.getAccepted()).isEqualTo(2);
+        assertThat(response.getRejected()).isEqualTo(3);
+        assertThat(response.getResults()).extracting(ActivityBatchItemResult::getIndex).containsExactly(0, 1, 2, 3, 4);
+        assertThat(response.getResults()).extracting(ActivityBatchItemResult::getStatus).containsExactly(
+                ActivityBatchItemResult.Status.ACCEPTED, ActivityBatchItemResult.Status.INVALID_USER,
+                ActivityBatchItemResult.Status.INVALID_METRICS, ActivityBatchItemResult.Status.ACCEPTED,
+                ActivityBatchItemResult.Status.INVALID_USER);
+        // the distinct users of all chunks in one pass
+        assertThat(bulkValidations).hasValue(1);
+        assertThat(mongoTemplate.findAll(Activity.class)).hasSize(2);
+        assertThat(mongoTemplate.findAll(OutboxEvent.class)).hasSize(2);
+        assertThat(mongoTemplate.findAll(ActivityRollup.class))
+                .allSatisfy(rollup -> assertThat(rollup.getCount()).isEqualTo(2));
+    }
+
+    @Test
+    void stopsReadingAnOversizedBatchAndWritesNothing() {
+        AtomicInteger read = new AtomicInteger();
+        Flux<ActivityRequest> requests = Flux.range(0, 100)
+                .map(i -> request("user-1", null))
+                .doOnNext(request -> read.incrementAndGet());
+
+        assertThatThrownBy(() -> reactiveActivityService.trackActivities(requests).block())
+                .isInstanceOf(ResponseStatusException.class)
+                .hasMessageContaining("400 BAD_REQUEST")
+                .hasMessageContaining("Batch too large");
+
+        assertThat(read).hasValue(6);
+        assertThat(mongoTemplate.findAll(Activity.class)).isEmpty();
+    }
+
+    // mongo-java-server has no transactions
+    private static MockEnvironment devEnvironment() {
+        MockEnvironment environment = new MockEnvironment();
+        environment.setActiveProfiles(ActivityOutboxService.DEV_PROFILE);
+        return environment;
+    }
+
+    private static ActivityRequest request(String userId, ActivityMetrics metrics) {
+        ActivityRequest request = new ActivityRequest();
+        request.setUserId(userId);
+        request.setActivityType(ActivityType.RUNNING);
+        request.setDuration(30);
+        request.setCaloriesBurned(300);
+        request.setStartTime(START);
+        request.setAdditionalMetrics(metrics);
+        return request;
+    }
+}
@@ -0,0 +1,157 @@
+package com.fitness.activityservice.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fitness.common.resilience.ResilientCalls;
+import com.sun.net.httpserver.HttpServer;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.retry.RetryRegistry;
+import io.github.resilience4j.timelimiter.TimeLimiterConfig;
+import io.github.resilience4j.timelimiter.TimeLimiterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UserValidationServiceTests {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private HttpServer userService;
+    private final AtomicInteger singleCalls = new AtomicInteger();
+    // the ids sent with each bulk call
+    private final Queue<List<String>> bulkCalls = new ConcurrentLinkedQueue<>();
+    private volatile long singleCallDelayMillis;
+    private WebClient webClient;
+    private ResilientCalls resilientCalls;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        // users whose id starts with "user-" exist
+        userService = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        userService.setExecutor(Executors.newCachedThreadPool());
+        userService.createContext("/api/users/", exchange -> {
+            byte[] body;
+            if ("POST".equals(exchange.getRequestMethod())) {
+                List<String> userIds = List.of(OBJECT_MAPPER.readValue(exchange.getRequestBody(), String[].class));
+                bulkCalls.add(userIds);
+                Map<String, Boolean> validations = new HashMap<>();
+                userIds.forEach(userId -> validations.put(userId, userId.startsWith("user-")));
+                body = OBJECT_MAPPER.writeValueAsBytes(validations);
+            } else {
+                singleCalls.incrementAndGet();
+                try {
+                    Thread.sleep(singleCallDelayMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                body = String.valueOf(exchange.getRequestURI().getPath().startsWith("/api/users/user-"))
+                        .getBytes(StandardCharsets.UTF_8);
+            }
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        userService.start();
+        webClient = WebClient.create("http://localhost:" + userService.getAddress().getPort());
+        meterRegistry = new SimpleMeterRegistry();
+        resilientCalls = new ResilientCalls(CircuitBreakerRegistry.ofDefaults(), BulkheadRegistry.ofDefaults(),
+                TimeLimiterRegistry.of(TimeLimiterConfig.custom().timeoutDuration(Duration.ofSeconds(5)).build()),
+                RetryRegistry.ofDefaults(), meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        userService.stop(0);
+    }
+
+    @Test
+    void validatesUncachedUsersWithBulkCallsOfAtMostTheBatchSize() {
+        UserValidationService userValidationService = userValidationService(false);
+        userValidationService.validateUser("user-1");
+
+        Map<String, Boolean> validations = userValidationService.validateUsers(
+                List.of("user-1", "user-2", "user-3", "user-4", "ghost"));
+
+        assertThat(validations).containsExactlyInAnyOrderEntriesOf(Map.of(
+                "user-1", true, "user-2", true, "user-3", true, "user-4", true, "ghost", false));
+        assertThat(singleCalls).hasValue(1);
+        assertThat(bulkCalls).hasSize(2).allSatisfy(userIds -> assertThat(userIds).hasSizeLessThanOrEqualTo(3));
+        assertThat(bulkCalls.stream().flatMap(List::stream)).doesNotContain("user-1");
+    }
+
+    @Test
+    void batchesConcurrentSingleValidationsIntoBulkCalls() {
+        UserValidationService userValidationService = userValidationService(true);
+
+        List<Boolean> validations = Flux.just("user-1", "user-2", "ghost", "user-1")
+                .flatMap(userValidationService::validateUserReactive)
+                .collectList()
+                .block();
+
+        assertThat(validations).containsExactlyInAnyOrder(true, true, false, true);
+        assertThat(singleCalls).hasValue(0);
+        assertThat(bulkCalls).singleElement()
+                .satisfies(userIds -> assertThat(userIds).containsExactlyInAnyOrder("user-1", "user-2", "ghost"));
+    }
+
+    @Test
+    void concurrentLookupsOfAnUncachedUserShareOneCall() {
+        UserValidationService userValidationService = userValidationService(false);
+        singleCallDelayMillis = 200;
+
+        List<Boolean> validations = Flux.just("user-1", "user-1", "user-1", "ghost", "user-1", "ghost")
+                .flatMap(userValidationService::validateUserReactive)
+                .collectList()
+                .block();
+
+        assertThat(validations).containsExactlyInAnyOrder(true, true, true, true, false, false);
+        assertThat(singleCalls).hasValue(2);
+    }
+
+    @Test
+    void forgetsNegativeAnswersLongBeforePositiveOnes() throws InterruptedException {
+        UserValidationService userValidationService = userValidationService(false, Duration.ofMillis(200));
+
+        assertThat(userValidationService.validateUser("user-1")).isTrue();
+        assertThat(userValidationService.validateUser("ghost")).isFalse();
+        assertThat(userValidationService.validateUser("user-1")).isTrue();
+        assertThat(userValidationService.validateUser("ghost")).isFalse();
+        assertThat(singleCalls).hasValue(2);
+
+        // only the negative answer has expired
+        Thread.sleep(300);
+        assertThat(userValidationService.validateUser("user-1")).isTrue();
+        assertThat(userValidationService.validateUser("ghost")).isFalse();
+        assertThat(singleCalls).hasValue(3);
+    }
+
+    private UserValidationService userValidationService(boolean batchEnabled) {
+        return userValidationService(batchEnabled, Duration.ofSeconds(1));
+    }
+
+    private UserValidationService userValidationService(boolean batchEnabled, Duration negativeTtl) {
+        return new UserValidationService(webClient, resilientCalls, meterRegistry, false, Duration.ZERO,
+                batchEnabled, Duration.ofMillis(50), 3, 100, Duration.ofMinutes(1), negativeTtl);
+    }
+}
@@ -0,0 +1,148 @@
+package com.fitness.aiservice.analytics;
+
+import com.fitness.aiservice.dto.UserActivityAnalytics;
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.streams.KafkaStreams;
+import org.apache.kafka.streams.KeyQueryMetadata;
+import org.apache.kafka.streams.StoreQueryParameters;
+import org.apache.kafka.streams.state.HostInfo;
+import org.apache.kafka.streams.state.QueryableStoreTypes;
+import org.apache.kafka.streams.state.ReadOnlyWindowStore;
+import org.apache.kafka.streams.state.WindowStoreIterator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.kafka.config.StreamsBuilderFactoryBean;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Interactive queries over the {@link ActivityAnalyticsTopology#DAILY_LOAD_STORE} store. Each instance only
+ * holds the users of its partitions; {@link #remoteOwner(String)} tells which instance holds the others, and
+ * their analytics are fetched from it so callers never need to reach an instance directly.
+ */
+@Service
+@ConditionalOnProperty(name = "analytics.streams.enabled", havingValue = "true")
+public class ActivityAnalyticsService {
+
+    /**
+     * Set on requests forwarded to the owning instance, which answers them from its own store. While partitions
+     * move, two instances could otherwise keep forwarding to each other.
+     */
+    public static final String FORWARDED_HEADER = "X-Analytics-Forwarded";
+    static final String USER_ANALYTICS_PATH = "/api/ai/activityanalytics/getuseranalytics/{userId}";
+
+    private final StreamsBuilderFactoryBean streamsBuilderFactoryBean;
+    private final HostInfo localHost;
+    private final WebClient webClient;
+    private final Duration remoteTimeout;
+
+    public ActivityAnalyticsService(StreamsBuilderFactoryBean streamsBuilderFactoryBean,
+                                    WebClient.Builder webClientBuilder,
+                                    @Value("${spring.kafka.streams.properties.application.server:}") String applicationServer,
+                                    @Value("${analytics.remote.timeout:5s}") Duration remoteTimeout) {
+        this.streamsBuilderFactoryBean = streamsBuilderFactoryBean;
+        this.localHost = applicationServer.isBlank() ? null : HostInfo.buildFromEndpoint(applicationServer);
+        this.webClient = webClientBuilder.build();
+        this.remoteTimeout = remoteTimeout;
+    }
+
+    /**
+     * The user's analytics from whichever instance holds them. A forwarded request is always answered locally.
+     */
+    public UserActivityAnalytics getUserAnalytics(String userId, boolean forwarded) {
+        Optional<HostInfo> owner = forwarded ? Optional.empty() : remoteOwner(userId);
+        return owner.map(host -> fetchFrom(host, userId)).orElseGet(() -> getUserAnalytics(userId));
+    }
+
+    public UserActivityAnalytics getUserAnalytics(String userId) {
+        ReadOnlyWindowStore<String, ActivityLoad> store = runningStreams().store(StoreQueryParameters.fromNameAndType(
+                ActivityAnalyticsTopology.DAILY_LOAD_STORE, QueryableStoreTypes.windowStore()));
+        return summarize(store, userId, LocalDate.now(ZoneOffset.UTC));
+    }
+
+    /**
+     * The instance hosting the user's windows when it is not this one. Always empty when
+     * {@code application.server} is not configured, i.e. a single instance holds every partition.
+     */
+    public Optional<HostInfo> remoteOwner(String userId) {
+        if (localHost == null) {
+            return Optional.empty();
+        }
+        KeyQueryMetadata metadata = runningStreams().queryMetadataForKey(
+                ActivityAnalyticsTopology.DAILY_LOAD_STORE, userId, Serdes.String().serializer());
+        if (metadata == null || KeyQueryMetadata.NOT_AVAILABLE.equals(metadata) || localHost.equals(metadata.activeHost())) {
+            return Optional.empty();
+        }
+        return Optional.of(metadata.activeHost());
+    }
+
+    UserActivityAnalytics fetchFrom(HostInfo owner, String userId) {
+        try {
+            return webClient.get()
+                    .uri("http://" + owner.host() + ":" + owner.port() + USER_ANALYTICS_PATH, userId)
+                    .header(FORWARDED_HEADER, "true")
+                    .retrieve()
+                    .bodyToMono(UserActivityAnalytics.class)
+                    .block(remoteTimeout);
+        } catch (WebClientResponseException e) {
+            throw new ResponseStatusException(e.getStatusCode(), "Analytics instance " + owner + " answered "
+                    + e.getStatusCode().value());
+        } catch (RuntimeException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                    "Analytics instance " + owner + " is not reachable", e);
+        }
+    }
+
+    static UserActivityAnalytics summarize(ReadOnlyWindowStore<String, ActivityLoad> store, String userId, LocalDate today) {
+        LocalDate first = today.minusDays(29);
+        Map<LocalDate, ActivityLoad> byDay = new HashMap<>();
+        try (WindowStoreIterator<ActivityLoad> windows = store.fetch(userId,
+                first.atStartOfDay().toInstant(ZoneOffset.UTC), today.atStartOfDay().toInstant(ZoneOffset.UTC))) {
+            windows.forEachRemaining(window -> byDay.put(
+                    Instant.ofEpochMilli(window.key).atZone(ZoneOffset.UTC).toLocalDate(), window.value));
+        }
+
+        ActivityLoad last7Days = new ActivityLoad();
+        ActivityLoad last30Days = new ActivityLoad();
+        long previous7DaysCalories = 0;
+        List<UserActivityAnalytics.DailyCalories> dailyCalories = new ArrayList<>(30);
+        for (LocalDate day = first; !day.isAfter(today); day = day.plusDays(1)) {
+            ActivityLoad load = byDay.get(day);
+            long calories = load == null ? 0 : load.getTotalCalories();
+            dailyCalories.add(new UserActivityAnalytics.DailyCalories(day, calories));
+            if (load == null) {
+                continue;
+            }
+            last30Days.add(load);
+            if (day.isAfter(today.minusDays(7))) {
+                last7Days.add(load);
+            } else if (day.isAfter(today.minusDays(14))) {
+                previous7DaysCalories += calories;
+            }
+        }
+        Double calorieTrendPercent = previous7DaysCalories == 0 ? null
+                : (last7Days.getTotalCalories() - previous7DaysCalories) * 100.0 / previous7DaysCalories;
+        return new UserActivityAnalytics(userId, last7Days, last30Days, dailyCalories, calorieTrendPercent);
+    }
+
+    private KafkaStreams runningStreams() {
+        KafkaStreams kafkaStreams = streamsBuilderFactoryBean.getKafkaStreams();
+        if (kafkaStreams == null || kafkaStreams.state() != KafkaStreams.State.RUNNING) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Activity analytics are not ready yet");
+        }
+        return kafkaStreams;
+    }
+}
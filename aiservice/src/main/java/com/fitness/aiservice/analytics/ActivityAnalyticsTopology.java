@@ -0,0 +1,54 @@
+package com.fitness.aiservice.analytics;
+
+import com.fitness.aiservice.models.Activity;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.apache.kafka.common.serialization.Serde;
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.common.utils.Bytes;
+import org.apache.kafka.streams.StreamsBuilder;
+import org.apache.kafka.streams.kstream.Consumed;
+import org.apache.kafka.streams.kstream.Grouped;
+import org.apache.kafka.streams.kstream.KTable;
+import org.apache.kafka.streams.kstream.Materialized;
+import org.apache.kafka.streams.kstream.TimeWindows;
+import org.apache.kafka.streams.kstream.Windowed;
+import org.apache.kafka.streams.state.WindowStore;
+import org.springframework.kafka.support.serializer.JsonSerde;
+
+import java.time.Duration;
+
+/**
+ * Folds {@code activity-events} into one {@link ActivityLoad} per user and day, kept in the
+ * {@value #DAILY_LOAD_STORE} window store. The store is changelogged, so it is restored from Kafka on restart,
+ * and retained for {@value #RETENTION_DAYS} days plus the grace period so 30-day queries always find their
+ * windows.
+ */
+public final class ActivityAnalyticsTopology {
+
+    public static final String DAILY_LOAD_STORE = "daily-activity-load";
+    static final int RETENTION_DAYS = 31;
+
+    private ActivityAnalyticsTopology() {
+    }
+
+    /**
+     * @param activityDeserializer reads the source topic; repartitioned records are written as JSON
+     */
+    public static KTable<Windowed<String>, ActivityLoad> build(StreamsBuilder builder, String topic, Duration grace,
+                                                               Deserializer<Activity> activityDeserializer) {
+        Serde<Activity> activitySerde = new JsonSerde<>(Activity.class).ignoreTypeHeaders().noTypeInfo();
+        Serde<Activity> sourceSerde = Serdes.serdeFrom(activitySerde.serializer(), activityDeserializer);
+        Serde<ActivityLoad> loadSerde = new JsonSerde<>(ActivityLoad.class).ignoreTypeHeaders().noTypeInfo();
+
+        return builder.stream(topic, Consumed.with(Serdes.String(), sourceSerde)
+                        .withTimestampExtractor(new ActivityTimestampExtractor()))
+                .filter((key, activity) -> activity != null && activity.getUserId() != null)
+                .groupBy((key, activity) -> activity.getUserId(), Grouped.with("activities-by-user", Serdes.String(), activitySerde))
+                .windowedBy(TimeWindows.ofSizeAndGrace(Duration.ofDays(1), grace))
+                .aggregate(ActivityLoad::new, (userId, activity, load) -> load.add(activity),
+                        Materialized.<String, ActivityLoad, WindowStore<Bytes, byte[]>>as(DAILY_LOAD_STORE)
+                                .withKeySerde(Serdes.String())
+                                .withValueSerde(loadSerde)
+                                .withRetention(Duration.ofDays(RETENTION_DAYS).plus(grace)));
+    }
+}
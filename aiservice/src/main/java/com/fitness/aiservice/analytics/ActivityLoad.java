@@ -0,0 +1,37 @@
+package com.fitness.aiservice.analytics;
+
+import com.fitness.aiservice.models.Activity;
+import com.fitness.aiservice.models.ActivityType;
+import lombok.Data;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Training load of a user over some span: sessions, minutes and calories, with sessions counted per type.
+ */
+@Data
+public class ActivityLoad {
+    private long sessions;
+    private long totalDuration;
+    private long totalCalories;
+    private Map<ActivityType, Long> sessionsByType = new EnumMap<>(ActivityType.class);
+
+    public ActivityLoad add(Activity activity) {
+        sessions++;
+        totalDuration += activity.getDuration() == null ? 0 : activity.getDuration();
+        totalCalories += activity.getCaloriesBurned() == null ? 0 : activity.getCaloriesBurned();
+        if (activity.getActivityType() != null) {
+            sessionsByType.merge(activity.getActivityType(), 1L, Long::sum);
+        }
+        return this;
+    }
+
+    public ActivityLoad add(ActivityLoad other) {
+        sessions += other.sessions;
+        totalDuration += other.totalDuration;
+        totalCalories += other.totalCalories;
+        other.sessionsByType.forEach((type, count) -> sessionsByType.merge(type, count, Long::sum));
+        return this;
+    }
+}
@@ -0,0 +1,23 @@
+package com.fitness.aiservice.analytics;
+
+import com.fitness.aiservice.models.Activity;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.streams.processor.TimestampExtractor;
+
+import java.time.ZoneOffset;
+
+/**
+ * Places activities in windows by when they started rather than when they were published, so late uploads
+ * land on the right day. {@code startTime} carries no zone; it is read as UTC here and by the queries, which
+ * keeps daily windows aligned with the calendar days the user recorded.
+ */
+public class ActivityTimestampExtractor implements TimestampExtractor {
+
+    @Override
+    public long extract(ConsumerRecord<Object, Object> record, long partitionTime) {
+        if (record.value() instanceof Activity activity && activity.getStartTime() != null) {
+            return activity.getStartTime().toInstant(ZoneOffset.UTC).toEpochMilli();
+        }
+        return record.timestamp() >= 0 ? record.timestamp() : partitionTime;
+    }
+}
@@ -0,0 +1,36 @@
+package com.fitness.aiservice.config;
+
+import com.fitness.aiservice.analytics.ActivityAnalyticsTopology;
+import com.fitness.aiservice.analytics.ActivityLoad;
+import com.fitness.aiservice.serialization.ActivityAvroDeserializer;
+import com.fitness.common.serialization.AvroSchemaRegistry;
+import org.apache.kafka.streams.StreamsBuilder;
+import org.apache.kafka.streams.kstream.KTable;
+import org.apache.kafka.streams.kstream.Windowed;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.annotation.EnableKafkaStreams;
+
+import java.time.Duration;
+
+/**
+ * Runs the activity analytics Kafka Streams application when {@code analytics.streams.enabled} is set. It reads
+ * {@code activity-events} under its own application id, independently of {@code ActivityMessageListener}.
+ */
+@Configuration
+@EnableKafkaStreams
+@ConditionalOnProperty(name = "analytics.streams.enabled", havingValue = "true")
+public class AnalyticsStreamsConfig {
+
+    @Bean
+    public KTable<Windowed<String>, ActivityLoad> dailyActivityLoad(StreamsBuilder streamsBuilder,
+                                                                    @Value("${kafka.topic.name}") String topicName,
+                                                                    @Value("${analytics.streams.grace:7d}") Duration grace,
+                                                                    @Value("${avro.registry.location:classpath:avro}") String registryLocation) {
+        // reads Avro and JSON records alike, whichever the producer is configured with
+        return ActivityAnalyticsTopology.build(streamsBuilder, topicName, grace,
+                new ActivityAvroDeserializer(AvroSchemaRegistry.at(registryLocation), ActivityAvroDeserializer.READER_SCHEMA_ID));
+    }
+}
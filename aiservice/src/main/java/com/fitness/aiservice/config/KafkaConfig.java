@@ -0,0 +1,39 @@
+package com.fitness.aiservice.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.kafka.ConcurrentKafkaListenerContainerFactoryConfigurer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.util.backoff.FixedBackOff;
+
+import java.time.Duration;
+
+@Configuration
+public class KafkaConfig {
+
+    /**
+     * Container factory for batch listeners. Offsets are committed with {@code AckMode.BATCH}, i.e. only after
+     * the listener has returned, which the batch listener does once the whole batch is persisted. When it fails
+     * part way, the error handler commits up to the failed record and redelivers from there, retrying it
+     * {@code kafka.listener.batch.retry-attempts} times before logging and skipping it.
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<Object, Object> batchKafkaListenerContainerFactory(
+            ConcurrentKafkaListenerContainerFactoryConfigurer configurer,
+            ConsumerFactory<Object, Object> kafkaConsumerFactory,
+            @Value("${kafka.listener.batch.concurrency:3}") int concurrency,
+            @Value("${kafka.listener.batch.retry-interval:5s}") Duration retryInterval,
+            @Value("${kafka.listener.batch.retry-attempts:3}") long retryAttempts) {
+        ConcurrentKafkaListenerContainerFactory<Object, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        configurer.configure(factory, kafkaConsumerFactory);
+        factory.setBatchListener(true);
+        factory.setConcurrency(concurrency);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.BATCH);
+        factory.setCommonErrorHandler(new DefaultErrorHandler(new FixedBackOff(retryInterval.toMillis(), retryAttempts)));
+        return factory;
+    }
+}
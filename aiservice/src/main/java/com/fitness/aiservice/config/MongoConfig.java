@@ -1,9 +1,33 @@
 package com.fitness.aiservice.config;
 
+import com.fitness.aiservice.models.Recommendation;
+import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.data.mongodb.config.EnableMongoAuditing;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+
+import java.util.List;
 
 @Configuration
 @EnableMongoAuditing
+@RequiredArgsConstructor
 public class MongoConfig {
+
+    private static final List<Class<?>> INDEXED_DOCUMENTS = List.of(Recommendation.class);
+
+    private final MongoTemplate mongoTemplate;
+
+    @EventListener(ContextRefreshedEvent.class)
+    public void initIndexes() {
+        IndexResolver indexResolver = new MongoPersistentEntityIndexResolver(mongoTemplate.getConverter().getMappingContext());
+        for (Class<?> documentType : INDEXED_DOCUMENTS) {
+            IndexOperations indexOperations = mongoTemplate.indexOps(documentType);
+            indexResolver.resolveIndexFor(documentType).forEach(indexOperations::createIndex);
+        }
+    }
 }
@@ -0,0 +1,37 @@
+package com.fitness.aiservice.config;
+
+import io.netty.channel.ChannelOption;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+
+@Configuration
+public class WebClientConfig {
+
+    @Bean
+    public WebClient geminiWebClient(WebClient.Builder webClientBuilder,
+                                     @Value("${gemini.client.connect-timeout:5s}") Duration connectTimeout,
+                                     @Value("${gemini.client.read-timeout:60s}") Duration readTimeout,
+                                     @Value("${gemini.client.max-connections:50}") int maxConnections,
+                                     @Value("${gemini.client.pending-acquire-timeout:30s}") Duration pendingAcquireTimeout,
+                                     @Value("${gemini.client.max-idle-time:30s}") Duration maxIdleTime) {
+        ConnectionProvider connectionProvider = ConnectionProvider.builder("gemini")
+                .maxConnections(maxConnections)
+                .pendingAcquireTimeout(pendingAcquireTimeout)
+                .maxIdleTime(maxIdleTime)
+                .evictInBackground(maxIdleTime)
+                .build();
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) connectTimeout.toMillis())
+                .responseTimeout(readTimeout);
+        return webClientBuilder
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .build();
+    }
+}
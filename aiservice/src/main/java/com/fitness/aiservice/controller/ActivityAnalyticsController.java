@@ -0,0 +1,32 @@
+package com.fitness.aiservice.controller;
+
+import com.fitness.aiservice.analytics.ActivityAnalyticsService;
+import com.fitness.aiservice.dto.UserActivityAnalytics;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("api/ai/activityanalytics")
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "analytics.streams.enabled", havingValue = "true")
+public class ActivityAnalyticsController {
+
+    private final ActivityAnalyticsService activityAnalyticsService;
+
+    /**
+     * Rolling 7/30-day load for the user, fetched from the instance whose state store holds them when that is
+     * not this one.
+     */
+    @GetMapping("getuseranalytics/{userId}")
+    public ResponseEntity<UserActivityAnalytics> getUserAnalytics(
+            @PathVariable String userId,
+            @RequestHeader(name = ActivityAnalyticsService.FORWARDED_HEADER, defaultValue = "false") boolean forwarded) {
+        return ResponseEntity.ok(activityAnalyticsService.getUserAnalytics(userId, forwarded));
+    }
+}
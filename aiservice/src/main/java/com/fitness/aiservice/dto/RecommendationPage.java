@@ -0,0 +1,17 @@
+package com.fitness.aiservice.dto;
+
+import com.fitness.aiservice.models.Recommendation;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * One page of a user's recommendations, newest first. {@code nextCursor} is null on the last page.
+ */
+@Data
+@AllArgsConstructor
+public class RecommendationPage {
+    private List<Recommendation> items;
+    private String nextCursor;
+}
@@ -0,0 +1,32 @@
+package com.fitness.aiservice.dto;
+
+import com.fitness.aiservice.analytics.ActivityLoad;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * A user's rolling training load. {@code calorieTrendPercent} compares the last 7 days with the 7 days before
+ * them and is null when there is nothing to compare against.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class UserActivityAnalytics {
+    private String userId;
+    private ActivityLoad last7Days;
+    private ActivityLoad last30Days;
+    private List<DailyCalories> dailyCalories;
+    private Double calorieTrendPercent;
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class DailyCalories {
+        private LocalDate date;
+        private long calories;
+    }
+}
@@ -1,5 +1,6 @@
 package com.fitness.aiservice.models;
 
+import com.fitness.common.model.ActivityMetrics;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -11,7 +12,6 @@ import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.Field;
 
 import java.time.LocalDateTime;
-import java.util.Map;
 
 @Document(collection = "activities")
 @Data
@@ -27,7 +27,7 @@ public class Activity {
     private Integer caloriesBurned;
     private LocalDateTime startTime;
     @Field("metrics")
-    private Map<String, Object> additionalMetrics;
+    private ActivityMetrics additionalMetrics;
     @CreatedDate
     private LocalDateTime createdAt;
     @LastModifiedDate
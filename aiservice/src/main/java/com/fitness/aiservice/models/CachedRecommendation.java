@@ -0,0 +1,30 @@
+package com.fitness.aiservice.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Parsed Gemini answer stored under the SHA-256 of the normalized prompt that produced it. Expired by a TTL
+ * index on {@code createdAt}.
+ */
+@Document(collection = "recommendation_cache")
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class CachedRecommendation {
+    @Id
+    private String promptHash;
+    private String recommendation;
+    private List<String> improvement;
+    private List<String> suggestion;
+    private List<String> safety;
+    private LocalDateTime createdAt;
+}
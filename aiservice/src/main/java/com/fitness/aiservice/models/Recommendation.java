@@ -4,12 +4,14 @@ import lombok.Builder;
 import lombok.Data;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDateTime;
 import java.util.List;
 
 @Document(collection = "recommendation")
+@CompoundIndex(name = "user_created_id", def = "{'userId': 1, 'createdAt': -1, '_id': -1}")
 @Data
 @Builder
 public class Recommendation {
@@ -0,0 +1,212 @@
+package com.fitness.aiservice.serialization;
+
+import com.fitness.aiservice.models.Activity;
+import com.fitness.aiservice.models.ActivityType;
+import com.fitness.common.model.ActivityMetrics;
+import com.fitness.common.serialization.AvroSchemaRegistry;
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.io.BinaryDecoder;
+import org.apache.avro.io.DecoderFactory;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Reads activity-events written by activityservice's Avro serializer: the zero magic byte and 4-byte schema id
+ * select the writer schema in the {@link AvroSchemaRegistry}, and Avro schema resolution maps it onto the reader
+ * schema this class maps ({@value #READER_SCHEMA_ID_CONFIG}), so fields added or removed on either side are
+ * defaulted or skipped and unknown activity types become {@code OTHER}.
+ * The binary body is decoded in place from the record's byte array; records written with the reader schema itself
+ * skip resolution and are decoded field by field. Records that do not start with the magic byte are read as
+ * JSON, which lets consumers switch before producers do.
+ */
+public class ActivityAvroDeserializer implements Deserializer<Activity> {
+
+    public static final String REGISTRY_LOCATION_CONFIG = "avro.registry.location";
+    public static final String READER_SCHEMA_ID_CONFIG = "avro.reader.schema-id";
+    public static final int READER_SCHEMA_ID = 1;
+    static final byte MAGIC_BYTE = 0;
+    private static final int HEADER_LENGTH = 1 + Integer.BYTES;
+    private static final List<String> FIELDS = List.of("id", "userId", "activityType", "duration", "caloriesBurned",
+            "startTime", "metrics", "createdAt", "updatedAt");
+
+    // type headers are ignored, so no packages need to be trusted
+    private final JsonDeserializer<Activity> jsonDeserializer = new JsonDeserializer<>(Activity.class, false);
+    private final Map<Integer, GenericDatumReader<GenericRecord>> readers = new ConcurrentHashMap<>();
+    private AvroSchemaRegistry registry;
+    private Schema readerSchema;
+    private int readerSchemaId;
+    private boolean directRead;
+    private ActivityType[] activityTypes;
+
+    public ActivityAvroDeserializer() {
+    }
+
+    public ActivityAvroDeserializer(AvroSchemaRegistry registry, int readerSchemaId) {
+        init(registry, readerSchemaId);
+    }
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        Object location = configs.get(REGISTRY_LOCATION_CONFIG);
+        Object readerSchemaId = configs.get(READER_SCHEMA_ID_CONFIG);
+        init(AvroSchemaRegistry.at(location == null ? AvroSchemaRegistry.DEFAULT_LOCATION : location.toString()),
+                readerSchemaId == null ? READER_SCHEMA_ID : Integer.parseInt(readerSchemaId.toString()));
+    }
+
+    private void init(AvroSchemaRegistry registry, int readerSchemaId) {
+        this.registry = registry;
+        // decode strings straight into java.lang.String instead of Utf8 copies
+        this.readerSchema = new Schema.Parser().parse(registry.byId(readerSchemaId).toString());
+        useJavaStrings(readerSchema);
+        this.readerSchemaId = readerSchemaId;
+        this.directRead = readerSchema.getFields().stream().map(Schema.Field::name).toList().equals(FIELDS);
+        this.activityTypes = readerSchema.getField("activityType").schema().getTypes().get(1).getEnumSymbols().stream()
+                .map(ActivityType::valueOf)
+                .toArray(ActivityType[]::new);
+    }
+
+    @Override
+    public Activity deserialize(String topic, byte[] data) {
+        return deserialize(topic, null, data);
+    }
+
+    @Override
+    public Activity deserialize(String topic, Headers headers, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        if (data.length < HEADER_LENGTH || data[0] != MAGIC_BYTE) {
+            return headers == null ? jsonDeserializer.deserialize(topic, data) : jsonDeserializer.deserialize(topic, headers, data);
+        }
+        if (registry == null) {
+            init(AvroSchemaRegistry.at(AvroSchemaRegistry.DEFAULT_LOCATION), READER_SCHEMA_ID);
+        }
+        int schemaId = ByteBuffer.wrap(data, 1, Integer.BYTES).getInt();
+        try {
+            BinaryDecoder decoder = DecoderFactory.get().binaryDecoder(data, HEADER_LENGTH, data.length - HEADER_LENGTH, null);
+            if (directRead && schemaId == readerSchemaId) {
+                return readActivity(decoder);
+            }
+            GenericDatumReader<GenericRecord> reader = readers.computeIfAbsent(schemaId,
+                    id -> new GenericDatumReader<>(registry.byId(id), readerSchema));
+            return toActivity(reader.read(null, decoder));
+        } catch (IOException | RuntimeException e) {
+            throw new SerializationException("Failed to read Avro activity with schema id " + schemaId, e);
+        }
+    }
+
+    private static void useJavaStrings(Schema schema) {
+        switch (schema.getType()) {
+            case STRING -> GenericData.setStringType(schema, GenericData.StringType.String);
+            case MAP -> {
+                GenericData.setStringType(schema, GenericData.StringType.String);
+                useJavaStrings(schema.getValueType());
+            }
+            case UNION -> schema.getTypes().forEach(ActivityAvroDeserializer::useJavaStrings);
+            case RECORD -> schema.getFields().forEach(field -> useJavaStrings(field.schema()));
+            default -> {
+            }
+        }
+    }
+
+    private Activity readActivity(BinaryDecoder decoder) throws IOException {
+        Activity.ActivityBuilder activity = Activity.builder()
+                .id(readOptionalString(decoder))
+                .userId(readOptionalString(decoder));
+        if (decoder.readIndex() == 1) {
+            activity.activityType(activityTypes[decoder.readEnum()]);
+        }
+        activity.duration(readOptionalInt(decoder))
+                .caloriesBurned(readOptionalInt(decoder))
+                .startTime(readOptionalTimestamp(decoder));
+        ActivityMetrics metrics = new ActivityMetrics();
+        for (long count = decoder.readMapStart(); count != 0; count = decoder.mapNext()) {
+            for (long i = 0; i < count; i++) {
+                String key = decoder.readString();
+                ActivityMetrics.Metric metric = ActivityMetrics.Metric.byKey(key);
+                // branches of the metrics value union: ["null", "boolean", "int", "long", "double", "string"]
+                int branch = decoder.readIndex();
+                if (metric != null && branch >= 2 && branch <= 4) {
+                    metrics.set(metric, branch == 2 ? decoder.readInt() : branch == 3 ? decoder.readLong() : decoder.readDouble());
+                    continue;
+                }
+                Object value = switch (branch) {
+                    case 1 -> decoder.readBoolean();
+                    case 2 -> decoder.readInt();
+                    case 3 -> decoder.readLong();
+                    case 4 -> decoder.readDouble();
+                    case 5 -> decoder.readString();
+                    default -> null;
+                };
+                metrics.put(key, value);
+            }
+        }
+        return activity.additionalMetrics(metrics)
+                .createdAt(readOptionalTimestamp(decoder))
+                .updatedAt(readOptionalTimestamp(decoder))
+                .build();
+    }
+
+    private static String readOptionalString(BinaryDecoder decoder) throws IOException {
+        return decoder.readIndex() == 1 ? decoder.readString() : null;
+    }
+
+    private static Integer readOptionalInt(BinaryDecoder decoder) throws IOException {
+        return decoder.readIndex() == 1 ? decoder.readInt() : null;
+    }
+
+    private static LocalDateTime readOptionalTimestamp(BinaryDecoder decoder) throws IOException {
+        return decoder.readIndex() == 1 ? toDateTime(decoder.readLong()) : null;
+    }
+
+    private static Activity toActivity(GenericRecord record) {
+        Object activityType = record.get("activityType");
+        return Activity.builder()
+                .id(asString(record.get("id")))
+                .userId(asString(record.get("userId")))
+                .activityType(activityType == null ? null : ActivityType.valueOf(activityType.toString()))
+                .duration((Integer) record.get("duration"))
+                .caloriesBurned((Integer) record.get("caloriesBurned"))
+                .startTime(toDateTime(record.get("startTime")))
+                .additionalMetrics(toMetrics((Map<?, ?>) record.get("metrics")))
+                .createdAt(toDateTime(record.get("createdAt")))
+                .updatedAt(toDateTime(record.get("updatedAt")))
+                .build();
+    }
+
+    private static ActivityMetrics toMetrics(Map<?, ?> avroMetrics) {
+        ActivityMetrics metrics = new ActivityMetrics();
+        if (avroMetrics != null) {
+            avroMetrics.forEach((key, value) -> metrics.put(key.toString(),
+                    value instanceof CharSequence text ? text.toString() : value));
+        }
+        return metrics;
+    }
+
+    private static String asString(Object value) {
+        return value == null ? null : value.toString();
+    }
+
+    private static LocalDateTime toDateTime(Object millis) {
+        return millis == null ? null : LocalDateTime.ofInstant(Instant.ofEpochMilli((Long) millis), ZoneOffset.UTC);
+    }
+
+    @Override
+    public void close() {
+        jsonDeserializer.close();
+    }
+}
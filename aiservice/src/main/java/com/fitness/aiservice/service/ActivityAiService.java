@@ -1,7 +1,6 @@
 package com.fitness.aiservice.service;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fitness.aiservice.dto.AiAnalysis;
 import com.fitness.aiservice.models.Activity;
 import com.fitness.aiservice.models.Recommendation;
 import lombok.AllArgsConstructor;
@@ -12,6 +11,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
 
 @Service
 @Slf4j
@@ -19,55 +19,69 @@ import java.util.List;
 public class ActivityAiService {
 
     private final GeminiService geminiService;
+    private final RecommendationCacheService recommendationCacheService;
+    private final GeminiResponseParser geminiResponseParser;
 
     public Recommendation generateRecommendation(Activity activity) {
+        return generateRecommendation(activity, true);
+    }
+
+    /**
+     * Generates the recommendation for an activity. With {@code useCache} the answer for an identical
+     * normalized prompt is reused when present; pass {@code false} to always ask Gemini. The normalized prompt
+     * is only the cache key, Gemini is asked about the activity as recorded.
+     */
+    public Recommendation generateRecommendation(Activity activity, boolean useCache) {
         String prompt = createPromptForActivity(activity);
+        String cacheKey = createPromptForActivity(recommendationCacheService.normalize(activity));
+        boolean cacheable = useCache && recommendationCacheService.isEnabled();
+        if (cacheable) {
+            Optional<Recommendation> cached = recommendationCacheService.lookup(cacheKey, activity);
+            if (cached.isPresent()) {
+                log.info("Reusing cached recommendation for activity {}", activity.getId());
+                return cached.get();
+            }
+        }
         String aiResponse = geminiService.getRecommendations(prompt);
         log.info("RESPONSE FROM AI {} " + aiResponse);
-        return processAiResponse(activity, aiResponse);
-    }
-
-    private Recommendation processAiResponse(Activity activity, String aiResponse) {
-//        Recommendation recommendation=new Recommendation();
         try {
-            ObjectMapper mapper = new ObjectMapper();
-            JsonNode rootNode = mapper.readTree(aiResponse);
-            JsonNode textNode = rootNode.path("candidates")
-                    .get(0)
-                    .path("content")
-                    .get("parts")
-                    .get(0)
-                    .get("text");
-            String jsonContent = textNode.asText().replaceAll("```json\\n", "")
-                    .replaceAll("\\n", "")
-                    .trim();
-//            log.info("RESPONSE FROM CLEANED AI {} " + jsonContent);
-            JsonNode analysisJson = mapper.readTree(jsonContent);
-            JsonNode analysisNode = analysisJson.path("analysis");
-            StringBuilder fullAnalysis = new StringBuilder();
-            addAnalysisSection(fullAnalysis, analysisNode, "overall", "Overall");
-            addAnalysisSection(fullAnalysis, analysisNode, "pace", "Pace");
-            addAnalysisSection(fullAnalysis, analysisNode, "heartRate", "Heart Rate");
-            addAnalysisSection(fullAnalysis, analysisNode, "caloriesBurned", "Calories Burned");
-
-            List<String> improvements = extractImprovements(analysisJson.path("improvements"));
-            List<String> safety = extractSafety(analysisJson.path("safety"));
-            List<String> suggestions = extractSuggestions(analysisJson.path("suggestions"));
-
-            return Recommendation.builder()
-                    .userId(activity.getUserId())
-                    .activityId(activity.getId())
-                    .improvement(improvements)
-                    .recommendation(fullAnalysis.toString())
-                    .safety(safety)
-                    .suggestion(suggestions)
-                    .build();
+            Recommendation recommendation = processAiResponse(activity, aiResponse);
+            if (cacheable) {
+                recommendationCacheService.store(cacheKey, recommendation);
+            }
+            return recommendation;
+        } catch (AiResponseSchemaException e) {
+            log.warn("Using default recommendation for activity {}: {}", activity.getId(), e.getViolations());
+            return createDefaultRecommendation(activity);
         } catch (Exception e) {
-//            throw new RuntimeException(e);
+            log.error("Using default recommendation for activity {}", activity.getId(), e);
             return createDefaultRecommendation(activity);
         }
     }
 
+    Recommendation processAiResponse(Activity activity, String aiResponse) {
+        AiAnalysis aiAnalysis = geminiResponseParser.parse(aiResponse);
+        StringBuilder fullAnalysis = new StringBuilder();
+        AiAnalysis.Analysis analysis = aiAnalysis.getAnalysis();
+        addAnalysisSection(fullAnalysis, analysis.getOverall(), "Overall");
+        addAnalysisSection(fullAnalysis, analysis.getPace(), "Pace");
+        addAnalysisSection(fullAnalysis, analysis.getHeartRate(), "Heart Rate");
+        addAnalysisSection(fullAnalysis, analysis.getCaloriesBurned(), "Calories Burned");
+
+        List<String> improvements = extractImprovements(aiAnalysis.getImprovements());
+        List<String> safety = extractSafety(aiAnalysis.getSafety());
+        List<String> suggestions = extractSuggestions(aiAnalysis.getSuggestions());
+
+        return Recommendation.builder()
+                .userId(activity.getUserId())
+                .activityId(activity.getId())
+                .improvement(improvements)
+                .recommendation(fullAnalysis.toString())
+                .safety(safety)
+                .suggestion(suggestions)
+                .build();
+    }
+
     private Recommendation createDefaultRecommendation(Activity activity) {
         return Recommendation.builder()
                 .userId(activity.getUserId())
@@ -81,49 +95,35 @@ public class ActivityAiService {
                 .build();
     }
 
-    private List<String> extractSuggestions(JsonNode suggestionsNode) {
-        List<String> suggestions = new ArrayList<>();
-        if (suggestionsNode.isArray()) {
-            suggestionsNode.forEach(sugg -> {
-                String workout = sugg.path("workout").asText();
-                String description = sugg.path("description").asText();
-                suggestions.add(String.format("%s: %s", workout, description));
-            });
+    private List<String> extractSuggestions(List<AiAnalysis.Suggestion> suggestionList) {
+        List<String> suggestions = new ArrayList<>(suggestionList.size());
+        for (AiAnalysis.Suggestion sugg : suggestionList) {
+            suggestions.add(sugg.getWorkout() + ": " + sugg.getDescription());
         }
         return suggestions.isEmpty() ? Collections.singletonList("No Specific suggestions provided") : suggestions;
     }
 
-    private List<String> extractSafety(JsonNode safetyNode) {
-        List<String> safety = new ArrayList<>();
-        if (safetyNode.isArray()) {
-            safetyNode.forEach(item -> {
-                safety.add(item.asText());
-            });
-        }
+    private List<String> extractSafety(List<String> safety) {
         return safety.isEmpty() ? Collections.singletonList("No Specific safety provided") : safety;
     }
 
-    private List<String> extractImprovements(JsonNode improvementsNode) {
-        List<String> improvements = new ArrayList<>();
-        if (improvementsNode.isArray()) {
-            improvementsNode.forEach(imp -> {
-                String area = imp.path("area").asText();
-                String recommendation = imp.path("recommendation").asText();
-                improvements.add(String.format("%s: %s", area, recommendation));
-            });
+    private List<String> extractImprovements(List<AiAnalysis.Improvement> improvementList) {
+        List<String> improvements = new ArrayList<>(improvementList.size());
+        for (AiAnalysis.Improvement imp : improvementList) {
+            improvements.add(imp.getArea() + ": " + imp.getRecommendation());
         }
         return improvements.isEmpty() ? Collections.singletonList("No Specific improvements provided") : improvements;
     }
 
-    private void addAnalysisSection(StringBuilder fullAnalysis, JsonNode analysisNode, String key, String prefix) {
-        if (!analysisNode.path(key).isMissingNode()) {
+    private void addAnalysisSection(StringBuilder fullAnalysis, String section, String prefix) {
+        if (section != null) {
             fullAnalysis.append(prefix)
-                    .append(analysisNode.path(key).asText())
+                    .append(section)
                     .append("\n\n");
         }
     }
 
-    private String createPromptForActivity(Activity activity) {
+    String createPromptForActivity(Activity activity) {
         return String.format("""
                         Analyze this fitness activity and provide detailed recommendations in the following EXACT JSON format:
                         {
@@ -5,25 +5,95 @@ import com.fitness.aiservice.models.Recommendation;
 import com.fitness.aiservice.repository.RecommendationRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
 
 @Service
 @Slf4j
 @RequiredArgsConstructor
 public class ActivityMessageListener {
 
+    /**
+     * Producers set this record header to {@code true} to skip the recommendation cache for an activity.
+     */
+    public static final String CACHE_BYPASS_HEADER = "ai-cache-bypass";
+
 //    @Value("${kafka.topic.name}")
 //    private String topicName;
 
     private final ActivityAiService activityAiService;
     private final RecommendationRepository recommendationRepository;
+    private final RecommendationEventPublisher recommendationEventPublisher;
 
+    @Value("${kafka.listener.batch.max-in-flight:8}")
+    private int maxInFlight;
 
-    @KafkaListener(topics = "${kafka.topic.name}", groupId = "activity-processor-group")
-    public void processActivity(Activity activity) {
+    @KafkaListener(topics = "${kafka.topic.name}", groupId = "activity-processor-group",
+            autoStartup = "#{!${kafka.listener.batch.enabled:false}}")
+    public void processActivity(Activity activity,
+                                @Header(name = CACHE_BYPASS_HEADER, required = false) byte[] cacheBypass) {
         log.info("Received Activity for processing: {} " + activity.getUserId());
-        Recommendation recommendation = activityAiService.generateRecommendation(activity);
-        recommendationRepository.save(recommendation);
+        Recommendation recommendation = activityAiService.generateRecommendation(activity, !isSet(cacheBypass));
+        recommendationEventPublisher.recommendationStored(recommendationRepository.save(recommendation));
+    }
+
+    /**
+     * Batch mode, enabled with {@code kafka.listener.batch.enabled}. Recommendations for the batch are generated
+     * in parallel with at most {@code kafka.listener.batch.max-in-flight} Gemini calls at a time and saved with
+     * one bulk insert. When an activity fails, only the recommendations before it are saved and the listener
+     * throws {@link BatchListenerFailedException} with its index: the error handler commits the offsets before
+     * it and redelivers the rest, so a failed activity is retried instead of being committed unprocessed.
+     */
+    @KafkaListener(topics = "${kafka.topic.name}", groupId = "activity-processor-group",
+            containerFactory = "batchKafkaListenerContainerFactory",
+            autoStartup = "${kafka.listener.batch.enabled:false}")
+    public void processActivities(List<ConsumerRecord<String, Activity>> records) {
+        log.info("Received {} activities for processing", records.size());
+        Recommendation[] recommendations = new Recommendation[records.size()];
+        Throwable[] failures = new Throwable[records.size()];
+        Flux.range(0, records.size())
+                .flatMap(i -> Mono.fromCallable(() -> activityAiService.generateRecommendation(records.get(i).value(),
+                                !isSet(headerValue(records.get(i), CACHE_BYPASS_HEADER))))
+                        .subscribeOn(Schedulers.boundedElastic())
+                        .doOnNext(recommendation -> recommendations[i] = recommendation)
+                        .onErrorResume(e -> {
+                            failures[i] = e;
+                            return Mono.empty();
+                        }), maxInFlight)
+                .blockLast();
+
+        int firstFailed = 0;
+        while (firstFailed < records.size() && failures[firstFailed] == null) {
+            firstFailed++;
+        }
+        if (firstFailed > 0) {
+            // all recommendations are new documents, so saveAll issues a single insertMany
+            recommendationEventPublisher.recommendationsStored(
+                    recommendationRepository.saveAll(Arrays.asList(recommendations).subList(0, firstFailed)));
+        }
+        if (firstFailed < records.size()) {
+            throw new BatchListenerFailedException("Failed to generate recommendation for activity "
+                    + records.get(firstFailed).value().getId(), failures[firstFailed], firstFailed);
+        }
+    }
+
+    private static byte[] headerValue(ConsumerRecord<String, Activity> record, String name) {
+        org.apache.kafka.common.header.Header header = record.headers().lastHeader(name);
+        return header == null ? null : header.value();
+    }
+
+    private static boolean isSet(byte[] flag) {
+        return flag != null && Boolean.parseBoolean(new String(flag, StandardCharsets.UTF_8));
     }
 }
@@ -0,0 +1,24 @@
+package com.fitness.aiservice.service;
+
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Thrown when a Gemini response does not have the shape the prompt asked for.
+ */
+@Getter
+public class AiResponseSchemaException extends RuntimeException {
+
+    private final List<String> violations;
+
+    public AiResponseSchemaException(List<String> violations) {
+        super("Gemini response violates the expected schema: " + String.join("; ", violations));
+        this.violations = violations;
+    }
+
+    public AiResponseSchemaException(String violation, Throwable cause) {
+        super("Gemini response violates the expected schema: " + violation, cause);
+        this.violations = List.of(violation);
+    }
+}
@@ -0,0 +1,149 @@
+package com.fitness.aiservice.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.json.JsonReadFeature;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fitness.aiservice.dto.AiAnalysis;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Parses Gemini {@code generateContent} responses. The envelope is walked with a streaming {@link JsonParser}
+ * straight to {@code candidates[0].content.parts[0].text} without building a tree, and the text is bound to
+ * {@link AiAnalysis} with a reader derived from the shared {@link ObjectMapper}.
+ */
+@Component
+public class GeminiResponseParser {
+
+    private static final String CODE_FENCE = "```";
+
+    private final JsonFactory jsonFactory;
+    private final ObjectReader analysisReader;
+    private final Counter schemaViolations;
+
+    public GeminiResponseParser(ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.jsonFactory = objectMapper.getFactory();
+        this.analysisReader = objectMapper.readerFor(AiAnalysis.class)
+                .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                .with(JsonReadFeature.ALLOW_UNESCAPED_CONTROL_CHARS);
+        this.schemaViolations = Counter.builder("ai.response.schema.violations")
+                .description("Gemini responses that did not match the expected JSON format")
+                .register(meterRegistry);
+    }
+
+    public AiAnalysis parse(String response) {
+        try {
+            String text = extractText(response);
+            AiAnalysis analysis;
+            try {
+                analysis = analysisReader.readValue(stripCodeFence(text));
+            } catch (JsonProcessingException e) {
+                throw new AiResponseSchemaException("text is not the requested JSON document: " + e.getOriginalMessage(), e);
+            }
+            validate(analysis);
+            return analysis;
+        } catch (AiResponseSchemaException e) {
+            schemaViolations.increment();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns {@code candidates[0].content.parts[0].text} of a Gemini response.
+     */
+    public String extractText(String response) {
+        if (response == null) {
+            throw new AiResponseSchemaException(List.of("empty response"));
+        }
+        try (JsonParser parser = jsonFactory.createParser(response)) {
+            if (parser.nextToken() == JsonToken.START_OBJECT
+                    && seekField(parser, "candidates") && enterFirstObject(parser)
+                    && seekField(parser, "content") && parser.currentToken() == JsonToken.START_OBJECT
+                    && seekField(parser, "parts") && enterFirstObject(parser)
+                    && seekField(parser, "text") && parser.currentToken() == JsonToken.VALUE_STRING) {
+                return parser.getText();
+            }
+        } catch (IOException e) {
+            throw new AiResponseSchemaException("response is not valid JSON: " + e.getMessage(), e);
+        }
+        throw new AiResponseSchemaException(List.of("candidates[0].content.parts[0].text is missing"));
+    }
+
+    /**
+     * Removes a surrounding markdown code fence such as {@code ```json ... ```}, if present.
+     */
+    public static String stripCodeFence(String text) {
+        int start = 0;
+        int end = text.length();
+        while (start < end && Character.isWhitespace(text.charAt(start))) {
+            start++;
+        }
+        while (end > start && Character.isWhitespace(text.charAt(end - 1))) {
+            end--;
+        }
+        if (text.startsWith(CODE_FENCE, start)) {
+            int lineEnd = text.indexOf('\n', start);
+            start = lineEnd < 0 ? start + CODE_FENCE.length() : lineEnd + 1;
+            if (end - start >= CODE_FENCE.length() && text.startsWith(CODE_FENCE, end - CODE_FENCE.length())) {
+                end -= CODE_FENCE.length();
+            }
+            while (end > start && Character.isWhitespace(text.charAt(end - 1))) {
+                end--;
+            }
+        }
+        return text.substring(start, end);
+    }
+
+    /**
+     * Advances within the current object until the value of {@code name} is the current token, skipping
+     * the values of all other fields.
+     */
+    private static boolean seekField(JsonParser parser, String name) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            boolean found = name.equals(parser.currentName());
+            parser.nextToken();
+            if (found) {
+                return true;
+            }
+            parser.skipChildren();
+        }
+        return false;
+    }
+
+    private static boolean enterFirstObject(JsonParser parser) throws IOException {
+        return parser.currentToken() == JsonToken.START_ARRAY && parser.nextToken() == JsonToken.START_OBJECT;
+    }
+
+    private static void validate(AiAnalysis analysis) {
+        List<String> violations = new ArrayList<>();
+        if (analysis == null) {
+            violations.add("document is empty");
+        } else {
+            if (analysis.getAnalysis() == null) {
+                violations.add("analysis is missing");
+            }
+            if (analysis.getImprovements() == null) {
+                violations.add("improvements is missing");
+            }
+            if (analysis.getSuggestions() == null) {
+                violations.add("suggestions is missing");
+            }
+            if (analysis.getSafety() == null) {
+                violations.add("safety is missing");
+            }
+        }
+        if (!violations.isEmpty()) {
+            throw new AiResponseSchemaException(violations);
+        }
+    }
+}
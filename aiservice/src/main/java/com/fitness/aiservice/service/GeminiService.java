@@ -1,40 +1,84 @@
 package com.fitness.aiservice.service;
 
+import com.fitness.common.resilience.ResilientCalls;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
 
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Calls Gemini's generateContent through the {@code gemini} resilience instances. Their bulkhead caps the calls in
+ * flight and lets callers beyond that wait up to its {@code max-wait-duration} for a slot; the call is never
+ * retried since every attempt is billed.
+ */
 @Service
 public class GeminiService {
 
+    static final String GEMINI = "gemini";
+
     private final WebClient webClient;
-    @Value("${gemini.Api.Url}")
-    private String geminiApiUrl;
-    @Value("${gemini.Api.Key}")
-    private String geminiApiKey;
+    private final ResilientCalls resilientCalls;
+    private final String geminiApiUrl;
+    private final String geminiApiKey;
+    private final MeterRegistry meterRegistry;
 
-    public GeminiService(WebClient.Builder webClientBuilder) {
-        this.webClient = webClientBuilder.build();
+    public GeminiService(WebClient geminiWebClient,
+                         ResilientCalls resilientCalls,
+                         MeterRegistry meterRegistry,
+                         @Value("${gemini.Api.Url}") String geminiApiUrl,
+                         @Value("${gemini.Api.Key}") String geminiApiKey) {
+        this.webClient = geminiWebClient;
+        this.resilientCalls = resilientCalls;
+        this.meterRegistry = meterRegistry;
+        this.geminiApiUrl = geminiApiUrl;
+        this.geminiApiKey = geminiApiKey;
     }
 
     public String getRecommendations(String details) {
+        return getRecommendationsAsync(details).block();
+    }
+
+    /**
+     * Non-blocking variant of {@link #getRecommendations(String)}.
+     */
+    public Mono<String> getRecommendationsAsync(String details) {
         Map<String, Object> requestBody = Map.of(
-                "contents", new Object[]{
-                        Map.of("parts", new Object[]{
+                "contents", List.of(
+                        Map.of("parts", List.of(
                                 Map.of("text", details)
-                        })
-                }
+                        ))
+                )
         );
-        String response = webClient.post()
-                .uri(geminiApiUrl)
-                .header("Content-Type", "application/json")
-                .header("x-goog-api-key", geminiApiKey)
-                .bodyValue(requestBody)
-                .retrieve()
-                .bodyToMono(String.class)
-                .block();
-        return response;
+        Mono<String> call = Mono.defer(() -> {
+            long start = System.nanoTime();
+            return webClient.post()
+                    .uri(geminiApiUrl)
+                    .header("Content-Type", "application/json")
+                    .header("x-goog-api-key", geminiApiKey)
+                    .bodyValue(requestBody)
+                    .retrieve()
+                    .bodyToMono(String.class)
+                    .doOnSuccess(response -> recordLatency(start, "success"))
+                    .doOnError(e -> recordLatency(start, "error"))
+                    .doOnCancel(() -> recordLatency(start, "cancelled"));
+        });
+        return resilientCalls.call(GEMINI, call)
+                .onErrorMap(BulkheadFullException.class, e -> new RuntimeException("Too many concurrent Gemini requests", e));
+    }
+
+    private void recordLatency(long start, String outcome) {
+        Timer.builder("gemini.request.latency")
+                .description("Latency of Gemini generateContent calls")
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
     }
 }
@@ -0,0 +1,209 @@
+package com.fitness.aiservice.service;
+
+import com.fitness.aiservice.models.Activity;
+import com.fitness.aiservice.models.CachedRecommendation;
+import com.fitness.aiservice.models.Recommendation;
+import com.fitness.common.model.ActivityMetrics;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.TreeMap;
+
+/**
+ * Content-addressed cache of Gemini answers. Entries are keyed by the SHA-256 of the normalized prompt and
+ * looked up in an in-process LRU first and in the {@code recommendation_cache} collection second. With
+ * {@code ai.cache.bucketing.enabled} numeric activity fields are rounded before the key is built so that
+ * near-identical sessions share one entry; the prompt sent to Gemini keeps the exact values.
+ */
+@Service
+@Slf4j
+public class RecommendationCacheService {
+
+    private final MongoTemplate mongoTemplate;
+    private final boolean enabled;
+    private final Duration ttl;
+    private final boolean bucketingEnabled;
+    private final int durationBucketMinutes;
+    private final int caloriesBucket;
+    private final MathContext metricPrecision;
+    private final Cache<String, CachedRecommendation> memoryCache;
+    private final Counter memoryHits;
+    private final Counter mongoHits;
+    private final Counter misses;
+
+    public RecommendationCacheService(MongoTemplate mongoTemplate,
+                                      MeterRegistry meterRegistry,
+                                      @Value("${ai.cache.enabled:true}") boolean enabled,
+                                      @Value("${ai.cache.ttl:7d}") Duration ttl,
+                                      @Value("${ai.cache.memory.max-size:10000}") long memoryMaxSize,
+                                      @Value("${ai.cache.bucketing.enabled:false}") boolean bucketingEnabled,
+                                      @Value("${ai.cache.bucketing.duration-minutes:5}") int durationBucketMinutes,
+                                      @Value("${ai.cache.bucketing.calories:25}") int caloriesBucket,
+                                      @Value("${ai.cache.bucketing.metric-significant-digits:2}") int metricSignificantDigits) {
+        this.mongoTemplate = mongoTemplate;
+        this.enabled = enabled;
+        this.ttl = ttl;
+        this.bucketingEnabled = bucketingEnabled;
+        this.durationBucketMinutes = durationBucketMinutes;
+        this.caloriesBucket = caloriesBucket;
+        this.metricPrecision = new MathContext(metricSignificantDigits);
+        this.memoryCache = Caffeine.newBuilder()
+                .maximumSize(memoryMaxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, memoryCache, "recommendation-memory");
+        this.memoryHits = Counter.builder("ai.recommendation.cache.requests").tag("result", "hit").tag("tier", "memory").register(meterRegistry);
+        this.mongoHits = Counter.builder("ai.recommendation.cache.requests").tag("result", "hit").tag("tier", "mongo").register(meterRegistry);
+        this.misses = Counter.builder("ai.recommendation.cache.requests").tag("result", "miss").tag("tier", "none").register(meterRegistry);
+        Gauge.builder("ai.recommendation.cache.hit.ratio", this, RecommendationCacheService::hitRatio)
+                .description("Share of cache lookups answered from either tier")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void initTtlIndex() {
+        if (enabled) {
+            mongoTemplate.indexOps(CachedRecommendation.class)
+                    .createIndex(new Index().on("createdAt", Sort.Direction.ASC).named("created_at_ttl").expire(ttl));
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Returns the copy of the activity the cache key is built from: metrics in a stable order and, with bucketing,
+     * duration, calories and numeric metrics rounded.
+     */
+    public Activity normalize(Activity activity) {
+        ActivityMetrics metrics = null;
+        ActivityMetrics source = activity.getAdditionalMetrics();
+        if (source != null) {
+            ActivityMetrics normalized = new ActivityMetrics();
+            for (ActivityMetrics.Metric metric : ActivityMetrics.Metric.values()) {
+                if (source.has(metric)) {
+                    normalized.set(metric, bucketingEnabled ? roundMetric(source.get(metric)) : source.get(metric));
+                }
+            }
+            // known metrics always print in declaration order, the rest are sorted by key
+            new TreeMap<>(source.getOther()).forEach((key, value) ->
+                    normalized.put(key, bucketingEnabled ? roundMetric(value) : value));
+            metrics = normalized;
+        }
+        return Activity.builder()
+                .id(activity.getId())
+                .userId(activity.getUserId())
+                .activityType(activity.getActivityType())
+                .duration(bucketingEnabled ? roundToBucket(activity.getDuration(), durationBucketMinutes) : activity.getDuration())
+                .caloriesBurned(bucketingEnabled ? roundToBucket(activity.getCaloriesBurned(), caloriesBucket) : activity.getCaloriesBurned())
+                .startTime(activity.getStartTime())
+                .additionalMetrics(metrics)
+                .createdAt(activity.getCreatedAt())
+                .updatedAt(activity.getUpdatedAt())
+                .build();
+    }
+
+    public Optional<Recommendation> lookup(String prompt, Activity activity) {
+        String promptHash = hash(prompt);
+        CachedRecommendation cached = memoryCache.getIfPresent(promptHash);
+        if (cached != null) {
+            memoryHits.increment();
+            return Optional.of(toRecommendation(cached, activity));
+        }
+        cached = mongoTemplate.findById(promptHash, CachedRecommendation.class);
+        if (cached != null && cached.getCreatedAt() != null && cached.getCreatedAt().plus(ttl).isAfter(LocalDateTime.now())) {
+            mongoHits.increment();
+            memoryCache.put(promptHash, cached);
+            return Optional.of(toRecommendation(cached, activity));
+        }
+        misses.increment();
+        return Optional.empty();
+    }
+
+    public void store(String prompt, Recommendation recommendation) {
+        CachedRecommendation cached = CachedRecommendation.builder()
+                .promptHash(hash(prompt))
+                .recommendation(recommendation.getRecommendation())
+                .improvement(recommendation.getImprovement())
+                .suggestion(recommendation.getSuggestion())
+                .safety(recommendation.getSafety())
+                .createdAt(LocalDateTime.now())
+                .build();
+        memoryCache.put(cached.getPromptHash(), cached);
+        try {
+            mongoTemplate.save(cached);
+        } catch (Exception e) {
+            log.warn("Failed to store recommendation {} in the shared cache", cached.getPromptHash(), e);
+        }
+    }
+
+    private Recommendation toRecommendation(CachedRecommendation cached, Activity activity) {
+        return Recommendation.builder()
+                .userId(activity.getUserId())
+                .activityId(activity.getId())
+                .recommendation(cached.getRecommendation())
+                .improvement(cached.getImprovement())
+                .suggestion(cached.getSuggestion())
+                .safety(cached.getSafety())
+                .build();
+    }
+
+    private double hitRatio() {
+        double hits = memoryHits.count() + mongoHits.count();
+        double total = hits + misses.count();
+        return total == 0 ? 0 : hits / total;
+    }
+
+    private static Integer roundToBucket(Integer value, int bucket) {
+        if (value == null || bucket <= 1) {
+            return value;
+        }
+        return Math.round((float) value / bucket) * bucket;
+    }
+
+    private double roundMetric(double value) {
+        return new BigDecimal(Double.toString(value)).round(metricPrecision).doubleValue();
+    }
+
+    private Object roundMetric(Object value) {
+        if (!(value instanceof Number)) {
+            return value;
+        }
+        try {
+            return new BigDecimal(value.toString()).round(metricPrecision).stripTrailingZeros().toPlainString();
+        } catch (NumberFormatException e) {
+            return value;
+        }
+    }
+
+    private static String hash(String prompt) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(prompt.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
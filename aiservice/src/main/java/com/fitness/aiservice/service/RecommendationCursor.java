@@ -0,0 +1,37 @@
+package com.fitness.aiservice.service;
+
+import com.fitness.aiservice.models.Recommendation;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * Position after the last recommendation of a page, in (createdAt, id) order; createdAt is null for
+ * recommendations saved without one. Clients get it as an opaque base64url token.
+ */
+record RecommendationCursor(LocalDateTime createdAt, String id) {
+
+    static RecommendationCursor after(Recommendation recommendation) {
+        return new RecommendationCursor(recommendation.getCreatedAt(), recommendation.getId());
+    }
+
+    String encode() {
+        String raw = (createdAt == null ? "" : createdAt.toString()) + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static RecommendationCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.indexOf('|');
+            String createdAt = raw.substring(0, separator);
+            return new RecommendationCursor(createdAt.isEmpty() ? null : LocalDateTime.parse(createdAt),
+                    raw.substring(separator + 1));
+        } catch (RuntimeException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor: " + token);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.fitness.aiservice.service;
+
+import com.fitness.aiservice.models.Recommendation;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+
+/**
+ * Announces stored recommendations on {@code recommendation.events.topic}, keyed by user id, so readers that
+ * cache recommendation responses (the gateway) can drop that user's entries. Publishing is best effort: a
+ * lost event only means a cached response lives until its TTL.
+ */
+@Service
+@Slf4j
+public class RecommendationEventPublisher {
+
+    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final String topicName;
+
+    public RecommendationEventPublisher(KafkaTemplate<String, String> kafkaTemplate,
+                                        @Value("${recommendation.events.topic:recommendation-events}") String topicName) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.topicName = topicName;
+    }
+
+    public void recommendationsStored(Collection<Recommendation> recommendations) {
+        recommendations.forEach(this::recommendationStored);
+    }
+
+    public void recommendationStored(Recommendation recommendation) {
+        if (recommendation.getUserId() == null) {
+            return;
+        }
+        try {
+            kafkaTemplate.send(topicName, recommendation.getUserId(), recommendation.getActivityId())
+                    .whenComplete((result, e) -> {
+                        if (e != null) {
+                            log.warn("Failed to publish recommendation event for user {}", recommendation.getUserId(), e);
+                        }
+                    });
+        } catch (Exception e) {
+            log.warn("Failed to publish recommendation event for user {}", recommendation.getUserId(), e);
+        }
+    }
+}
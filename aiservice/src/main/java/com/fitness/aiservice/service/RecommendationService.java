@@ -1,17 +1,32 @@
 package com.fitness.aiservice.service;
 
+import com.fitness.aiservice.dto.RecommendationPage;
 import com.fitness.aiservice.models.Recommendation;
 import com.fitness.aiservice.repository.RecommendationRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 public class RecommendationService {
 
     private final RecommendationRepository recommendationRepository;
+    private final MongoTemplate mongoTemplate;
+
+    @Value("${ai.recommendation.page.default-size:20}")
+    private int defaultPageSize;
+
+    @Value("${ai.recommendation.page.max-size:100}")
+    private int maxPageSize;
 
     public List<Recommendation> getUserRecommendation(String userId) {
         return recommendationRepository.findByUserId(userId);
@@ -20,4 +35,49 @@ public class RecommendationService {
     public Recommendation getActivityRecommendation(String activityId) {
         return recommendationRepository.findByActivityId(activityId).orElseThrow(() -> new RuntimeException("No recommendation found for this activity: " + activityId));
     }
+
+    /**
+     * Returns the user's recommendations newest first, one page at a time, without the full recommendation text
+     * and its improvement, suggestion and safety lists.
+     * Pages are keyset based: {@code cursor} is the {@code nextCursor} of the previous page, so every page is an
+     * index range scan on (userId, createdAt, _id) however deep the client reads.
+     */
+    public RecommendationPage getUserRecommendationPage(String userId, String cursor, Integer size) {
+        int pageSize = size == null || size < 1 ? defaultPageSize : Math.min(size, maxPageSize);
+        Query query = summaryQuery(userId, cursor == null ? null : RecommendationCursor.decode(cursor))
+                .limit(pageSize + 1);
+        List<Recommendation> items = mongoTemplate.find(query, Recommendation.class);
+        if (items.size() <= pageSize) {
+            return new RecommendationPage(items, null);
+        }
+        items = items.subList(0, pageSize);
+        return new RecommendationPage(items, RecommendationCursor.after(items.get(pageSize - 1)).encode());
+    }
+
+    /**
+     * Hands the user's recommendation summaries, newest first, to {@code consumer} straight from a Mongo cursor.
+     */
+    public void streamUserRecommendations(String userId, Consumer<Recommendation> consumer) {
+        try (Stream<Recommendation> recommendations = mongoTemplate.stream(summaryQuery(userId, null), Recommendation.class)) {
+            recommendations.forEach(consumer);
+        }
+    }
+
+    private static Query summaryQuery(String userId, RecommendationCursor after) {
+        Criteria criteria = Criteria.where("userId").is(userId);
+        if (after != null) {
+            // Mongo sorts a missing createdAt after every date when descending, and lt on a date never matches it
+            Criteria tieBreak = Criteria.where("createdAt").is(after.createdAt()).and("id").lt(after.id());
+            criteria = after.createdAt() == null
+                    ? criteria.andOperator(tieBreak)
+                    : criteria.orOperator(
+                            Criteria.where("createdAt").lt(after.createdAt()),
+                            tieBreak,
+                            Criteria.where("createdAt").is(null));
+        }
+        Query query = new Query(criteria)
+                .with(Sort.by(Sort.Direction.DESC, "createdAt", "id"));
+        query.fields().exclude("recommendation", "improvement", "suggestion", "safety");
+        return query;
+    }
 }
@@ -0,0 +1,76 @@
+package com.fitness.aiservice.analytics;
+
+import com.fitness.aiservice.dto.UserActivityAnalytics;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.kafka.streams.state.HostInfo;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ActivityAnalyticsServiceTests {
+
+    private HttpServer owner;
+    private final AtomicReference<String> forwardedHeader = new AtomicReference<>();
+    private ActivityAnalyticsService activityAnalyticsService;
+
+    @BeforeEach
+    void startOwner() throws IOException {
+        owner = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        owner.createContext("/api/ai/activityanalytics/getuseranalytics/", exchange -> {
+            forwardedHeader.set(exchange.getRequestHeaders().getFirst(ActivityAnalyticsService.FORWARDED_HEADER));
+            boolean known = exchange.getRequestURI().getPath().endsWith("/user-1");
+            byte[] body = (known ? """
+                    {"userId":"user-1","last7Days":{"sessions":2,"totalDuration":90,"totalCalories":700},
+                     "dailyCalories":[{"date":"2025-01-01","calories":700}],"calorieTrendPercent":12.5}
+                    """ : "{}").getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(known ? 200 : 503, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        owner.start();
+        activityAnalyticsService = new ActivityAnalyticsService(null, WebClient.builder(), "", Duration.ofSeconds(5));
+    }
+
+    @AfterEach
+    void stopOwner() {
+        owner.stop(0);
+    }
+
+    @Test
+    void fetchesAnotherInstancesUsersAndMarksTheRequestForwarded() {
+        UserActivityAnalytics analytics = activityAnalyticsService.fetchFrom(hostInfo(), "user-1");
+
+        assertThat(forwardedHeader.get()).isEqualTo("true");
+        assertThat(analytics.getUserId()).isEqualTo("user-1");
+        assertThat(analytics.getLast7Days().getTotalCalories()).isEqualTo(700);
+        assertThat(analytics.getDailyCalories()).singleElement()
+                .satisfies(day -> assertThat(day.getDate()).isEqualTo(LocalDate.of(2025, 1, 1)));
+        assertThat(analytics.getCalorieTrendPercent()).isEqualTo(12.5);
+    }
+
+    @Test
+    void passesOnTheOwnersErrorStatus() {
+        assertThatThrownBy(() -> activityAnalyticsService.fetchFrom(hostInfo(), "user-2"))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode().value()).isEqualTo(503));
+    }
+
+    private HostInfo hostInfo() {
+        return new HostInfo("localhost", owner.getAddress().getPort());
+    }
+}
@@ -0,0 +1,94 @@
+package com.fitness.aiservice.analytics;
+
+import com.fitness.aiservice.dto.UserActivityAnalytics;
+import com.fitness.aiservice.models.Activity;
+import com.fitness.aiservice.models.ActivityType;
+import com.fitness.aiservice.serialization.ActivityAvroDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.apache.kafka.streams.StreamsBuilder;
+import org.apache.kafka.streams.TestInputTopic;
+import org.apache.kafka.streams.TopologyTestDriver;
+import org.apache.kafka.streams.state.WindowStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Properties;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ActivityAnalyticsTopologyTests {
+
+    private static final String TOPIC = "activity-events";
+    private static final LocalDate TODAY = LocalDate.of(2025, 3, 31);
+
+    private TopologyTestDriver driver;
+    private TestInputTopic<String, Activity> activities;
+
+    @BeforeEach
+    void setUp() {
+        StreamsBuilder builder = new StreamsBuilder();
+        ActivityAnalyticsTopology.build(builder, TOPIC, Duration.ofDays(7), new ActivityAvroDeserializer());
+        Properties properties = new Properties();
+        properties.put("application.id", "analytics-test");
+        properties.put("bootstrap.servers", "dummy:9092");
+        driver = new TopologyTestDriver(builder.build(), properties);
+        activities = driver.createInputTopic(TOPIC, new StringSerializer(), new JsonSerializer<Activity>().noTypeInfo());
+    }
+
+    @AfterEach
+    void tearDown() {
+        driver.close();
+    }
+
+    @Test
+    void aggregatesDailyLoadPerUserByStartTime() {
+        publish("user-1", ActivityType.RUNNING, TODAY, 30, 300);
+        publish("user-1", ActivityType.CYCLING, TODAY, 60, 500);
+        publish("user-2", ActivityType.RUNNING, TODAY, 10, 100);
+
+        WindowStore<String, ActivityLoad> store = driver.getWindowStore(ActivityAnalyticsTopology.DAILY_LOAD_STORE);
+        UserActivityAnalytics analytics = ActivityAnalyticsService.summarize(store, "user-1", TODAY);
+
+        assertThat(analytics.getLast7Days().getSessions()).isEqualTo(2);
+        assertThat(analytics.getLast7Days().getTotalDuration()).isEqualTo(90);
+        assertThat(analytics.getLast7Days().getSessionsByType())
+                .containsEntry(ActivityType.RUNNING, 1L)
+                .containsEntry(ActivityType.CYCLING, 1L);
+        assertThat(analytics.getDailyCalories()).hasSize(30);
+        assertThat(analytics.getDailyCalories().get(29)).isEqualTo(new UserActivityAnalytics.DailyCalories(TODAY, 800));
+    }
+
+    @Test
+    void rollsSevenAndThirtyDayWindowsAndCalorieTrend() {
+        publish("user-1", ActivityType.RUNNING, TODAY.minusDays(40), 30, 999);
+        publish("user-1", ActivityType.RUNNING, TODAY.minusDays(20), 30, 300);
+        publish("user-1", ActivityType.RUNNING, TODAY.minusDays(10), 30, 200);
+        publish("user-1", ActivityType.SWIMMING, TODAY.minusDays(2), 40, 300);
+        // arrives late but within the grace period, so it still lands on its own day
+        publish("user-1", ActivityType.YOGA, TODAY.minusDays(3), 50, 100);
+
+        UserActivityAnalytics analytics = ActivityAnalyticsService.summarize(
+                driver.getWindowStore(ActivityAnalyticsTopology.DAILY_LOAD_STORE), "user-1", TODAY);
+
+        assertThat(analytics.getLast30Days().getSessions()).isEqualTo(4);
+        assertThat(analytics.getLast30Days().getTotalCalories()).isEqualTo(900);
+        assertThat(analytics.getLast7Days().getSessions()).isEqualTo(2);
+        assertThat(analytics.getLast7Days().getTotalCalories()).isEqualTo(400);
+        assertThat(analytics.getCalorieTrendPercent()).isEqualTo(100.0);
+    }
+
+    private void publish(String userId, ActivityType type, LocalDate day, int duration, int calories) {
+        Activity activity = Activity.builder()
+                .userId(userId)
+                .activityType(type)
+                .duration(duration)
+                .caloriesBurned(calories)
+                .startTime(day.atTime(8, 0))
+                .build();
+        activities.pipeInput(userId, activity);
+    }
+}
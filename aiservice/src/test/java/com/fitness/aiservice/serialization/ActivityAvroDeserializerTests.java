@@ -0,0 +1,103 @@
+package com.fitness.aiservice.serialization;
+
+import com.fitness.aiservice.models.Activity;
+import com.fitness.aiservice.models.ActivityType;
+import com.fitness.common.serialization.AvroSchemaRegistry;
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.EncoderFactory;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ActivityAvroDeserializerTests {
+
+    private static final LocalDateTime START = LocalDateTime.of(2025, 9, 1, 7, 30);
+
+    private final AvroSchemaRegistry registry = AvroSchemaRegistry.at("classpath:avro-evolution");
+    private final ActivityAvroDeserializer deserializer = new ActivityAvroDeserializer(registry, 1);
+
+    @Test
+    void readsRecordsWrittenWithTheReaderSchema() throws IOException {
+        GenericRecord record = record(1);
+        record.put("activityType", new GenericData.EnumSymbol(record.getSchema().getField("activityType").schema().getTypes().get(1), "RUNNING"));
+        record.put("metrics", Map.of("heartRateAvg", 142, "distance", 5.2, "note", "hills"));
+
+        Activity activity = deserializer.deserialize("activity-events", encode(1, record));
+
+        assertThat(activity.getUserId()).isEqualTo("user-1");
+        assertThat(activity.getActivityType()).isEqualTo(ActivityType.RUNNING);
+        assertThat(activity.getStartTime()).isEqualTo(START);
+        assertThat(activity.getAdditionalMetrics().asMap()).containsEntry("heartRateAvg", 142)
+                .containsEntry("distance", 5.2)
+                .containsEntry("note", "hills");
+    }
+
+    @Test
+    void resolvesRecordsFromAnOlderWriter() throws IOException {
+        GenericRecord record = record(2);
+        record.put("source", "watch");
+        record.put("activityType", new GenericData.EnumSymbol(record.getSchema().getField("activityType").schema().getTypes().get(1), "CYCLING"));
+
+        Activity activity = deserializer.deserialize("activity-events", encode(2, record));
+
+        assertThat(activity.getActivityType()).isEqualTo(ActivityType.CYCLING);
+        assertThat(activity.getAdditionalMetrics().asMap()).isEmpty();
+        assertThat(activity.getUpdatedAt()).isNull();
+        assertThat(activity.getDuration()).isEqualTo(30);
+    }
+
+    @Test
+    void resolvesRecordsFromANewerWriter() throws IOException {
+        GenericRecord record = record(3);
+        record.put("activityType", new GenericData.EnumSymbol(record.getSchema().getField("activityType").schema().getTypes().get(1), "PILATES"));
+        record.put("metrics", Map.of());
+        record.put("deviceId", "watch-7");
+
+        Activity activity = deserializer.deserialize("activity-events", encode(3, record));
+
+        assertThat(activity.getActivityType()).isEqualTo(ActivityType.OTHER);
+        assertThat(activity.getCaloriesBurned()).isEqualTo(320);
+    }
+
+    @Test
+    void fallsBackToJsonForRecordsWithoutTheAvroHeader() {
+        byte[] json = "{\"userId\":\"user-1\",\"activityType\":\"YOGA\",\"duration\":45}".getBytes(StandardCharsets.UTF_8);
+
+        Activity activity = deserializer.deserialize("activity-events", json);
+
+        assertThat(activity.getActivityType()).isEqualTo(ActivityType.YOGA);
+        assertThat(activity.getDuration()).isEqualTo(45);
+    }
+
+    private GenericRecord record(int schemaId) {
+        GenericRecord record = new GenericData.Record(registry.byId(schemaId));
+        record.put("id", "66d41a3f9b1e8a2f4c7d0e55");
+        record.put("userId", "user-1");
+        record.put("duration", 30);
+        record.put("caloriesBurned", 320);
+        record.put("startTime", START.toInstant(ZoneOffset.UTC).toEpochMilli());
+        return record;
+    }
+
+    private static byte[] encode(int schemaId, GenericRecord record) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(0);
+        out.write(ByteBuffer.allocate(Integer.BYTES).putInt(schemaId).array());
+        BinaryEncoder encoder = EncoderFactory.get().binaryEncoder(out, null);
+        new GenericDatumWriter<GenericRecord>(record.getSchema()).write(record, encoder);
+        encoder.flush();
+        return out.toByteArray();
+    }
+}
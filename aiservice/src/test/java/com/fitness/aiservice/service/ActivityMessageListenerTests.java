@@ -0,0 +1,142 @@
+package com.fitness.aiservice.service;
+
+import com.fitness.aiservice.models.Activity;
+import com.fitness.aiservice.models.Recommendation;
+import com.fitness.aiservice.repository.RecommendationRepository;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ActivityMessageListenerTests {
+
+    private MongoServer server;
+    private MongoClient client;
+    private RecommendationRepository recommendationRepository;
+    private StubActivityAiService activityAiService;
+    private RecordingEventPublisher eventPublisher;
+    private ActivityMessageListener listener;
+
+    @BeforeEach
+    void setUp() {
+        server = new MongoServer(new MemoryBackend());
+        client = MongoClients.create(server.bindAndGetConnectionString());
+        recommendationRepository = new MongoRepositoryFactory(new MongoTemplate(client, "recommendations-test"))
+                .getRepository(RecommendationRepository.class);
+        activityAiService = new StubActivityAiService();
+        eventPublisher = new RecordingEventPublisher();
+        listener = new ActivityMessageListener(activityAiService, recommendationRepository, eventPublisher);
+        ReflectionTestUtils.setField(listener, "maxInFlight", 4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        client.close();
+        server.shutdown();
+    }
+
+    @Test
+    void savesTheWholeBatchWhenEveryActivitySucceeds() {
+        listener.processActivities(records(5));
+
+        assertThat(recommendationRepository.findAll()).extracting(Recommendation::getActivityId)
+                .containsExactlyInAnyOrder("activity-0", "activity-1", "activity-2", "activity-3", "activity-4");
+        assertThat(eventPublisher.stored).hasSize(5);
+    }
+
+    @Test
+    void savesThePrefixBeforeTheFirstFailureAndReportsItsIndex() {
+        activityAiService.failing.addAll(List.of("activity-2", "activity-4"));
+
+        assertThatThrownBy(() -> listener.processActivities(records(6)))
+                .isInstanceOfSatisfying(BatchListenerFailedException.class, e -> {
+                    assertThat(e.getIndex()).isEqualTo(2);
+                    assertThat(e.getCause()).hasMessage("Gemini failed for activity-2");
+                });
+
+        // activity-3 succeeded but comes after the failure, it is redelivered with the rest
+        assertThat(recommendationRepository.findAll()).extracting(Recommendation::getActivityId)
+                .containsExactlyInAnyOrder("activity-0", "activity-1");
+        assertThat(eventPublisher.stored).extracting(Recommendation::getActivityId)
+                .containsExactly("activity-0", "activity-1");
+    }
+
+    @Test
+    void savesNothingWhenTheFirstActivityFails() {
+        activityAiService.failing.add("activity-0");
+
+        assertThatThrownBy(() -> listener.processActivities(records(3)))
+                .isInstanceOfSatisfying(BatchListenerFailedException.class, e -> assertThat(e.getIndex()).isZero());
+
+        assertThat(recommendationRepository.count()).isZero();
+        assertThat(eventPublisher.stored).isEmpty();
+    }
+
+    private static List<ConsumerRecord<String, Activity>> records(int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> new ConsumerRecord<>("activity-events", 0, i, "user-1",
+                        Activity.builder().id("activity-" + i).userId("user-1").build()))
+                .toList();
+    }
+
+    /**
+     * Answers every activity except the failing ones without calling Gemini.
+     */
+    private static final class StubActivityAiService extends ActivityAiService {
+
+        private final Set<String> failing = ConcurrentHashMap.newKeySet();
+
+        StubActivityAiService() {
+            super(null, null, null);
+        }
+
+        @Override
+        public Recommendation generateRecommendation(Activity activity, boolean useCache) {
+            if (failing.contains(activity.getId())) {
+                throw new IllegalStateException("Gemini failed for " + activity.getId());
+            }
+            return Recommendation.builder()
+                    .activityId(activity.getId())
+                    .userId(activity.getUserId())
+                    .recommendation("keep going")
+                    .build();
+        }
+    }
+
+    private static final class RecordingEventPublisher extends RecommendationEventPublisher {
+
+        private final List<Recommendation> stored = new CopyOnWriteArrayList<>();
+
+        RecordingEventPublisher() {
+            super(null, "recommendation-events");
+        }
+
+        @Override
+        public void recommendationsStored(Collection<Recommendation> recommendations) {
+            stored.addAll(recommendations);
+        }
+
+        @Override
+        public void recommendationStored(Recommendation recommendation) {
+            stored.add(recommendation);
+        }
+    }
+}
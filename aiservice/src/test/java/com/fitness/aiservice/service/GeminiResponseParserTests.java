@@ -0,0 +1,64 @@
+package com.fitness.aiservice.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fitness.aiservice.dto.AiAnalysis;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GeminiResponseParserTests {
+
+    private static final String ANALYSIS = """
+            ```json
+            {
+              "analysis": {"overall": "Solid run", "pace": "Steady", "heartRate": "Zone 3", "caloriesBurned": "On target"},
+              "improvements": [{"area": "Cadence", "recommendation": "Aim for 170 spm"}],
+              "suggestions": [{"workout": "Intervals", "description": "6 x 400m"}],
+              "safety": ["Hydrate", "Warm up"]
+            }
+            ```
+            """;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final GeminiResponseParser parser = new GeminiResponseParser(new ObjectMapper(), meterRegistry);
+
+    private static String geminiResponse(String text) throws Exception {
+        return "{\"candidates\":[{\"finishReason\":\"STOP\",\"content\":{\"role\":\"model\",\"parts\":[{\"text\":"
+                + new ObjectMapper().writeValueAsString(text) + "}]}}],\"usageMetadata\":{\"totalTokenCount\":42}}";
+    }
+
+    @Test
+    void bindsFencedAnalysisToTypedResult() throws Exception {
+        AiAnalysis analysis = parser.parse(geminiResponse(ANALYSIS));
+
+        assertEquals("Solid run", analysis.getAnalysis().getOverall());
+        assertEquals("Cadence", analysis.getImprovements().get(0).getArea());
+        assertEquals("6 x 400m", analysis.getSuggestions().get(0).getDescription());
+        assertEquals(2, analysis.getSafety().size());
+    }
+
+    @Test
+    void reportsMissingSections() throws Exception {
+        assertViolation(geminiResponse("{\"analysis\": {}}"), "safety is missing");
+        assertEquals(1, meterRegistry.get("ai.response.schema.violations").counter().count());
+    }
+
+    @Test
+    void reportsMissingTextPart() {
+        assertViolation("{\"candidates\":[]}", "candidates[0].content.parts[0].text is missing");
+    }
+
+    @Test
+    void stripsCodeFenceWithoutLanguageTag() {
+        assertEquals("{}", GeminiResponseParser.stripCodeFence("  ```\n{}\n```  "));
+        assertEquals("{}", GeminiResponseParser.stripCodeFence("{}"));
+    }
+
+    private void assertViolation(String response, String violation) {
+        AiResponseSchemaException e = assertThrows(AiResponseSchemaException.class, () -> parser.parse(response));
+        assertTrue(e.getViolations().contains(violation), e.getViolations().toString());
+    }
+}
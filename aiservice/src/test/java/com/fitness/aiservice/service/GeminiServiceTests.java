@@ -0,0 +1,114 @@
+package com.fitness.aiservice.service;
+
+import com.fitness.aiservice.config.WebClientConfig;
+import com.fitness.common.resilience.ResilientCalls;
+import com.sun.net.httpserver.HttpServer;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.retry.RetryRegistry;
+import io.github.resilience4j.timelimiter.TimeLimiterConfig;
+import io.github.resilience4j.timelimiter.TimeLimiterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GeminiServiceTests {
+
+    private static final String GEMINI_RESPONSE = "{\"candidates\":[{\"content\":{\"parts\":[{\"text\":\"ok\"}]}}]}";
+
+    private HttpServer stubServer;
+    private final AtomicReference<String> receivedApiKey = new AtomicReference<>();
+    private volatile long responseDelayMillis;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void startStubServer() throws IOException {
+        stubServer = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        stubServer.setExecutor(Executors.newCachedThreadPool());
+        stubServer.createContext("/generate", exchange -> {
+            receivedApiKey.set(exchange.getRequestHeaders().getFirst("x-goog-api-key"));
+            exchange.getRequestBody().readAllBytes();
+            try {
+                Thread.sleep(responseDelayMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            byte[] body = GEMINI_RESPONSE.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        stubServer.start();
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void stopStubServer() {
+        stubServer.stop(0);
+    }
+
+    private GeminiService geminiService(Duration readTimeout, int maxConcurrentRequests, Duration acquireTimeout) {
+        WebClient webClient = new WebClientConfig().geminiWebClient(WebClient.builder(), Duration.ofSeconds(1),
+                readTimeout, 10, Duration.ofSeconds(5), Duration.ofSeconds(30));
+        String url = "http://localhost:" + stubServer.getAddress().getPort() + "/generate";
+        BulkheadRegistry bulkheadRegistry = BulkheadRegistry.ofDefaults();
+        bulkheadRegistry.bulkhead(GeminiService.GEMINI, BulkheadConfig.custom()
+                .maxConcurrentCalls(maxConcurrentRequests)
+                .maxWaitDuration(acquireTimeout)
+                .build());
+        ResilientCalls resilientCalls = new ResilientCalls(CircuitBreakerRegistry.ofDefaults(), bulkheadRegistry,
+                TimeLimiterRegistry.of(TimeLimiterConfig.custom().timeoutDuration(Duration.ofSeconds(10)).build()),
+                RetryRegistry.ofDefaults(), meterRegistry);
+        return new GeminiService(webClient, resilientCalls, meterRegistry, url, "test-key");
+    }
+
+    @Test
+    void returnsGeminiResponseAndRecordsLatency() {
+        GeminiService geminiService = geminiService(Duration.ofSeconds(5), 4, Duration.ofSeconds(1));
+
+        assertEquals(GEMINI_RESPONSE, geminiService.getRecommendationsAsync("prompt").block());
+        assertEquals("test-key", receivedApiKey.get());
+        assertEquals(1, meterRegistry.get("gemini.request.latency").tag("outcome", "success").timer().count());
+    }
+
+    @Test
+    void failsWhenGeminiIsSlowerThanReadTimeout() {
+        responseDelayMillis = 1_000;
+        GeminiService geminiService = geminiService(Duration.ofMillis(200), 4, Duration.ofSeconds(1));
+
+        assertThrows(Exception.class, () -> geminiService.getRecommendations("prompt"));
+        assertEquals(1, meterRegistry.get("gemini.request.latency").tag("outcome", "error").timer().count());
+    }
+
+    @Test
+    void rejectsCallsBeyondConcurrencyLimit() {
+        responseDelayMillis = 500;
+        GeminiService geminiService = geminiService(Duration.ofSeconds(5), 1, Duration.ofMillis(100));
+
+        Mono<String> first = geminiService.getRecommendationsAsync("first");
+        Mono<String> second = geminiService.getRecommendationsAsync("second")
+                .delaySubscription(Duration.ofMillis(50));
+        Exception error = assertThrows(Exception.class, () -> Mono.zip(first, second).block());
+
+        assertTrue(error.getMessage().contains("Too many concurrent Gemini requests"));
+        assertEquals(GEMINI_RESPONSE, geminiService.getRecommendations("after"));
+    }
+}
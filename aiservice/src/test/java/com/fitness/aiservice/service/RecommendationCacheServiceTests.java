@@ -0,0 +1,151 @@
+package com.fitness.aiservice.service;
+
+import com.fitness.aiservice.models.Activity;
+import com.fitness.aiservice.models.ActivityType;
+import com.fitness.aiservice.models.CachedRecommendation;
+import com.fitness.aiservice.models.Recommendation;
+import com.fitness.common.model.ActivityMetrics;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RecommendationCacheServiceTests {
+
+    private static final String PROMPT = "Analyze this fitness activity";
+
+    private MongoServer server;
+    private MongoClient client;
+    private MongoTemplate mongoTemplate;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        server = new MongoServer(new MemoryBackend());
+        client = MongoClients.create(server.bindAndGetConnectionString());
+        mongoTemplate = new MongoTemplate(client, "cache-test");
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void tearDown() {
+        client.close();
+        server.shutdown();
+    }
+
+    @Test
+    void normalizesMetricOrderAndKeepsExactValuesWithoutBucketing() {
+        RecommendationCacheService cache = cacheService(false);
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("zone", "z2");
+        metrics.put("slope", 3.14159);
+        metrics.put("distance", 5.23);
+        metrics.put("heartRateAvg", 142);
+        Map<String, Object> reordered = new LinkedHashMap<>();
+        reordered.put("heartRateAvg", 142);
+        reordered.put("slope", 3.14159);
+        reordered.put("distance", 5.23);
+        reordered.put("zone", "z2");
+
+        Activity first = cache.normalize(activity(32, 312, metrics));
+        Activity second = cache.normalize(activity(32, 312, reordered));
+
+        assertThat(first.getAdditionalMetrics().asMap()).containsExactly(
+                Map.entry("heartRateAvg", 142), Map.entry("distance", 5.23),
+                Map.entry("slope", 3.14159), Map.entry("zone", "z2"));
+        assertThat(second.getAdditionalMetrics().asMap()).containsExactlyEntriesOf(first.getAdditionalMetrics().asMap());
+        assertThat(first.getDuration()).isEqualTo(32);
+        assertThat(first.getCaloriesBurned()).isEqualTo(312);
+    }
+
+    @Test
+    void bucketsNearIdenticalActivitiesIntoOneKey() {
+        RecommendationCacheService cache = cacheService(true);
+
+        Activity normalized = cache.normalize(activity(32, 312,
+                Map.of("heartRateAvg", 142, "distance", 5.23, "slope", 3.14159, "zone", "z2")));
+
+        assertThat(normalized.getDuration()).isEqualTo(30);
+        assertThat(normalized.getCaloriesBurned()).isEqualTo(300);
+        assertThat(normalized.getAdditionalMetrics().asMap()).containsExactly(
+                Map.entry("heartRateAvg", 140), Map.entry("distance", 5.2),
+                Map.entry("slope", "3.1"), Map.entry("zone", "z2"));
+        assertThat(cache.normalize(activity(33, 320, Map.of("heartRateAvg", 138))))
+                .satisfies(activity -> {
+                    assertThat(activity.getDuration()).isEqualTo(35);
+                    assertThat(activity.getCaloriesBurned()).isEqualTo(325);
+                    assertThat(activity.getAdditionalMetrics().get(ActivityMetrics.Metric.HEART_RATE_AVG)).isEqualTo(140);
+                });
+    }
+
+    @Test
+    void fallsThroughFromMemoryToMongoAndBackFillsMemory() {
+        cacheService(false).store(PROMPT, Recommendation.builder()
+                .recommendation("keep going")
+                .safety(List.of("hydrate"))
+                .build());
+        // another instance, its memory tier is empty
+        RecommendationCacheService cache = cacheService(false);
+        Activity activity = activity(30, 300, null);
+
+        Recommendation fromMongo = cache.lookup(PROMPT, activity).orElseThrow();
+
+        assertThat(fromMongo.getRecommendation()).isEqualTo("keep going");
+        assertThat(fromMongo.getSafety()).containsExactly("hydrate");
+        assertThat(fromMongo.getActivityId()).isEqualTo("activity-1");
+        assertThat(fromMongo.getUserId()).isEqualTo("user-1");
+        assertThat(requests("hit", "mongo")).isEqualTo(1);
+
+        // answered from memory now, even without the shared entry
+        mongoTemplate.remove(new Query(), CachedRecommendation.class);
+        assertThat(cache.lookup(PROMPT, activity)).isPresent();
+        assertThat(requests("hit", "memory")).isEqualTo(1);
+        assertThat(requests("miss", "none")).isZero();
+    }
+
+    @Test
+    void missesOnAnExpiredSharedEntry() {
+        cacheService(false).store(PROMPT, Recommendation.builder().recommendation("keep going").build());
+        mongoTemplate.updateMulti(new Query(), new Update().set("createdAt", LocalDateTime.now().minusDays(8)),
+                CachedRecommendation.class);
+
+        assertThat(cacheService(false).lookup(PROMPT, activity(30, 300, null))).isEmpty();
+        assertThat(requests("miss", "none")).isEqualTo(1);
+    }
+
+    private RecommendationCacheService cacheService(boolean bucketing) {
+        return new RecommendationCacheService(mongoTemplate, meterRegistry, true, Duration.ofDays(7), 100,
+                bucketing, 5, 25, 2);
+    }
+
+    private double requests(String result, String tier) {
+        return meterRegistry.get("ai.recommendation.cache.requests").tag("result", result).tag("tier", tier)
+                .counter().count();
+    }
+
+    private static Activity activity(int duration, int calories, Map<String, Object> metrics) {
+        return Activity.builder()
+                .id("activity-1")
+                .userId("user-1")
+                .activityType(ActivityType.RUNNING)
+                .duration(duration)
+                .caloriesBurned(calories)
+                .additionalMetrics(metrics == null ? null : ActivityMetrics.of(metrics))
+                .build();
+    }
+}
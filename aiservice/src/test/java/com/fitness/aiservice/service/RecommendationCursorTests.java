@@ -0,0 +1,26 @@
+package com.fitness.aiservice.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class RecommendationCursorTests {
+
+    @Test
+    void roundTripsWithAndWithoutCreatedAt() {
+        RecommendationCursor dated = new RecommendationCursor(LocalDateTime.of(2025, 1, 1, 7, 30), "abc");
+        RecommendationCursor undated = new RecommendationCursor(null, "def");
+
+        assertEquals(dated, RecommendationCursor.decode(dated.encode()));
+        assertEquals(undated, RecommendationCursor.decode(undated.encode()));
+    }
+
+    @Test
+    void rejectsTokensThatAreNotCursors() {
+        assertThrows(ResponseStatusException.class, () -> RecommendationCursor.decode("not a cursor"));
+    }
+}
@@ -0,0 +1,69 @@
+package com.fitness.activityservice.service;
+
+import com.fitness.activityservice.dto.ActivityRequest;
+import com.fitness.activityservice.dto.ActivityResponse;
+import com.fitness.activityservice.model.Activity;
+import com.fitness.activityservice.model.ActivityType;
+import com.fitness.common.model.ActivityMetrics;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Request to document and document to response mapping done for every tracked activity.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ActivityMappingBenchmark {
+
+    private final ActivityService activityService = new ActivityService();
+    private ActivityRequest activityRequest;
+    private Activity activity;
+
+    @Setup
+    public void setUp() {
+        ActivityMetrics metrics = new ActivityMetrics()
+                .set(ActivityMetrics.Metric.HEART_RATE_AVG, 142)
+                .set(ActivityMetrics.Metric.HEART_RATE_MAX, 171)
+                .set(ActivityMetrics.Metric.DISTANCE, 5.2)
+                .set(ActivityMetrics.Metric.PACE, 5.45)
+                .set(ActivityMetrics.Metric.CADENCE, 168);
+
+        activityRequest = new ActivityRequest();
+        activityRequest.setUserId("5f0c2b7e-2a61-4c1c-9a3b-0f6d2d1c9e11");
+        activityRequest.setActivityType(ActivityType.RUNNING);
+        activityRequest.setDuration(30);
+        activityRequest.setCaloriesBurned(320);
+        activityRequest.setStartTime(LocalDateTime.of(2025, 9, 1, 7, 30));
+        activityRequest.setAdditionalMetrics(metrics);
+
+        activity = activityService.mapToActivity(activityRequest);
+        activity.setId("66d41a3f9b1e8a2f4c7d0e55");
+        activity.setCreatedAt(LocalDateTime.of(2025, 9, 1, 8, 0));
+        activity.setUpdatedAt(activity.getCreatedAt());
+    }
+
+    @Benchmark
+    public Activity mapRequestToActivity() {
+        return activityService.mapToActivity(activityRequest);
+    }
+
+    @Benchmark
+    public ActivityResponse mapActivityToResponse() {
+        return activityService.mapToResponse(activity);
+    }
+}
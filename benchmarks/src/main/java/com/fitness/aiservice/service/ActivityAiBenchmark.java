@@ -0,0 +1,139 @@
+package com.fitness.aiservice.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fitness.aiservice.models.Activity;
+import com.fitness.aiservice.models.ActivityType;
+import com.fitness.aiservice.models.Recommendation;
+import com.fitness.common.model.ActivityMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Prompt building and Gemini response parsing. {@link #parseResponseLegacyTree()} replays the original
+ * tree-based parsing (new ObjectMapper per call, regex clean-up, two trees) for comparison with the
+ * streaming {@link GeminiResponseParser}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ActivityAiBenchmark {
+
+    private static final String ANALYSIS = """
+            ```json
+            {
+              "analysis": {
+                "overall": "A steady 30 minute run with consistent effort and good aerobic conditioning throughout the session.",
+                "pace": "Average pace of 5:45 min/km was maintained well with only minor drift in the final kilometre.",
+                "heartRate": "Average heart rate of 142 bpm sits in zone 3, peaking at 171 bpm during the final push.",
+                "caloriesBurned": "320 kcal is in line with the expected expenditure for this duration and intensity."
+              },
+              "improvements": [
+                {"area": "Cadence", "recommendation": "Increase cadence towards 170-175 spm to reduce ground contact time."},
+                {"area": "Pacing", "recommendation": "Start slightly slower to avoid the late heart rate spike."},
+                {"area": "Recovery", "recommendation": "Add a 10 minute cool-down walk and light stretching."}
+              ],
+              "suggestions": [
+                {"workout": "Interval session", "description": "6 x 400m at 5k pace with 90 seconds of easy jogging between reps."},
+                {"workout": "Long easy run", "description": "50-60 minutes in zone 2 to build aerobic base."}
+              ],
+              "safety": [
+                "Warm up for at least 5-10 minutes before running",
+                "Stay hydrated before, during and after the run",
+                "Stop if you feel chest pain or dizziness"
+              ]
+            }
+            ```
+            """;
+
+    private ActivityAiService activityAiService;
+    private Activity activity;
+    private String geminiResponse;
+
+    @Setup
+    public void setUp() throws Exception {
+        GeminiResponseParser geminiResponseParser = new GeminiResponseParser(new ObjectMapper(), new SimpleMeterRegistry());
+        activityAiService = new ActivityAiService(null, null, geminiResponseParser);
+        activity = Activity.builder()
+                .id("66d41a3f9b1e8a2f4c7d0e55")
+                .userId("5f0c2b7e-2a61-4c1c-9a3b-0f6d2d1c9e11")
+                .activityType(ActivityType.RUNNING)
+                .duration(30)
+                .caloriesBurned(320)
+                .startTime(LocalDateTime.of(2025, 9, 1, 7, 30))
+                .additionalMetrics(ActivityMetrics.of(Map.of("heartRateAvg", 142, "heartRateMax", 171, "distance", 5.2, "pace", 5.45)))
+                .build();
+        geminiResponse = "{\"candidates\":[{\"content\":{\"parts\":[{\"text\":"
+                + new ObjectMapper().writeValueAsString(ANALYSIS)
+                + "}],\"role\":\"model\"},\"finishReason\":\"STOP\",\"avgLogprobs\":-0.21}],"
+                + "\"usageMetadata\":{\"promptTokenCount\":412,\"candidatesTokenCount\":388,\"totalTokenCount\":800},"
+                + "\"modelVersion\":\"gemini-2.0-flash\"}";
+    }
+
+    @Benchmark
+    public String buildPrompt() {
+        return activityAiService.createPromptForActivity(activity);
+    }
+
+    @Benchmark
+    public Recommendation parseResponseStreaming() {
+        return activityAiService.processAiResponse(activity, geminiResponse);
+    }
+
+    @Benchmark
+    public Recommendation parseResponseLegacyTree() throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        JsonNode rootNode = mapper.readTree(geminiResponse);
+        JsonNode textNode = rootNode.path("candidates")
+                .get(0)
+                .path("content")
+                .get("parts")
+                .get(0)
+                .get("text");
+        String jsonContent = textNode.asText().replaceAll("```json\\n", "")
+                .replaceAll("\\n", "")
+                .trim();
+        JsonNode analysisJson = mapper.readTree(jsonContent);
+        JsonNode analysisNode = analysisJson.path("analysis");
+        StringBuilder fullAnalysis = new StringBuilder();
+        for (String key : List.of("overall", "pace", "heartRate", "caloriesBurned")) {
+            if (!analysisNode.path(key).isMissingNode()) {
+                fullAnalysis.append(key).append(analysisNode.path(key).asText()).append("\n\n");
+            }
+        }
+        List<String> improvements = new ArrayList<>();
+        analysisJson.path("improvements").forEach(imp -> improvements.add(String.format("%s: %s",
+                imp.path("area").asText(), imp.path("recommendation").asText())));
+        List<String> suggestions = new ArrayList<>();
+        analysisJson.path("suggestions").forEach(sugg -> suggestions.add(String.format("%s: %s",
+                sugg.path("workout").asText(), sugg.path("description").asText())));
+        List<String> safety = new ArrayList<>();
+        analysisJson.path("safety").forEach(item -> safety.add(item.asText()));
+        return Recommendation.builder()
+                .userId(activity.getUserId())
+                .activityId(activity.getId())
+                .improvement(improvements)
+                .recommendation(fullAnalysis.toString())
+                .safety(safety)
+                .suggestion(suggestions)
+                .build();
+    }
+}
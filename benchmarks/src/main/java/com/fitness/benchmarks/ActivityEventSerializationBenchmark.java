@@ -0,0 +1,110 @@
+package com.fitness.benchmarks;
+
+import com.fitness.activityservice.model.Activity;
+import com.fitness.activityservice.model.ActivityType;
+import com.fitness.activityservice.serialization.ActivityAvroSerializer;
+import com.fitness.aiservice.serialization.ActivityAvroDeserializer;
+import com.fitness.common.model.ActivityMetrics;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The activity-events wire path: activityservice's serializer of its {@code Activity} and aiservice's
+ * deserializer into its own {@code Activity}, as JSON ({@link JsonSerializer}/{@link JsonDeserializer}) and as
+ * schema-id prefixed Avro ({@link ActivityAvroSerializer}/{@link ActivityAvroDeserializer}). Payload sizes of both
+ * formats are printed at setup.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ActivityEventSerializationBenchmark {
+
+    private static final String TOPIC = "activity-events";
+
+    private JsonSerializer<Activity> serializer;
+    private JsonDeserializer<com.fitness.aiservice.models.Activity> deserializer;
+    private Activity activity;
+    private byte[] payload;
+    private ActivityAvroSerializer avroSerializer;
+    private ActivityAvroDeserializer avroDeserializer;
+    private byte[] avroPayload;
+
+    @Setup
+    public void setUp() {
+        serializer = new JsonSerializer<>();
+        deserializer = new JsonDeserializer<>();
+        deserializer.configure(Map.of(
+                JsonDeserializer.USE_TYPE_INFO_HEADERS, false,
+                JsonDeserializer.VALUE_DEFAULT_TYPE, com.fitness.aiservice.models.Activity.class.getName(),
+                JsonDeserializer.TRUSTED_PACKAGES, "*"), false);
+        activity = Activity.builder()
+                .id("66d41a3f9b1e8a2f4c7d0e55")
+                .userId("5f0c2b7e-2a61-4c1c-9a3b-0f6d2d1c9e11")
+                .activityType(ActivityType.RUNNING)
+                .duration(30)
+                .caloriesBurned(320)
+                .startTime(LocalDateTime.of(2025, 9, 1, 7, 30))
+                .additionalMetrics(ActivityMetrics.of(Map.of("heartRateAvg", 142, "heartRateMax", 171, "distance", 5.2, "pace", 5.45,
+                        "cadence", 168)))
+                .createdAt(LocalDateTime.of(2025, 9, 1, 8, 0))
+                .updatedAt(LocalDateTime.of(2025, 9, 1, 8, 0))
+                .build();
+        payload = serializer.serialize(TOPIC, activity);
+
+        avroSerializer = new ActivityAvroSerializer();
+        avroSerializer.configure(Map.of(), false);
+        avroDeserializer = new ActivityAvroDeserializer();
+        avroDeserializer.configure(Map.of(), false);
+        avroPayload = avroSerializer.serialize(TOPIC, activity);
+        if (!avroDeserializer.deserialize(TOPIC, avroPayload).equals(deserializer.deserialize(TOPIC, payload))) {
+            throw new IllegalStateException("Avro and JSON round trips disagree");
+        }
+        System.out.printf("%nactivity-events payload: json=%d bytes, avro=%d bytes%n", payload.length, avroPayload.length);
+    }
+
+    @TearDown
+    public void tearDown() {
+        serializer.close();
+        deserializer.close();
+        avroSerializer.close();
+        avroDeserializer.close();
+    }
+
+    @Benchmark
+    public byte[] serializeJson() {
+        return serializer.serialize(TOPIC, activity);
+    }
+
+    @Benchmark
+    public com.fitness.aiservice.models.Activity deserializeJson() {
+        return deserializer.deserialize(TOPIC, payload);
+    }
+
+    @Benchmark
+    public byte[] serializeAvro() {
+        return avroSerializer.serialize(TOPIC, activity);
+    }
+
+    @Benchmark
+    public com.fitness.aiservice.models.Activity deserializeAvro() {
+        return avroDeserializer.deserialize(TOPIC, avroPayload);
+    }
+}
@@ -0,0 +1,74 @@
+package com.fitness.benchmarks;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fitness.common.model.ActivityMetrics;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reading and writing the metrics of an activity as the old free-form {@code Map<String, Object>} and as the
+ * primitive-backed {@link ActivityMetrics}. Run with {@code -prof gc} to compare bytes allocated per operation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ActivityMetricsBenchmark {
+
+    private static final String JSON = "{\"heartRateAvg\":142,\"heartRateMax\":171,\"distance\":5.2,\"pace\":5.45,"
+            + "\"elevation\":48.0,\"cadence\":168}";
+
+    private ObjectMapper objectMapper;
+    private ObjectReader mapReader;
+    private ObjectReader metricsReader;
+    private Map<String, Object> map;
+    private ActivityMetrics metrics;
+
+    @Setup
+    public void setUp() throws Exception {
+        objectMapper = new ObjectMapper();
+        mapReader = objectMapper.readerFor(new TypeReference<Map<String, Object>>() {
+        });
+        metricsReader = objectMapper.readerFor(ActivityMetrics.class);
+        map = mapReader.readValue(JSON);
+        metrics = metricsReader.readValue(JSON);
+        if (!metrics.asMap().equals(map)) {
+            throw new IllegalStateException("Typed metrics do not match the map: " + metrics + " vs " + map);
+        }
+    }
+
+    @Benchmark
+    public Map<String, Object> readMap() throws Exception {
+        return mapReader.readValue(JSON);
+    }
+
+    @Benchmark
+    public ActivityMetrics readTyped() throws Exception {
+        return metricsReader.readValue(JSON);
+    }
+
+    @Benchmark
+    public String writeMap() throws Exception {
+        return objectMapper.writeValueAsString(map);
+    }
+
+    @Benchmark
+    public String writeTyped() throws Exception {
+        return objectMapper.writeValueAsString(metrics);
+    }
+}
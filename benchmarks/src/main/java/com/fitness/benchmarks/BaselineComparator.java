@@ -0,0 +1,72 @@
+package com.fitness.benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Compares a JMH JSON result file against a stored baseline and exits with status 1 when any benchmark
+ * regressed by more than the allowed percentage.
+ *
+ * <pre>
+ * java -cp target/benchmarks.jar com.fitness.benchmarks.BaselineComparator \
+ *      target/jmh-result.json baseline/baseline.json [maxRegressionPercent]
+ * </pre>
+ */
+public class BaselineComparator {
+
+    private static final double DEFAULT_MAX_REGRESSION_PERCENT = 10.0;
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("usage: BaselineComparator <result.json> <baseline.json> [maxRegressionPercent]");
+            System.exit(2);
+        }
+        double maxRegression = args.length > 2 ? Double.parseDouble(args[2]) : DEFAULT_MAX_REGRESSION_PERCENT;
+        Map<String, JsonNode> current = read(new File(args[0]));
+        Map<String, JsonNode> baseline = read(new File(args[1]));
+
+        int regressions = 0;
+        System.out.printf("%-90s %14s %14s %9s%n", "Benchmark", "Baseline", "Current", "Change");
+        for (Map.Entry<String, JsonNode> entry : current.entrySet()) {
+            JsonNode base = baseline.get(entry.getKey());
+            JsonNode result = entry.getValue();
+            double score = result.path("primaryMetric").path("score").asDouble();
+            String unit = result.path("primaryMetric").path("scoreUnit").asText();
+            if (base == null) {
+                System.out.printf("%-90s %14s %14.3f %9s  (new, %s)%n", entry.getKey(), "-", score, "-", unit);
+                continue;
+            }
+            double baseScore = base.path("primaryMetric").path("score").asDouble();
+            double change = (score - baseScore) / baseScore * 100;
+            // throughput: higher is better; average/sample/single-shot time: lower is better
+            double regression = "thrpt".equals(result.path("mode").asText()) ? -change : change;
+            boolean regressed = regression > maxRegression;
+            if (regressed) {
+                regressions++;
+            }
+            System.out.printf("%-90s %14.3f %14.3f %+8.1f%%%s  (%s)%n", entry.getKey(), baseScore, score, change,
+                    regressed ? "  REGRESSION" : "", unit);
+        }
+        if (regressions > 0) {
+            System.out.printf("%d benchmark(s) regressed by more than %.1f%%%n", regressions, maxRegression);
+            System.exit(1);
+        }
+    }
+
+    private static Map<String, JsonNode> read(File file) throws IOException {
+        Map<String, JsonNode> results = new LinkedHashMap<>();
+        for (JsonNode result : new ObjectMapper().readTree(file)) {
+            StringBuilder key = new StringBuilder(result.path("benchmark").asText())
+                    .append(" [").append(result.path("mode").asText()).append(']');
+            result.path("params").properties().forEach(param ->
+                    key.append(' ').append(param.getKey()).append('=').append(param.getValue().asText()));
+            results.put(key.toString(), result);
+        }
+        return results;
+    }
+}
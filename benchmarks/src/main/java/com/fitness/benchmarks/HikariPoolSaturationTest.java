@@ -0,0 +1,183 @@
+package com.fitness.benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.File;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Finds where a service's Hikari pool saturates. Runs {@link HttpLoadTest}'s closed loop at increasing
+ * concurrency and, for each step, samples the service's {@code hikaricp.connections.*} metrics from its actuator:
+ * average active connections, the most requests seen waiting for a connection, and the mean time they waited.
+ * The pool is saturated at the first step where requests queue for connections and throughput stops growing:
+ *
+ * <pre>
+ * java -cp target/benchmarks.jar com.fitness.benchmarks.HikariPoolSaturationTest \
+ *      http://localhost:8081/api/users/register \
+ *      --body '{"keycloakId":"kc-load","email":"load@example.com","password":"secret123"}' \
+ *      --actuator http://localhost:8081/actuator --pool user-service-pool \
+ *      --steps 4,8,16,32,64,128,256 --duration 20 --out saturation.json
+ * </pre>
+ *
+ * Repeating a registration runs the upsert every time, while validation and profile lookups are mostly answered
+ * from userservice's caches. Run userservice in the {@code prod} profile so the pool has its production size and
+ * name.
+ */
+public class HikariPoolSaturationTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    // a step that adds less throughput than this is taken as flat
+    private static final double MIN_GAIN = 0.10;
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("usage: HikariPoolSaturationTest <url> [--actuator url] [--pool name]"
+                    + " [--steps n,n,...] [--duration seconds] [--warmup seconds] [--header name:value]..."
+                    + " [--body json] [--out result.json]");
+            System.exit(2);
+        }
+        URI uri = URI.create(args[0]);
+        String actuator = "http://localhost:8081/actuator";
+        String pool = null;
+        List<Integer> steps = List.of(4, 8, 16, 32, 64, 128, 256);
+        int durationSeconds = 20;
+        int warmupSeconds = 10;
+        List<String> headers = new ArrayList<>();
+        String body = null;
+        File out = null;
+        for (int i = 1; i < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--actuator" -> actuator = value;
+                case "--pool" -> pool = value;
+                case "--steps" -> steps = Arrays.stream(value.split(",")).map(String::trim).map(Integer::valueOf).toList();
+                case "--duration" -> durationSeconds = Integer.parseInt(value);
+                case "--warmup" -> warmupSeconds = Integer.parseInt(value);
+                case "--header" -> headers.add(value);
+                case "--body" -> body = value;
+                case "--out" -> out = new File(value);
+                default -> throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+
+        HttpRequest request = HttpLoadTest.request(uri, headers, body);
+        HttpClient client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newFixedThreadPool(Math.max(4, Runtime.getRuntime().availableProcessors())))
+                .build();
+        PoolMetrics metrics = new PoolMetrics(client, actuator, pool);
+
+        if (warmupSeconds > 0) {
+            HttpLoadTest.run(client, request, steps.get(0), Duration.ofSeconds(warmupSeconds));
+        }
+        System.out.printf("pool max size: %.0f%n", metrics.value("hikaricp.connections.max", "VALUE"));
+        System.out.printf("%11s %11s %9s %9s %7s %11s %12s %14s%n", "concurrency", "throughput", "p50 ms", "p99 ms",
+                "errors", "avg active", "max pending", "avg wait ms");
+        ArrayNode results = MAPPER.createArrayNode();
+        Integer saturatedAt = null;
+        double previousThroughput = 0;
+        for (int concurrency : steps) {
+            ObjectNode step = step(client, request, metrics, concurrency, Duration.ofSeconds(durationSeconds));
+            results.add(step);
+            double throughput = step.get("throughput").asDouble();
+            System.out.printf("%11d %11.1f %9.2f %9.2f %7d %11.1f %12.0f %14.2f%n", concurrency, throughput,
+                    step.get("p50Millis").asDouble(), step.get("p99Millis").asDouble(), step.get("errors").asLong(),
+                    step.get("avgActive").asDouble(), step.get("maxPending").asDouble(),
+                    step.get("avgWaitMillis").asDouble());
+            if (saturatedAt == null && step.get("maxPending").asDouble() > 0
+                    && throughput < previousThroughput * (1 + MIN_GAIN)) {
+                saturatedAt = concurrency;
+            }
+            previousThroughput = throughput;
+        }
+        System.out.println(saturatedAt == null
+                ? "pool did not saturate; raise --steps"
+                : "pool saturates at concurrency " + saturatedAt);
+        if (out != null) {
+            ObjectNode summary = MAPPER.createObjectNode().put("url", uri.toString());
+            if (saturatedAt != null) {
+                summary.put("saturatedAt", saturatedAt);
+            }
+            summary.set("steps", results);
+            MAPPER.writerWithDefaultPrettyPrinter().writeValue(out, summary);
+        }
+        System.exit(0);
+    }
+
+    private static ObjectNode step(HttpClient client, HttpRequest request, PoolMetrics metrics, int concurrency,
+                                   Duration duration) throws Exception {
+        double waitsBefore = metrics.value("hikaricp.connections.acquire", "COUNT");
+        double waitSecondsBefore = metrics.value("hikaricp.connections.acquire", "TOTAL_TIME");
+        double[] active = {0, 0};
+        double[] maxPending = {0};
+        ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor();
+        sampler.scheduleAtFixedRate(() -> {
+            active[0] += metrics.value("hikaricp.connections.active", "VALUE");
+            active[1]++;
+            maxPending[0] = Math.max(maxPending[0], metrics.value("hikaricp.connections.pending", "VALUE"));
+        }, 0, 250, TimeUnit.MILLISECONDS);
+        HttpLoadTest.Result result;
+        try {
+            result = HttpLoadTest.run(client, request, concurrency, duration);
+        } finally {
+            sampler.shutdownNow();
+            sampler.awaitTermination(5, TimeUnit.SECONDS);
+        }
+        double waits = metrics.value("hikaricp.connections.acquire", "COUNT") - waitsBefore;
+        double waitSeconds = metrics.value("hikaricp.connections.acquire", "TOTAL_TIME") - waitSecondsBefore;
+        return MAPPER.createObjectNode()
+                .put("concurrency", concurrency)
+                .put("requests", result.latencies().length)
+                .put("errors", result.errors())
+                .put("throughput", result.latencies().length / result.seconds())
+                .put("p50Millis", result.percentile(50))
+                .put("p99Millis", result.percentile(99))
+                .put("avgActive", active[1] == 0 ? 0 : active[0] / active[1])
+                .put("maxPending", maxPending[0])
+                .put("avgWaitMillis", waits == 0 ? 0 : waitSeconds / waits * 1000);
+    }
+
+    /**
+     * Reads single statistics of the pool's meters from the actuator metrics endpoint. A failed read counts as 0.
+     */
+    private record PoolMetrics(HttpClient client, String actuator, String pool) {
+
+        double value(String meter, String statistic) {
+            String url = actuator + "/metrics/" + meter
+                    + (pool == null ? "" : "?tag=" + URLEncoder.encode("pool:" + pool, StandardCharsets.UTF_8));
+            try {
+                HttpResponse<String> response = client.send(
+                        HttpRequest.newBuilder(URI.create(url)).timeout(Duration.ofSeconds(5)).GET().build(),
+                        HttpResponse.BodyHandlers.ofString());
+                if (response.statusCode() != 200) {
+                    return 0;
+                }
+                for (JsonNode measurement : MAPPER.readTree(response.body()).path("measurements")) {
+                    if (statistic.equals(measurement.path("statistic").asText())) {
+                        return measurement.path("value").asDouble();
+                    }
+                }
+            } catch (Exception e) {
+                if (e instanceof InterruptedException) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.fitness.benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Closed-loop HTTP load test: a fixed number of clients each send a request, wait for the answer and send the
+ * next one. Prints throughput and latency percentiles, can save them and compare them with an earlier run.
+ * Meant to compare a service in platform-thread mode with the same service started in the
+ * {@code virtual-threads} profile, once the services run on Java 21 (not done yet, see the README):
+ *
+ * <pre>
+ * java -cp target/benchmarks.jar com.fitness.benchmarks.HttpLoadTest \
+ *      http://localhost:8082/api/activity/activitycontroller/getActivityHistory/{userId} \
+ *      --concurrency 400 --duration 60 --label platform --out platform.json
+ * java -cp target/benchmarks.jar com.fitness.benchmarks.HttpLoadTest \
+ *      ... --label virtual --out virtual.json --baseline platform.json
+ * </pre>
+ *
+ * Requests are GETs unless {@code --body} is given, in which case the body is POSTed as JSON.
+ */
+public class HttpLoadTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("usage: HttpLoadTest <url> [--concurrency n] [--duration seconds] [--warmup seconds]"
+                    + " [--header name:value]... [--body json] [--label name] [--out result.json]"
+                    + " [--baseline result.json]");
+            System.exit(2);
+        }
+        URI uri = URI.create(args[0]);
+        int concurrency = 100;
+        int durationSeconds = 30;
+        int warmupSeconds = 10;
+        List<String> headers = new ArrayList<>();
+        String body = null;
+        String label = null;
+        File out = null;
+        File baseline = null;
+        for (int i = 1; i < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--concurrency" -> concurrency = Integer.parseInt(value);
+                case "--duration" -> durationSeconds = Integer.parseInt(value);
+                case "--warmup" -> warmupSeconds = Integer.parseInt(value);
+                case "--header" -> headers.add(value);
+                case "--body" -> body = value;
+                case "--label" -> label = value;
+                case "--out" -> out = new File(value);
+                case "--baseline" -> baseline = new File(value);
+                default -> throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+
+        HttpRequest request = request(uri, headers, body);
+        HttpClient client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newFixedThreadPool(Math.max(4, Runtime.getRuntime().availableProcessors())))
+                .build();
+
+        if (warmupSeconds > 0) {
+            run(client, request, concurrency, Duration.ofSeconds(warmupSeconds));
+        }
+        Result result = run(client, request, concurrency, Duration.ofSeconds(durationSeconds));
+
+        ObjectNode summary = MAPPER.createObjectNode()
+                .put("label", label == null ? uri.toString() : label)
+                .put("concurrency", concurrency)
+                .put("durationSeconds", result.seconds)
+                .put("requests", result.latencies.length)
+                .put("errors", result.errors)
+                .put("throughput", result.latencies.length / result.seconds)
+                .put("p50Millis", result.percentile(50))
+                .put("p90Millis", result.percentile(90))
+                .put("p99Millis", result.percentile(99))
+                .put("maxMillis", result.percentile(100));
+        System.out.println(MAPPER.writerWithDefaultPrettyPrinter().writeValueAsString(summary));
+        if (out != null) {
+            MAPPER.writerWithDefaultPrettyPrinter().writeValue(out, summary);
+        }
+        if (baseline != null) {
+            compare(MAPPER.readTree(baseline), summary);
+        }
+        System.exit(0);
+    }
+
+    static HttpRequest request(URI uri, List<String> headers, String body) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(30));
+        for (String header : headers) {
+            int colon = header.indexOf(':');
+            builder.header(header.substring(0, colon).trim(), header.substring(colon + 1).trim());
+        }
+        if (body == null) {
+            return builder.GET().build();
+        }
+        return builder.header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    static Result run(HttpClient client, HttpRequest request, int concurrency, Duration duration)
+            throws Exception {
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+        AtomicBoolean running = new AtomicBoolean(true);
+        List<Future<Worker>> futures = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int i = 0; i < concurrency; i++) {
+            futures.add(workers.submit(() -> new Worker().loop(client, request, running)));
+        }
+        Thread.sleep(duration.toMillis());
+        running.set(false);
+
+        long[] latencies = new long[0];
+        long errors = 0;
+        for (Future<Worker> future : futures) {
+            Worker worker = future.get();
+            long[] merged = Arrays.copyOf(latencies, latencies.length + worker.count);
+            System.arraycopy(worker.latencies, 0, merged, latencies.length, worker.count);
+            latencies = merged;
+            errors += worker.errors;
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        workers.shutdown();
+        Arrays.sort(latencies);
+        return new Result(latencies, errors, seconds);
+    }
+
+    private static void compare(JsonNode baseline, JsonNode current) {
+        System.out.printf("%-14s %14s %14s %9s%n", "", baseline.path("label").asText(), current.path("label").asText(),
+                "Change");
+        for (String field : List.of("throughput", "p50Millis", "p90Millis", "p99Millis", "maxMillis", "errors")) {
+            double base = baseline.path(field).asDouble();
+            double value = current.path(field).asDouble();
+            String change = base == 0 ? "-" : String.format("%+8.1f%%", (value - base) / base * 100);
+            System.out.printf("%-14s %14.2f %14.2f %9s%n", field, base, value, change);
+        }
+    }
+
+    /**
+     * One simulated client; only 2xx answers count as successful requests.
+     */
+    private static final class Worker {
+        private long[] latencies = new long[1024];
+        private int count;
+        private long errors;
+
+        Worker loop(HttpClient client, HttpRequest request, AtomicBoolean running) {
+            while (running.get()) {
+                long start = System.nanoTime();
+                try {
+                    HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                    if (response.statusCode() / 100 != 2) {
+                        errors++;
+                        continue;
+                    }
+                } catch (IOException e) {
+                    errors++;
+                    continue;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+                if (count == latencies.length) {
+                    latencies = Arrays.copyOf(latencies, count * 2);
+                }
+                latencies[count++] = System.nanoTime() - start;
+            }
+            return this;
+        }
+    }
+
+    record Result(long[] latencies, long errors, double seconds) {
+
+        double percentile(double percentile) {
+            if (latencies.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(percentile / 100 * latencies.length) - 1;
+            return latencies[Math.max(0, index)] / 1e6;
+        }
+    }
+}
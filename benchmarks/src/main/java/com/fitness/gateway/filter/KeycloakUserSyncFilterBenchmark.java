@@ -0,0 +1,75 @@
+package com.fitness.gateway.filter;
+
+import com.fitness.gateway.userService.dto.RegisterUser;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.MACSigner;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JWT parsing done by the gateway's user sync filter, through the token-hash claims cache and with a zero claims
+ * TTL, where every call parses the token again.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class KeycloakUserSyncFilterBenchmark {
+
+    private KeycloakUserSyncFilter filter;
+    private KeycloakUserSyncFilter uncachedFilter;
+    private String authorizationHeader;
+
+    @Setup
+    public void setUp() throws Exception {
+        filter = new KeycloakUserSyncFilter(null, 1000, Duration.ofMinutes(10), 1000, Duration.ofMinutes(5));
+        uncachedFilter = new KeycloakUserSyncFilter(null, 1000, Duration.ofMinutes(10), 1000, Duration.ZERO);
+        JWTClaimsSet claims = new JWTClaimsSet.Builder()
+                .issuer("http://localhost:9090/realms/fitness-app")
+                .subject("5f0c2b7e-2a61-4c1c-9a3b-0f6d2d1c9e11")
+                .audience(List.of("account"))
+                .expirationTime(new Date(System.currentTimeMillis() + 300_000))
+                .issueTime(new Date())
+                .claim("email", "jane.doe@example.com")
+                .claim("given_name", "Jane")
+                .claim("family_name", "Doe")
+                .claim("preferred_username", "jane")
+                .claim("realm_access", Map.of("roles", List.of("offline_access", "uma_authorization")))
+                .build();
+        byte[] secret = new byte[32];
+        new SecureRandom().nextBytes(secret);
+        SignedJWT jwt = new SignedJWT(new JWSHeader(JWSAlgorithm.HS256), claims);
+        jwt.sign(new MACSigner(secret));
+        authorizationHeader = "Bearer " + jwt.serialize();
+    }
+
+    @Benchmark
+    public RegisterUser uncachedUserDetails() {
+        return uncachedFilter.userDetails(authorizationHeader);
+    }
+
+    @Benchmark
+    public RegisterUser cachedUserDetails() {
+        return filter.userDetails(authorizationHeader);
+    }
+}
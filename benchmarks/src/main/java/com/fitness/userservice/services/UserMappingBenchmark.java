@@ -0,0 +1,59 @@
+package com.fitness.userservice.services;
+
+import com.fitness.userservice.dto.RegisterUser;
+import com.fitness.userservice.dto.UserResponse;
+import com.fitness.userservice.models.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DTO mapping done by {@code UserService.register} around the repository calls.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UserMappingBenchmark {
+
+    private final UserService userService = new UserService();
+    private RegisterUser registerUser;
+    private User user;
+
+    @Setup
+    public void setUp() {
+        registerUser = new RegisterUser();
+        registerUser.setKeycloakId("5f0c2b7e-2a61-4c1c-9a3b-0f6d2d1c9e11");
+        registerUser.setEmail("jane.doe@example.com");
+        registerUser.setPassword("dummy@123");
+        registerUser.setFirstname("Jane");
+        registerUser.setLastname("Doe");
+
+        user = userService.mapToUser(registerUser);
+        user.setId("0b8f6d4e-6a43-4b8e-9a57-3d1f2c0e7b21");
+        user.setCreatedAt(LocalDateTime.of(2025, 9, 1, 8, 0));
+        user.setUpdatedAt(user.getCreatedAt());
+    }
+
+    @Benchmark
+    public User mapRegisterUserToUser() {
+        return userService.mapToUser(registerUser);
+    }
+
+    @Benchmark
+    public UserResponse mapUserToResponse() {
+        return userService.mapToResponse(user);
+    }
+}
@@ -0,0 +1,309 @@
+package com.fitness.common.model;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import lombok.EqualsAndHashCode;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * Metrics recorded with an activity. The well-known ones are held as primitives, anything else goes to an
+ * overflow map. In JSON and in Mongo it is the same flat object clients have always sent, so old documents,
+ * payloads and events read unchanged. Producer and consumer of the activity events share this class.
+ * <p>
+ * Reading is lenient: a known key with a value that is not a number is kept in the overflow map as-is.
+ * {@link #validate()} reports such values and numbers outside the sanity bounds of each metric.
+ */
+@JsonSerialize(using = ActivityMetrics.JsonWriter.class)
+@JsonDeserialize(using = ActivityMetrics.JsonReader.class)
+@EqualsAndHashCode
+public final class ActivityMetrics {
+
+    public enum Metric {
+        HEART_RATE_AVG("heartRateAvg", true, 20, 300),
+        HEART_RATE_MAX("heartRateMax", true, 20, 300),
+        DISTANCE("distance", false, 0, 100_000),
+        PACE("pace", false, 0, 1_000),
+        ELEVATION("elevation", false, -500, 100_000),
+        CADENCE("cadence", true, 0, 400);
+
+        private static final Metric[] VALUES = values();
+
+        private final String key;
+        private final boolean integral;
+        private final double min;
+        private final double max;
+
+        Metric(String key, boolean integral, double min, double max) {
+            this.key = key;
+            this.integral = integral;
+            this.min = min;
+            this.max = max;
+        }
+
+        public String key() {
+            return key;
+        }
+
+        public boolean isIntegral() {
+            return integral;
+        }
+
+        public static Metric byKey(String key) {
+            for (Metric metric : VALUES) {
+                if (metric.key.equals(key)) {
+                    return metric;
+                }
+            }
+            return null;
+        }
+    }
+
+    private int present;
+    private int heartRateAvg;
+    private int heartRateMax;
+    private int cadence;
+    private double distance;
+    private double pace;
+    private double elevation;
+    // created on the first unknown key, most activities never need it
+    private Map<String, Object> other;
+
+    public static ActivityMetrics of(Map<String, ?> metrics) {
+        ActivityMetrics result = new ActivityMetrics();
+        if (metrics != null) {
+            metrics.forEach(result::put);
+        }
+        return result;
+    }
+
+    public boolean has(Metric metric) {
+        return (present & (1 << metric.ordinal())) != 0;
+    }
+
+    /**
+     * Returns the metric's value, or {@code NaN} if it was not recorded.
+     */
+    public double get(Metric metric) {
+        if (!has(metric)) {
+            return Double.NaN;
+        }
+        return switch (metric) {
+            case HEART_RATE_AVG -> heartRateAvg;
+            case HEART_RATE_MAX -> heartRateMax;
+            case CADENCE -> cadence;
+            case DISTANCE -> distance;
+            case PACE -> pace;
+            case ELEVATION -> elevation;
+        };
+    }
+
+    /**
+     * Records a known metric; integral metrics such as heart rate are rounded to the nearest whole number.
+     */
+    public ActivityMetrics set(Metric metric, double value) {
+        switch (metric) {
+            case HEART_RATE_AVG -> heartRateAvg = (int) Math.round(value);
+            case HEART_RATE_MAX -> heartRateMax = (int) Math.round(value);
+            case CADENCE -> cadence = (int) Math.round(value);
+            case DISTANCE -> distance = value;
+            case PACE -> pace = value;
+            case ELEVATION -> elevation = value;
+        }
+        present |= 1 << metric.ordinal();
+        if (other != null) {
+            other.remove(metric.key);
+        }
+        return this;
+    }
+
+    /**
+     * Records a metric by key. Numbers (and numeric strings) for known keys are stored as primitives,
+     * everything else is kept in the overflow map.
+     */
+    public ActivityMetrics put(String key, Object value) {
+        Metric metric = Metric.byKey(key);
+        if (metric != null) {
+            double number = toNumber(value);
+            if (Double.isFinite(number)) {
+                return set(metric, number);
+            }
+            set(metric, 0);
+            present &= ~(1 << metric.ordinal());
+        }
+        if (other == null) {
+            other = new LinkedHashMap<>();
+        }
+        other.put(key, value);
+        return this;
+    }
+
+    public Object get(String key) {
+        Metric metric = Metric.byKey(key);
+        if (metric != null && has(metric)) {
+            return boxed(metric);
+        }
+        return other == null ? null : other.get(key);
+    }
+
+    /**
+     * The values that are not one of the known metrics, in insertion order.
+     */
+    public Map<String, Object> getOther() {
+        return other == null ? Map.of() : Collections.unmodifiableMap(other);
+    }
+
+    public int size() {
+        return Integer.bitCount(present) + (other == null ? 0 : other.size());
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Visits the known metrics in declaration order, then the overflow values in insertion order.
+     */
+    public void forEach(BiConsumer<String, Object> action) {
+        for (Metric metric : Metric.VALUES) {
+            if (has(metric)) {
+                action.accept(metric.key, boxed(metric));
+            }
+        }
+        if (other != null) {
+            other.forEach(action);
+        }
+    }
+
+    public Map<String, Object> asMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        forEach(map::put);
+        return map;
+    }
+
+    /**
+     * Returns one message per known metric that is not a number or lies outside its bounds; empty when
+     * everything is valid.
+     */
+    public List<String> validate() {
+        List<String> violations = new ArrayList<>();
+        for (Metric metric : Metric.VALUES) {
+            if (has(metric)) {
+                double value = get(metric);
+                if (value < metric.min || value > metric.max) {
+                    violations.add(metric.key + " must be between " + format(metric, metric.min) + " and "
+                            + format(metric, metric.max) + " but was " + format(metric, value));
+                }
+            } else if (other != null && other.containsKey(metric.key)) {
+                violations.add(metric.key + " must be a number but was " + other.get(metric.key));
+            }
+        }
+        return violations;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder("{");
+        forEach((key, value) -> {
+            if (text.length() > 1) {
+                text.append(", ");
+            }
+            text.append(key).append('=').append(value);
+        });
+        return text.append('}').toString();
+    }
+
+    private Object boxed(Metric metric) {
+        double value = get(metric);
+        return metric.integral ? (Object) (int) value : (Object) value;
+    }
+
+    private static String format(Metric metric, double value) {
+        return metric.integral ? Long.toString(Math.round(value)) : Double.toString(value);
+    }
+
+    private static double toNumber(Object value) {
+        if (value instanceof Number number) {
+            return number.doubleValue();
+        }
+        if (value instanceof String text) {
+            try {
+                return Double.parseDouble(text.trim());
+            } catch (NumberFormatException e) {
+                return Double.NaN;
+            }
+        }
+        return Double.NaN;
+    }
+
+    static class JsonWriter extends StdSerializer<ActivityMetrics> {
+
+        JsonWriter() {
+            super(ActivityMetrics.class);
+        }
+
+        @Override
+        public void serialize(ActivityMetrics metrics, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartObject(metrics);
+            for (Metric metric : Metric.VALUES) {
+                if (metrics.has(metric)) {
+                    gen.writeFieldName(metric.key);
+                    if (metric.integral) {
+                        gen.writeNumber((int) metrics.get(metric));
+                    } else {
+                        gen.writeNumber(metrics.get(metric));
+                    }
+                }
+            }
+            if (metrics.other != null) {
+                for (Map.Entry<String, Object> entry : metrics.other.entrySet()) {
+                    provider.defaultSerializeField(entry.getKey(), entry.getValue(), gen);
+                }
+            }
+            gen.writeEndObject();
+        }
+    }
+
+    static class JsonReader extends StdDeserializer<ActivityMetrics> {
+
+        JsonReader() {
+            super(ActivityMetrics.class);
+        }
+
+        @Override
+        public ActivityMetrics deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            JsonToken token = p.currentToken();
+            if (token == JsonToken.START_OBJECT) {
+                token = p.nextToken();
+            }
+            if (token != JsonToken.FIELD_NAME && token != JsonToken.END_OBJECT) {
+                return (ActivityMetrics) ctxt.handleUnexpectedToken(ActivityMetrics.class, p);
+            }
+            ActivityMetrics metrics = new ActivityMetrics();
+            for (; token == JsonToken.FIELD_NAME; token = p.nextToken()) {
+                String key = p.currentName();
+                JsonToken valueToken = p.nextToken();
+                Metric metric = Metric.byKey(key);
+                if (metric != null && valueToken.isNumeric()) {
+                    metrics.set(metric, p.getDoubleValue());
+                } else {
+                    metrics.put(key, ctxt.readValue(p, Object.class));
+                }
+            }
+            return metrics;
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package com.fitness.common.monitoring;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.core.env.Environment;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Watches virtual threads in the {@code virtual-threads} profile. A JFR stream picks up every time a virtual
+ * thread stays pinned to its carrier for longer than {@code virtual-threads.monitor.pinned-threshold}, usually by
+ * blocking inside {@code synchronized} or native code, and groups those events by the frames that pinned it. The
+ * {@code virtualthreads} actuator endpoint reports the pinning sites together with how many carrier threads exist
+ * and how many are busy. Registered by {@link VirtualThreadMonitorAutoConfiguration}.
+ */
+@Endpoint(id = "virtualthreads")
+@Slf4j
+public class VirtualThreadMonitor implements SmartLifecycle {
+
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final String SUBMIT_FAILED_EVENT = "jdk.VirtualThreadSubmitFailed";
+    private static final String CARRIER_THREAD_CLASS = "jdk.internal.misc.CarrierThread";
+    private static final String OTHER_SITES = "(other)";
+    private static final int MAX_SITES = 50;
+    private static final int SITE_FRAMES = 8;
+
+    private final Environment environment;
+    private final Duration pinnedThreshold;
+    private final Timer pinnedTimer;
+    private final Counter submitFailures;
+    private final Map<String, PinnedSite> pinnedSites = new ConcurrentHashMap<>();
+    private volatile RecordingStream stream;
+
+    public VirtualThreadMonitor(MeterRegistry meterRegistry, Environment environment, Duration pinnedThreshold) {
+        this.environment = environment;
+        this.pinnedThreshold = pinnedThreshold;
+        this.pinnedTimer = Timer.builder("jvm.threads.virtual.pinned")
+                .description("Time virtual threads stayed pinned to their carrier thread")
+                .register(meterRegistry);
+        this.submitFailures = Counter.builder("jvm.threads.virtual.submit.failed")
+                .description("Virtual threads that could not be scheduled on a carrier")
+                .register(meterRegistry);
+        Gauge.builder("jvm.threads.virtual.carriers", () -> carrierThreads().size())
+                .description("Live carrier threads of the virtual-thread scheduler")
+                .register(meterRegistry);
+        Gauge.builder("jvm.threads.virtual.carriers.busy", () -> busy(carrierThreads()))
+                .description("Carrier threads currently running a virtual thread")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void start() {
+        if (Runtime.version().feature() < 21) {
+            log.warn("Virtual threads need Java 21 or later, running on {}; pinning is not monitored", Runtime.version());
+            return;
+        }
+        RecordingStream recording = new RecordingStream();
+        recording.enable(PINNED_EVENT).withThreshold(pinnedThreshold).withStackTrace();
+        recording.enable(SUBMIT_FAILED_EVENT);
+        recording.onEvent(PINNED_EVENT, this::onPinned);
+        recording.onEvent(SUBMIT_FAILED_EVENT, event -> submitFailures.increment());
+        recording.startAsync();
+        stream = recording;
+        log.info("Monitoring virtual threads pinned for longer than {}", pinnedThreshold);
+    }
+
+    @Override
+    public void stop() {
+        RecordingStream recording = stream;
+        stream = null;
+        if (recording != null) {
+            recording.close();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return stream != null;
+    }
+
+    @ReadOperation
+    public VirtualThreadReport report() {
+        List<Thread> carriers = carrierThreads();
+        List<PinnedSiteReport> sites = pinnedSites.entrySet().stream()
+                .map(entry -> entry.getValue().report(entry.getKey()))
+                .sorted(Comparator.comparingDouble(PinnedSiteReport::totalMillis).reversed())
+                .toList();
+        return new VirtualThreadReport(
+                Threading.VIRTUAL.isActive(environment),
+                Runtime.version().toString(),
+                Integer.getInteger("jdk.virtualThreadScheduler.parallelism", Runtime.getRuntime().availableProcessors()),
+                carriers.size(),
+                busy(carriers),
+                pinnedTimer.count(),
+                pinnedTimer.totalTime(TimeUnit.MILLISECONDS),
+                (long) submitFailures.count(),
+                sites);
+    }
+
+    private void onPinned(RecordedEvent event) {
+        Duration duration = event.getDuration();
+        pinnedTimer.record(duration);
+        String site = site(event.getStackTrace());
+        PinnedSite pinnedSite = pinnedSites.get(site);
+        if (pinnedSite == null) {
+            if (pinnedSites.size() >= MAX_SITES) {
+                site = OTHER_SITES;
+            } else {
+                log.warn("Virtual thread pinned to its carrier for {} ms at\n{}", duration.toMillis(), site);
+            }
+            pinnedSite = pinnedSites.computeIfAbsent(site, key -> new PinnedSite());
+        }
+        pinnedSite.record(duration);
+    }
+
+    private static String site(RecordedStackTrace stackTrace) {
+        if (stackTrace == null) {
+            return "(no stack trace)";
+        }
+        return stackTrace.getFrames().stream()
+                .limit(SITE_FRAMES)
+                .map(VirtualThreadMonitor::frame)
+                .collect(Collectors.joining("\n"));
+    }
+
+    private static String frame(RecordedFrame frame) {
+        return frame.getMethod().getType().getName() + "." + frame.getMethod().getName() + ":" + frame.getLineNumber();
+    }
+
+    private static List<Thread> carrierThreads() {
+        ThreadGroup root = Thread.currentThread().getThreadGroup();
+        while (root.getParent() != null) {
+            root = root.getParent();
+        }
+        Thread[] threads = new Thread[root.activeCount() + 32];
+        int count = root.enumerate(threads, true);
+        List<Thread> carriers = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            if (CARRIER_THREAD_CLASS.equals(threads[i].getClass().getName())) {
+                carriers.add(threads[i]);
+            }
+        }
+        return carriers;
+    }
+
+    /**
+     * An idle carrier parks waiting for work, one that has a virtual thread mounted is runnable.
+     */
+    private static int busy(List<Thread> carriers) {
+        return (int) carriers.stream().filter(thread -> thread.getState() == Thread.State.RUNNABLE).count();
+    }
+
+    private static final class PinnedSite {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+
+        void record(Duration duration) {
+            long nanos = duration.toNanos();
+            count.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulateAndGet(nanos, Math::max);
+        }
+
+        PinnedSiteReport report(String stack) {
+            return new PinnedSiteReport(stack, count.sum(), totalNanos.sum() / 1e6, maxNanos.get() / 1e6);
+        }
+    }
+
+    public record VirtualThreadReport(boolean virtualThreadsEnabled,
+                                      String runtimeVersion,
+                                      int schedulerParallelism,
+                                      int carrierThreads,
+                                      int busyCarrierThreads,
+                                      long pinnedEvents,
+                                      double pinnedTotalMillis,
+                                      long submitFailures,
+                                      List<PinnedSiteReport> pinnedSites) {
+    }
+
+    public record PinnedSiteReport(String stack, long count, double totalMillis, double maxMillis) {
+    }
+}
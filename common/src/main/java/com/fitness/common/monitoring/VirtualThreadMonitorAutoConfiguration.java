@@ -0,0 +1,30 @@
+package com.fitness.common.monitoring;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.env.Environment;
+
+import java.time.Duration;
+
+/**
+ * Provides the {@link VirtualThreadMonitor} when {@code virtual-threads.monitor.enabled} is set, as the
+ * {@code virtual-threads} profile does.
+ */
+@AutoConfiguration(afterName = "org.springframework.boot.actuate.autoconfigure.metrics.CompositeMeterRegistryAutoConfiguration")
+@ConditionalOnClass(Endpoint.class)
+@ConditionalOnProperty(name = "virtual-threads.monitor.enabled", havingValue = "true")
+public class VirtualThreadMonitorAutoConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean
+    public VirtualThreadMonitor virtualThreadMonitor(MeterRegistry meterRegistry, Environment environment,
+                                                     @Value("${virtual-threads.monitor.pinned-threshold:20ms}") Duration pinnedThreshold) {
+        return new VirtualThreadMonitor(meterRegistry, environment, pinnedThreshold);
+    }
+}
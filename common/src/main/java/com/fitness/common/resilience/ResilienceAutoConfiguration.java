@@ -0,0 +1,39 @@
+package com.fitness.common.resilience;
+
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.reactor.circuitbreaker.operator.CircuitBreakerOperator;
+import io.github.resilience4j.retry.RetryRegistry;
+import io.github.resilience4j.timelimiter.TimeLimiterRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+
+/**
+ * Provides {@link ResilientCalls} to services that have resilience4j's Spring Boot and Reactor modules on the
+ * classpath, on top of the registries resilience4j configures from {@code resilience4j.*}.
+ */
+@AutoConfiguration(afterName = {
+        "io.github.resilience4j.springboot3.circuitbreaker.autoconfigure.CircuitBreakerAutoConfiguration",
+        "io.github.resilience4j.springboot3.bulkhead.autoconfigure.BulkheadAutoConfiguration",
+        "io.github.resilience4j.springboot3.timelimiter.autoconfigure.TimeLimiterAutoConfiguration",
+        "io.github.resilience4j.springboot3.retry.autoconfigure.RetryAutoConfiguration",
+        "org.springframework.boot.actuate.autoconfigure.metrics.CompositeMeterRegistryAutoConfiguration"
+})
+@ConditionalOnClass({CircuitBreakerOperator.class, CircuitBreakerRegistry.class})
+public class ResilienceAutoConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnBean({CircuitBreakerRegistry.class, BulkheadRegistry.class, TimeLimiterRegistry.class,
+            RetryRegistry.class, MeterRegistry.class})
+    public ResilientCalls resilientCalls(CircuitBreakerRegistry circuitBreakerRegistry, BulkheadRegistry bulkheadRegistry,
+                                         TimeLimiterRegistry timeLimiterRegistry, RetryRegistry retryRegistry,
+                                         MeterRegistry meterRegistry) {
+        return new ResilientCalls(circuitBreakerRegistry, bulkheadRegistry, timeLimiterRegistry, retryRegistry,
+                meterRegistry);
+    }
+}
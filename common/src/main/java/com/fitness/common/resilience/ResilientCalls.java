@@ -0,0 +1,104 @@
+package com.fitness.common.resilience;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.reactor.bulkhead.operator.BulkheadOperator;
+import io.github.resilience4j.reactor.circuitbreaker.operator.CircuitBreakerOperator;
+import io.github.resilience4j.reactor.retry.RetryOperator;
+import io.github.resilience4j.reactor.timelimiter.TimeLimiterOperator;
+import io.github.resilience4j.retry.RetryRegistry;
+import io.github.resilience4j.timelimiter.TimeLimiterRegistry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+
+/**
+ * Guards calls to another service with the resilience4j instances named after that dependency, configured under
+ * {@code resilience4j.<kind>.instances.<dependency>} on top of the shared defaults. From the inside out a call
+ * passes the time limiter, the bulkhead and the circuit breaker, so the time limit covers the call itself and not
+ * the wait for a permit; idempotent calls are also retried with jittered backoff and may be hedged. The state of
+ * every instance is published as {@code resilience4j.*} metrics. Registered by {@link ResilienceAutoConfiguration}.
+ */
+@RequiredArgsConstructor
+public class ResilientCalls {
+
+    private final CircuitBreakerRegistry circuitBreakerRegistry;
+    private final BulkheadRegistry bulkheadRegistry;
+    private final TimeLimiterRegistry timeLimiterRegistry;
+    private final RetryRegistry retryRegistry;
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * For calls that must not be repeated: bulkhead, time limit and circuit breaker, no retry.
+     */
+    public <T> Mono<T> call(String dependency, Mono<T> call) {
+        Mono<T> limited = call.transformDeferred(TimeLimiterOperator.of(timeLimiterRegistry.timeLimiter(dependency)));
+        return isolate(dependency, limited)
+                .transformDeferred(CircuitBreakerOperator.of(circuitBreakerRegistry.circuitBreaker(dependency)));
+    }
+
+    /**
+     * For idempotent reads: {@link #call} plus retries of transient failures.
+     */
+    public <T> Mono<T> idempotent(String dependency, Mono<T> call) {
+        return call(dependency, call)
+                .transformDeferred(RetryOperator.of(retryRegistry.retry(dependency)));
+    }
+
+    /**
+     * Like {@link #idempotent}, but if an attempt has not answered within {@code hedgeDelay} a second request is
+     * sent and the first to finish wins. Each request takes its own bulkhead permit and is seen by the breaker.
+     */
+    public <T> Mono<T> hedged(String dependency, Mono<T> call, Duration hedgeDelay) {
+        Mono<T> guarded = call(dependency, call);
+        Counter hedges = Counter.builder("resilience.hedged.requests")
+                .description("Second requests sent because the first one was slow")
+                .tag("dependency", dependency)
+                .register(meterRegistry);
+        Mono<T> hedge = Mono.delay(hedgeDelay).then(Mono.defer(() -> {
+            hedges.increment();
+            return guarded;
+        }));
+        return Mono.firstWithSignal(guarded, hedge)
+                .transformDeferred(RetryOperator.of(retryRegistry.retry(dependency)));
+    }
+
+    /**
+     * A bulkhead without a wait is applied on the calling thread. One that lets callers queue for a permit is
+     * acquired on a bounded-elastic thread so waiting never blocks an event loop. A permit that only arrives after
+     * the caller cancelled is discarded, and released, instead of being held forever.
+     */
+    private <T> Mono<T> isolate(String dependency, Mono<T> call) {
+        Bulkhead bulkhead = bulkheadRegistry.bulkhead(dependency);
+        if (bulkhead.getBulkheadConfig().getMaxWaitDuration().isZero()) {
+            return call.transformDeferred(BulkheadOperator.of(bulkhead));
+        }
+        Mono<Bulkhead> permit = Mono.fromCallable(() -> {
+                    if (bulkhead.tryAcquirePermission()) {
+                        return bulkhead;
+                    }
+                    // cancelling the caller interrupts the wait; complete quietly as no one is listening
+                    if (Thread.currentThread().isInterrupted()) {
+                        return null;
+                    }
+                    throw BulkheadFullException.createBulkheadFullException(bulkhead);
+                })
+                .subscribeOn(Schedulers.boundedElastic())
+                .doOnDiscard(Bulkhead.class, Bulkhead::onComplete);
+        return Mono.usingWhen(permit,
+                acquired -> call,
+                ResilientCalls::release,
+                (acquired, error) -> release(acquired),
+                ResilientCalls::release);
+    }
+
+    private static Mono<Void> release(Bulkhead bulkhead) {
+        return Mono.fromRunnable(bulkhead::onComplete);
+    }
+}
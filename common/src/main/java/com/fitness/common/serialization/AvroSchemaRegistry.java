@@ -0,0 +1,61 @@
+package com.fitness.common.serialization;
+
+import org.apache.avro.Schema;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * File based stand-in for a schema registry. Schemas live in {@code <location>/<subject>.<id>.avsc} with ids
+ * unique across subjects. Every version ever published must stay in the directory so consumers can resolve
+ * records written with it. The default location is in this module, so producer and consumer read the same
+ * schemas.
+ */
+public final class AvroSchemaRegistry {
+
+    public static final String DEFAULT_LOCATION = "classpath:avro";
+
+    private static final Pattern SCHEMA_FILE = Pattern.compile("(.+)\\.(\\d+)\\.avsc");
+    private static final Map<String, AvroSchemaRegistry> REGISTRIES = new ConcurrentHashMap<>();
+
+    private final Map<Integer, Schema> schemasById = new HashMap<>();
+
+    private AvroSchemaRegistry(String location) {
+        try {
+            for (Resource resource : new PathMatchingResourcePatternResolver().getResources(location + "/*.avsc")) {
+                Matcher matcher = SCHEMA_FILE.matcher(resource.getFilename());
+                if (!matcher.matches()) {
+                    continue;
+                }
+                int id = Integer.parseInt(matcher.group(2));
+                try (InputStream inputStream = resource.getInputStream()) {
+                    if (schemasById.put(id, new Schema.Parser().parse(inputStream)) != null) {
+                        throw new IllegalStateException("Duplicate schema id " + id + " in " + location);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to load schemas from " + location, e);
+        }
+    }
+
+    public static AvroSchemaRegistry at(String location) {
+        return REGISTRIES.computeIfAbsent(location, AvroSchemaRegistry::new);
+    }
+
+    public Schema byId(int id) {
+        Schema schema = schemasById.get(id);
+        if (schema == null) {
+            throw new IllegalArgumentException("Unknown schema id " + id);
+        }
+        return schema;
+    }
+}
@@ -0,0 +1,57 @@
+package com.fitness.common.validation;
+
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Micro-batches single-user validations: requests arriving within {@code window} of each other, up to
+ * {@code maxBatchSize}, are answered by one call to userservice's bulk validate endpoint. A user requested twice
+ * in the same window is looked up once. If the bulk call fails, every request in the batch fails with it.
+ */
+@Slf4j
+public class UserValidationBatcher {
+
+    private static final int MAX_CONCURRENT_BATCHES = 16;
+
+    private final Sinks.Many<Pending> requests = Sinks.many().unicast().onBackpressureBuffer();
+    private final Function<Set<String>, Mono<Map<String, Boolean>>> bulkValidate;
+
+    public UserValidationBatcher(Function<Set<String>, Mono<Map<String, Boolean>>> bulkValidate,
+                                 int maxBatchSize,
+                                 Duration window) {
+        this.bulkValidate = bulkValidate;
+        requests.asFlux()
+                .bufferTimeout(maxBatchSize, window, true)
+                .flatMap(this::dispatch, MAX_CONCURRENT_BATCHES)
+                .subscribe();
+    }
+
+    public Mono<Boolean> validate(String userId) {
+        return Mono.create(sink -> requests.emitNext(new Pending(userId, sink),
+                Sinks.EmitFailureHandler.busyLooping(Duration.ofMillis(100))));
+    }
+
+    private Mono<Void> dispatch(List<Pending> batch) {
+        Set<String> userIds = batch.stream().map(Pending::userId).collect(Collectors.toSet());
+        log.debug("Validating {} users for {} requests in one call", userIds.size(), batch.size());
+        return bulkValidate.apply(userIds)
+                .defaultIfEmpty(Map.of())
+                .doOnNext(result -> batch.forEach(pending ->
+                        pending.sink().success(result.getOrDefault(pending.userId(), false))))
+                .doOnError(e -> batch.forEach(pending -> pending.sink().error(e)))
+                .onErrorResume(e -> Mono.empty())
+                .then();
+    }
+
+    private record Pending(String userId, MonoSink<Boolean> sink) {
+    }
+}
@@ -0,0 +1,38 @@
+package com.fitness.common.monitoring;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class VirtualThreadMonitorAutoConfigurationTests {
+
+    // converts "20ms" to a Duration as in an application
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withInitializer(context -> context.getBeanFactory()
+                    .setConversionService(ApplicationConversionService.getSharedInstance()))
+            .withBean(MeterRegistry.class, SimpleMeterRegistry::new)
+            .withConfiguration(AutoConfigurations.of(VirtualThreadMonitorAutoConfiguration.class));
+
+    @Test
+    void monitorsOnlyWhenEnabled() {
+        contextRunner.run(context -> assertThat(context).doesNotHaveBean(VirtualThreadMonitor.class));
+        contextRunner.withPropertyValues("virtual-threads.monitor.enabled=true")
+                .run(context -> assertThat(context).hasSingleBean(VirtualThreadMonitor.class));
+    }
+
+    @Test
+    void reportsTheRuntimeItRunsOn() {
+        contextRunner.withPropertyValues("virtual-threads.monitor.enabled=true",
+                        "virtual-threads.monitor.pinned-threshold=5ms")
+                .run(context -> {
+                    VirtualThreadMonitor.VirtualThreadReport report = context.getBean(VirtualThreadMonitor.class).report();
+                    assertThat(report.runtimeVersion()).isEqualTo(Runtime.version().toString());
+                    assertThat(report.pinnedEvents()).isZero();
+                });
+    }
+}
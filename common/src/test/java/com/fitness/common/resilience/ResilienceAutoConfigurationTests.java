@@ -0,0 +1,34 @@
+package com.fitness.common.resilience;
+
+import io.github.resilience4j.springboot3.bulkhead.autoconfigure.BulkheadAutoConfiguration;
+import io.github.resilience4j.springboot3.circuitbreaker.autoconfigure.CircuitBreakerAutoConfiguration;
+import io.github.resilience4j.springboot3.retry.autoconfigure.RetryAutoConfiguration;
+import io.github.resilience4j.springboot3.timelimiter.autoconfigure.TimeLimiterAutoConfiguration;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ResilienceAutoConfigurationTests {
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withBean(MeterRegistry.class, SimpleMeterRegistry::new)
+            .withConfiguration(AutoConfigurations.of(CircuitBreakerAutoConfiguration.class,
+                    BulkheadAutoConfiguration.class, TimeLimiterAutoConfiguration.class, RetryAutoConfiguration.class,
+                    ResilienceAutoConfiguration.class));
+
+    @Test
+    void providesResilientCallsOnTopOfTheResilience4jRegistries() {
+        contextRunner.run(context -> assertThat(context).hasSingleBean(ResilientCalls.class));
+    }
+
+    @Test
+    void backsOffWithoutTheRegistries() {
+        new ApplicationContextRunner()
+                .withConfiguration(AutoConfigurations.of(ResilienceAutoConfiguration.class))
+                .run(context -> assertThat(context).doesNotHaveBean(ResilientCalls.class));
+    }
+}
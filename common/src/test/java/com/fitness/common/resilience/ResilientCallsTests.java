@@ -0,0 +1,222 @@
+package com.fitness.common.resilience;
+
+import com.sun.net.httpserver.HttpServer;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.core.IntervalFunction;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.github.resilience4j.retry.RetryConfig;
+import io.github.resilience4j.retry.RetryRegistry;
+import io.github.resilience4j.timelimiter.TimeLimiterConfig;
+import io.github.resilience4j.timelimiter.TimeLimiterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ResilientCallsTests {
+
+    private static final String DEPENDENCY = "user-service";
+
+    private HttpServer stubServer;
+    private final AtomicInteger requests = new AtomicInteger();
+    // status and delay of the next responses; once drained every request gets 200 without delay
+    private final Queue<int[]> responses = new ConcurrentLinkedQueue<>();
+    private SimpleMeterRegistry meterRegistry;
+    private CircuitBreakerRegistry circuitBreakerRegistry;
+    private TimeLimiterRegistry timeLimiterRegistry;
+    private RetryRegistry retryRegistry;
+    private ResilientCalls resilientCalls;
+    private WebClient webClient;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        stubServer = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        stubServer.setExecutor(Executors.newCachedThreadPool());
+        stubServer.createContext("/validate", exchange -> {
+            requests.incrementAndGet();
+            int[] response = responses.poll();
+            int status = response == null ? 200 : response[0];
+            try {
+                Thread.sleep(response == null ? 0 : response[1]);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            byte[] body = "true".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(status, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        stubServer.start();
+        webClient = WebClient.create("http://localhost:" + stubServer.getAddress().getPort());
+        // the first request of a fresh client pays for its setup, which would trip the time limiter
+        validate().block();
+        requests.set(0);
+
+        meterRegistry = new SimpleMeterRegistry();
+        circuitBreakerRegistry = CircuitBreakerRegistry.of(CircuitBreakerConfig.custom()
+                .slidingWindowSize(4)
+                .minimumNumberOfCalls(4)
+                .failureRateThreshold(50)
+                .waitDurationInOpenState(Duration.ofMinutes(1))
+                .recordExceptions(IOException.class, TimeoutException.class, WebClientRequestException.class,
+                        WebClientResponseException.ServiceUnavailable.class)
+                .ignoreExceptions(BulkheadFullException.class)
+                .build());
+        TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(circuitBreakerRegistry).bindTo(meterRegistry);
+        BulkheadRegistry bulkheadRegistry = BulkheadRegistry.of(BulkheadConfig.custom()
+                .maxConcurrentCalls(2)
+                .maxWaitDuration(Duration.ZERO)
+                .build());
+        timeLimiterRegistry = TimeLimiterRegistry.of(TimeLimiterConfig.custom()
+                .timeoutDuration(Duration.ofMillis(500))
+                .build());
+        retryRegistry = RetryRegistry.of(RetryConfig.custom()
+                .maxAttempts(3)
+                .intervalFunction(IntervalFunction.ofExponentialRandomBackoff(Duration.ofMillis(10), 2, 0.5))
+                .retryExceptions(IOException.class, TimeoutException.class, WebClientRequestException.class,
+                        WebClientResponseException.ServiceUnavailable.class)
+                .build());
+        resilientCalls = new ResilientCalls(circuitBreakerRegistry, bulkheadRegistry, timeLimiterRegistry,
+                retryRegistry, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        stubServer.stop(0);
+    }
+
+    @Test
+    void retriesTransientFailuresOfIdempotentCalls() {
+        responses.add(new int[]{503, 0});
+        responses.add(new int[]{503, 0});
+
+        assertThat(resilientCalls.idempotent(DEPENDENCY, validate()).block()).isTrue();
+        assertThat(requests).hasValue(3);
+    }
+
+    @Test
+    void doesNotRetryClientErrorsOrNonIdempotentCalls() {
+        responses.add(new int[]{404, 0});
+        assertThatThrownBy(() -> resilientCalls.idempotent(DEPENDENCY, validate()).block())
+                .isInstanceOf(WebClientResponseException.NotFound.class);
+
+        responses.add(new int[]{503, 0});
+        assertThatThrownBy(() -> resilientCalls.call(DEPENDENCY, validate()).block())
+                .isInstanceOf(WebClientResponseException.ServiceUnavailable.class);
+        assertThat(requests).hasValue(2);
+    }
+
+    @Test
+    void opensTheCircuitAfterRepeatedFailuresAndStopsCallingTheDependency() {
+        for (int i = 0; i < 4; i++) {
+            responses.add(new int[]{503, 0});
+            assertThatThrownBy(() -> resilientCalls.call(DEPENDENCY, validate()).block())
+                    .isInstanceOf(WebClientResponseException.ServiceUnavailable.class);
+        }
+
+        assertThatThrownBy(() -> resilientCalls.idempotent(DEPENDENCY, validate()).block())
+                .isInstanceOf(CallNotPermittedException.class);
+        assertThat(requests).hasValue(4);
+        assertThat(meterRegistry.get("resilience4j.circuitbreaker.state")
+                .tag("name", DEPENDENCY).tag("state", "open").gauge().value()).isEqualTo(1);
+    }
+
+    @Test
+    void timesOutSlowCallsAndRejectsCallsBeyondTheBulkhead() {
+        responses.add(new int[]{200, 2_000});
+        assertThatThrownBy(() -> resilientCalls.call(DEPENDENCY, validate()).block())
+                .hasCauseInstanceOf(TimeoutException.class);
+
+        responses.add(new int[]{200, 300});
+        responses.add(new int[]{200, 300});
+        Mono<Boolean> first = resilientCalls.call(DEPENDENCY, validate());
+        Mono<Boolean> second = resilientCalls.call(DEPENDENCY, validate());
+        Mono<Boolean> third = resilientCalls.call(DEPENDENCY, validate()).delaySubscription(Duration.ofMillis(100));
+        assertThatThrownBy(() -> Mono.zip(first, second, third).block())
+                .isInstanceOf(BulkheadFullException.class);
+    }
+
+    @Test
+    void hedgesSlowRequestsWithASecondOne() {
+        responses.add(new int[]{200, 400});
+
+        long start = System.nanoTime();
+        assertThat(resilientCalls.hedged(DEPENDENCY, validate(), Duration.ofMillis(50)).block()).isTrue();
+
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofMillis(400));
+        assertThat(requests).hasValue(2);
+        assertThat(meterRegistry.get("resilience.hedged.requests").tag("dependency", DEPENDENCY).counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void timesOutTheCallButNotTheWaitForAPermit() {
+        BulkheadRegistry bulkheadRegistry = queueingBulkheads(Duration.ofSeconds(2));
+        Bulkhead bulkhead = bulkheadRegistry.bulkhead(DEPENDENCY);
+        ResilientCalls queueing = new ResilientCalls(circuitBreakerRegistry, bulkheadRegistry, timeLimiterRegistry,
+                retryRegistry, meterRegistry);
+        bulkhead.acquirePermission();
+        Mono.delay(Duration.ofMillis(700)).subscribe(tick -> bulkhead.onComplete());
+
+        // waits 700ms for the permit, longer than the 500ms time limit, and still succeeds
+        assertThat(queueing.call(DEPENDENCY, validate()).block()).isTrue();
+        assertThat(bulkhead.getMetrics().getAvailableConcurrentCalls()).isEqualTo(1);
+    }
+
+    @Test
+    void releasesAPermitThatArrivesAfterTheCallerCancelled() throws InterruptedException {
+        BulkheadRegistry bulkheadRegistry = queueingBulkheads(Duration.ofMillis(500));
+        Bulkhead bulkhead = bulkheadRegistry.bulkhead(DEPENDENCY);
+        ResilientCalls queueing = new ResilientCalls(circuitBreakerRegistry, bulkheadRegistry, timeLimiterRegistry,
+                retryRegistry, meterRegistry);
+        bulkhead.acquirePermission();
+
+        Disposable waiting = queueing.call(DEPENDENCY, validate()).subscribe();
+        Thread.sleep(100);
+        waiting.dispose();
+        // the waiting thread gets this permit after its caller is gone
+        bulkhead.onComplete();
+        Thread.sleep(200);
+
+        assertThat(bulkhead.getMetrics().getAvailableConcurrentCalls()).isEqualTo(1);
+        assertThat(requests).hasValue(0);
+    }
+
+    private static BulkheadRegistry queueingBulkheads(Duration maxWait) {
+        return BulkheadRegistry.of(BulkheadConfig.custom()
+                .maxConcurrentCalls(1)
+                .maxWaitDuration(maxWait)
+                .build());
+    }
+
+    private Mono<Boolean> validate() {
+        return webClient.get().uri("/validate").retrieve().bodyToMono(Boolean.class);
+    }
+}
@@ -0,0 +1,48 @@
+package com.fitness.common.validation;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UserValidationBatcherTests {
+
+    @Test
+    void answersRequestsOfOneWindowWithOneBulkCall() {
+        Queue<Set<String>> bulkCalls = new ConcurrentLinkedQueue<>();
+        UserValidationBatcher batcher = new UserValidationBatcher(userIds -> {
+            bulkCalls.add(userIds);
+            return Mono.just(Map.of("user-1", true, "user-2", true));
+        }, 10, Duration.ofMillis(50));
+
+        List<Boolean> validations = Flux.just("user-1", "user-2", "ghost", "user-1")
+                .flatMapSequential(batcher::validate)
+                .collectList()
+                .block();
+
+        assertThat(validations).containsExactly(true, true, false, true);
+        assertThat(bulkCalls).singleElement()
+                .satisfies(userIds -> assertThat(userIds).containsExactlyInAnyOrder("user-1", "user-2", "ghost"));
+    }
+
+    @Test
+    void failsEveryValidationOfABatchWhoseBulkCallFails() {
+        UserValidationBatcher batcher = new UserValidationBatcher(
+                userIds -> Mono.error(new IllegalStateException("down")), 10, Duration.ofMillis(20));
+
+        List<Boolean> validations = Flux.just("user-1", "user-2")
+                .flatMap(userId -> batcher.validate(userId).onErrorReturn(false))
+                .collectList()
+                .block();
+
+        assertThat(validations).containsExactly(false, false);
+    }
+}
@@ -0,0 +1,30 @@
+package com.fitness.gateway.cache;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Invalidates cached recommendation responses when aiservice stores a new recommendation. Every gateway
+ * instance holds its own cache, so each one consumes the topic with its own consumer group, named after the
+ * instance's host and port so a restarted instance rejoins its group instead of leaving an orphan behind.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class RecommendationEventListener {
+
+    private final RecommendationResponseCache recommendationResponseCache;
+
+    @KafkaListener(topics = "${recommendation.events.topic:recommendation-events}",
+            groupId = "gateway-recommendation-cache-${spring.cloud.client.hostname}-${server.port}",
+            properties = "auto.offset.reset=latest",
+            autoStartup = "${gateway.recommendation-cache.invalidation.enabled:true}")
+    public void recommendationStored(ConsumerRecord<String, String> record) {
+        if (record.key() != null) {
+            recommendationResponseCache.invalidateUser(record.key());
+        }
+    }
+}
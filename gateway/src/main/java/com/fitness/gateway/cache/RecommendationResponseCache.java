@@ -0,0 +1,98 @@
+package com.fitness.gateway.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * Responses of the recommendation read endpoints, shared by every route using the {@code RecommendationCache}
+ * filter. The cache is bounded by total body size ({@code gateway.recommendation-cache.max-size}) and every
+ * entry expires after the TTL of the route that stored it. Entries of a user are dropped when aiservice
+ * announces a new recommendation for them.
+ */
+@Component
+@Slf4j
+public class RecommendationResponseCache {
+
+    private final Cache<CacheKey, CachedResponse> responses;
+    private final Cache<String, Long> invalidatedAt;
+    private final long maxEntrySize;
+
+    public RecommendationResponseCache(@Value("${gateway.recommendation-cache.max-size:16MB}") DataSize maxSize,
+                                       @Value("${gateway.recommendation-cache.max-entry-size:256KB}") DataSize maxEntrySize,
+                                       @Value("${gateway.recommendation-cache.max-ttl:10m}") Duration maxTtl) {
+        this.responses = Caffeine.newBuilder()
+                .maximumWeight(maxSize.toBytes())
+                .weigher((CacheKey key, CachedResponse response) -> response.weight(key))
+                .expireAfter(new RouteTtlExpiry())
+                .build();
+        // remembers recent invalidations so a response fetched before one is not stored after it
+        this.invalidatedAt = Caffeine.newBuilder()
+                .expireAfterWrite(maxTtl)
+                .build();
+        this.maxEntrySize = maxEntrySize.toBytes();
+    }
+
+    public CachedResponse get(CacheKey key) {
+        return responses.getIfPresent(key);
+    }
+
+    /**
+     * Stores a response unless it is too large or its user was invalidated after {@code requestStartedNanos}.
+     */
+    public void put(CacheKey key, CachedResponse response, long requestStartedNanos) {
+        if (response.body().length > maxEntrySize) {
+            return;
+        }
+        Long invalidated = invalidatedAt.getIfPresent(key.user());
+        if (invalidated != null && invalidated - requestStartedNanos >= 0) {
+            return;
+        }
+        responses.put(key, response);
+    }
+
+    /**
+     * Drops every cached response requested by the user, or listing the user's recommendations.
+     */
+    public void invalidateUser(String userId) {
+        invalidatedAt.put(userId, System.nanoTime());
+        String userSegment = "/" + userId;
+        responses.asMap().keySet().removeIf(key -> key.user().equals(userId) || key.path().endsWith(userSegment));
+        log.debug("Invalidated cached recommendations of user {}", userId);
+    }
+
+    public record CacheKey(String user, String path) {
+    }
+
+    public record CachedResponse(byte[] body, MediaType contentType, String etag, Duration ttl) {
+
+        int weight(CacheKey key) {
+            return body.length + key.user().length() + key.path().length();
+        }
+    }
+
+    private static class RouteTtlExpiry implements Expiry<CacheKey, CachedResponse> {
+
+        @Override
+        public long expireAfterCreate(CacheKey key, CachedResponse response, long currentTime) {
+            return response.ttl().toNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(CacheKey key, CachedResponse response, long currentTime, long currentDuration) {
+            return response.ttl().toNanos();
+        }
+
+        @Override
+        public long expireAfterRead(CacheKey key, CachedResponse response, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -2,10 +2,14 @@ package com.fitness.gateway.filter;
 
 import com.fitness.gateway.userService.dto.RegisterUser;
 import com.fitness.gateway.userService.service.UserService;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import com.nimbusds.jwt.JWTClaimsSet;
 import com.nimbusds.jwt.SignedJWT;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.server.reactive.ServerHttpRequest;
 import org.springframework.stereotype.Component;
 import org.springframework.web.server.ServerWebExchange;
@@ -13,46 +17,84 @@ import org.springframework.web.server.WebFilter;
 import org.springframework.web.server.WebFilterChain;
 import reactor.core.publisher.Mono;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Date;
+import java.util.HexFormat;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Makes sure every Keycloak user reaching the gateway exists in userservice. Users synced within
+ * {@code gateway.user-sync.synced-ttl} skip the validate round trip, concurrent first requests of a new user
+ * share a single validate/register call, and parsed token claims are reused by token hash until the token
+ * expires.
+ */
 @Component
 @Slf4j
-@RequiredArgsConstructor
 public class KeycloakUserSyncFilter implements WebFilter {
 
     private final UserService userService;
+    private final AsyncCache<String, Boolean> syncedUsers;
+    private final Cache<String, ParsedToken> claimsByTokenHash;
+
+    public KeycloakUserSyncFilter(UserService userService,
+                                  @Value("${gateway.user-sync.synced-max-size:100000}") long syncedMaxSize,
+                                  @Value("${gateway.user-sync.synced-ttl:10m}") Duration syncedTtl,
+                                  @Value("${gateway.user-sync.claims-max-size:10000}") long claimsMaxSize,
+                                  @Value("${gateway.user-sync.claims-ttl:5m}") Duration claimsTtl) {
+        this.userService = userService;
+        this.syncedUsers = Caffeine.newBuilder()
+                .maximumSize(syncedMaxSize)
+                .expireAfterWrite(syncedTtl)
+                .buildAsync();
+        this.claimsByTokenHash = Caffeine.newBuilder()
+                .maximumSize(claimsMaxSize)
+                .expireAfter(new TokenExpiry(claimsTtl))
+                .build();
+    }
 
     @Override
     public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
         String userId = exchange.getRequest().getHeaders().getFirst("X-User-ID");
         String token = exchange.getRequest().getHeaders().getFirst("Authorization");
-        RegisterUser registerUser = getUserDetails(token);
+        if (token == null) {
+            return chain.filter(exchange);
+        }
+        RegisterUser registerUser = userDetails(token);
         if (userId == null) {
             userId = registerUser.getKeycloakId();
         }
-        if (userId != null && token != null) {
+        if (userId != null) {
             String finalUserId = userId;
-            return userService.validateUser(userId).flatMap(exist -> {
-                if (!exist) {
-                    if (registerUser != null) {
-                        return userService.registerUser(registerUser)
-                                .then(Mono.empty());
-                    } else {
-                        return Mono.empty();
-                    }
-                } else {
-                    log.info("User already exist, skipping sync");
-                    return Mono.empty();
-                }
-//                return null;
-            }).then(Mono.defer(() -> {
-                ServerHttpRequest mutatedRequest = exchange.getRequest().mutate()
-                        .header("X-User-Id", finalUserId).build();
-                return chain.filter(exchange.mutate().request(mutatedRequest).build());
-            }));
+            // the shared future must survive a cancelled request, other requests may be waiting on it
+            return Mono.fromFuture(syncedUsers.get(userId, (id, executor) -> syncUser(id, registerUser).toFuture()), true)
+                    .then(Mono.defer(() -> {
+                        ServerHttpRequest mutatedRequest = exchange.getRequest().mutate()
+                                .header("X-User-Id", finalUserId).build();
+                        return chain.filter(exchange.mutate().request(mutatedRequest).build());
+                    }));
         }
         return chain.filter(exchange);
     }
 
-    private RegisterUser getUserDetails(String token) {
+    private Mono<Boolean> syncUser(String userId, RegisterUser registerUser) {
+        return userService.validateUser(userId).flatMap(exist -> {
+            if (!exist) {
+                return userService.registerUser(registerUser)
+                        .thenReturn(true);
+            }
+            log.info("User already exist, skipping sync");
+            return Mono.just(true);
+        });
+    }
+
+    RegisterUser userDetails(String token) {
+        return claimsByTokenHash.get(sha256(token), tokenHash -> parseToken(token)).registerUser();
+    }
+
+    private ParsedToken parseToken(String token) {
         try {
             String tokenWithoutBearer = token.replace("Bearer", "").trim();
             SignedJWT signedJWT = SignedJWT.parse(tokenWithoutBearer);
@@ -63,9 +105,46 @@ public class KeycloakUserSyncFilter implements WebFilter {
             registerUser.setPassword("dummy@123");
             registerUser.setFirstname(jwtClaimsSet.getStringClaim("given_name"));
             registerUser.setLastname(jwtClaimsSet.getStringClaim("family_name"));
-            return registerUser;
+            Date expirationTime = jwtClaimsSet.getExpirationTime();
+            return new ParsedToken(registerUser, expirationTime == null ? Long.MAX_VALUE : expirationTime.getTime());
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
     }
+
+    private static String sha256(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private record ParsedToken(RegisterUser registerUser, long expiresAtMillis) {
+    }
+
+    /**
+     * Keeps parsed claims for the configured TTL, but never past the token's own expiry.
+     */
+    private record TokenExpiry(Duration ttl) implements Expiry<String, ParsedToken> {
+
+        @Override
+        public long expireAfterCreate(String tokenHash, ParsedToken parsedToken, long currentTime) {
+            // saturates for tokens without exp, whose expiry is Long.MAX_VALUE
+            long untilExpiry = TimeUnit.MILLISECONDS.toNanos(
+                    Math.max(0, parsedToken.expiresAtMillis() - System.currentTimeMillis()));
+            return Math.min(ttl.toNanos(), untilExpiry);
+        }
+
+        @Override
+        public long expireAfterUpdate(String tokenHash, ParsedToken parsedToken, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+        @Override
+        public long expireAfterRead(String tokenHash, ParsedToken parsedToken, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
 }
@@ -0,0 +1,159 @@
+package com.fitness.gateway.filter;
+
+import com.fitness.gateway.cache.RecommendationResponseCache;
+import com.fitness.gateway.cache.RecommendationResponseCache.CacheKey;
+import com.fitness.gateway.cache.RecommendationResponseCache.CachedResponse;
+import lombok.Data;
+import org.reactivestreams.Publisher;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.security.Principal;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Caches successful GET responses per authenticated user and path, for the route's {@code ttl}. Responses carry
+ * an ETag, and a request whose {@code If-None-Match} matches the cached ETag is answered with 304 without
+ * reaching the downstream service.
+ * <pre>
+ * filters:
+ *   - RecommendationCache=30s
+ * </pre>
+ */
+@Component
+public class RecommendationCacheGatewayFilterFactory
+        extends AbstractGatewayFilterFactory<RecommendationCacheGatewayFilterFactory.Config> {
+
+    private static final String CACHE_HEADER = "X-Cache";
+
+    private final RecommendationResponseCache recommendationResponseCache;
+
+    public RecommendationCacheGatewayFilterFactory(RecommendationResponseCache recommendationResponseCache) {
+        super(Config.class);
+        this.recommendationResponseCache = recommendationResponseCache;
+    }
+
+    @Override
+    public List<String> shortcutFieldOrder() {
+        return List.of("ttl");
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        // must wrap the response before NettyWriteResponseFilter writes the downstream body into it
+        return new OrderedGatewayFilter((exchange, chain) -> {
+            if (exchange.getRequest().getMethod() != HttpMethod.GET) {
+                return chain.filter(exchange);
+            }
+            return exchange.getPrincipal()
+                    .map(Principal::getName)
+                    .defaultIfEmpty("")
+                    .flatMap(user -> {
+                        if (user.isEmpty()) {
+                            return chain.filter(exchange);
+                        }
+                        ServerHttpRequest request = exchange.getRequest();
+                        CacheKey key = new CacheKey(user, request.getURI().getRawPath()
+                                + (request.getURI().getRawQuery() == null ? "" : "?" + request.getURI().getRawQuery()));
+                        CachedResponse cached = recommendationResponseCache.get(key);
+                        if (cached != null) {
+                            return writeCached(exchange, cached);
+                        }
+                        CachingResponse response = new CachingResponse(exchange, key, config.getTtl());
+                        return chain.filter(exchange.mutate().response(response).build());
+                    });
+        }, NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 1);
+    }
+
+    private Mono<Void> writeCached(ServerWebExchange exchange, CachedResponse cached) {
+        ServerHttpResponse response = exchange.getResponse();
+        response.getHeaders().setETag(cached.etag());
+        response.getHeaders().set(CACHE_HEADER, "HIT");
+        if (matches(exchange.getRequest().getHeaders(), cached.etag())) {
+            response.setStatusCode(HttpStatus.NOT_MODIFIED);
+            return response.setComplete();
+        }
+        response.setStatusCode(HttpStatus.OK);
+        if (cached.contentType() != null) {
+            response.getHeaders().setContentType(cached.contentType());
+        }
+        response.getHeaders().setContentLength(cached.body().length);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(cached.body())));
+    }
+
+    private static boolean matches(HttpHeaders requestHeaders, String etag) {
+        for (String candidate : requestHeaders.getIfNoneMatch()) {
+            if (candidate.equals("*") || candidate.equals(etag) || candidate.equals("W/" + etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Buffers a 200 response body so it can be stored and tagged before it is written to the client.
+     */
+    private class CachingResponse extends ServerHttpResponseDecorator {
+
+        private final ServerWebExchange exchange;
+        private final CacheKey key;
+        private final Duration ttl;
+        private final long startedNanos = System.nanoTime();
+
+        CachingResponse(ServerWebExchange exchange, CacheKey key, Duration ttl) {
+            super(exchange.getResponse());
+            this.exchange = exchange;
+            this.key = key;
+            this.ttl = ttl;
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            if (!HttpStatus.OK.equals(getStatusCode())) {
+                return super.writeWith(body);
+            }
+            return DataBufferUtils.join(Flux.from(body)).flatMap(joined -> {
+                byte[] bytes = new byte[joined.readableByteCount()];
+                joined.read(bytes);
+                DataBufferUtils.release(joined);
+
+                String etag = "\"" + DigestUtils.md5DigestAsHex(bytes) + "\"";
+                recommendationResponseCache.put(key,
+                        new CachedResponse(bytes, getHeaders().getContentType(), etag, ttl), startedNanos);
+
+                HttpHeaders headers = getHeaders();
+                headers.setETag(etag);
+                headers.set(CACHE_HEADER, "MISS");
+                headers.remove(HttpHeaders.TRANSFER_ENCODING);
+                if (matches(exchange.getRequest().getHeaders(), etag)) {
+                    setStatusCode(HttpStatus.NOT_MODIFIED);
+                    headers.remove(HttpHeaders.CONTENT_LENGTH);
+                    return setComplete();
+                }
+                headers.setContentLength(bytes.length);
+                return super.writeWith(Mono.just(bufferFactory().wrap(bytes)));
+            });
+        }
+    }
+
+    @Data
+    public static class Config {
+        private Duration ttl = Duration.ofSeconds(30);
+    }
+}
@@ -1,28 +1,66 @@
 package com.fitness.gateway.userService.service;
 
+import com.fitness.common.resilience.ResilientCalls;
+import com.fitness.common.validation.UserValidationBatcher;
 import com.fitness.gateway.userService.dto.RegisterUser;
 import com.fitness.gateway.userService.dto.UserResponse;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
 import reactor.core.publisher.Mono;
 
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Calls userservice through the {@code user-service} resilience instances: validation is retried and, with
+ * {@code gateway.user-validation.hedge.enabled}, hedged; registration is never repeated. With
+ * {@code gateway.user-validation.batch.enabled}, concurrent validations are micro-batched into userservice's bulk
+ * validate endpoint.
+ */
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class UserService {
 
+    static final String USER_SERVICE = "user-service";
+    private static final ParameterizedTypeReference<Map<String, Boolean>> VALIDATIONS = new ParameterizedTypeReference<>() {
+    };
+
     private final WebClient userServiceWebClient;
+    private final ResilientCalls resilientCalls;
+    private final Duration hedgeDelay;
+    private final UserValidationBatcher batcher;
+
+    public UserService(WebClient userServiceWebClient,
+                       ResilientCalls resilientCalls,
+                       @Value("${gateway.user-validation.hedge.enabled:false}") boolean hedgeEnabled,
+                       @Value("${gateway.user-validation.hedge.delay:50ms}") Duration hedgeDelay,
+                       @Value("${gateway.user-validation.batch.enabled:false}") boolean batchEnabled,
+                       @Value("${gateway.user-validation.batch.window:5ms}") Duration batchWindow,
+                       @Value("${gateway.user-validation.batch.max-size:100}") int batchMaxSize) {
+        this.userServiceWebClient = userServiceWebClient;
+        this.resilientCalls = resilientCalls;
+        this.hedgeDelay = hedgeEnabled ? hedgeDelay : null;
+        this.batcher = batchEnabled ? new UserValidationBatcher(this::validateUsers, batchMaxSize, batchWindow) : null;
+    }
 
     public Mono<Boolean> validateUser(String userId) {
-        log.info("Calling user service for {}", userId);
-        return userServiceWebClient.get()
-                .uri("/api/users/{userId}/validate", userId)
-                .retrieve()
-                .bodyToMono(Boolean.class)
+        Mono<Boolean> validation;
+        if (batcher != null) {
+            validation = batcher.validate(userId);
+        } else {
+            log.info("Calling user service for {}", userId);
+            validation = guard(userServiceWebClient.get()
+                    .uri("/api/users/{userId}/validate", userId)
+                    .retrieve()
+                    .bodyToMono(Boolean.class));
+        }
+        return validation
                 .onErrorResume(WebClientResponseException.class, e -> {
                     if (e.getStatusCode() == HttpStatus.NOT_FOUND)
                         return Mono.error(new RuntimeException("User not found : " + userId));
@@ -33,13 +71,26 @@ public class UserService {
                 });
     }
 
+    /**
+     * Validates the users with one call to userservice's bulk validate endpoint.
+     */
+    public Mono<Map<String, Boolean>> validateUsers(Set<String> userIds) {
+        log.info("Calling user service for {} users", userIds.size());
+        return guard(userServiceWebClient.post()
+                .uri("/api/users/validate")
+                .bodyValue(userIds)
+                .retrieve()
+                .bodyToMono(VALIDATIONS));
+    }
+
     public Mono<UserResponse> registerUser(RegisterUser registerUser) {
         log.info("Calling User Registration for {} " + registerUser.getEmail());
-        return userServiceWebClient.post()
+        Mono<UserResponse> call = userServiceWebClient.post()
                 .uri("/api/users/register")
                 .bodyValue(registerUser)
                 .retrieve()
-                .bodyToMono(UserResponse.class)
+                .bodyToMono(UserResponse.class);
+        return resilientCalls.call(USER_SERVICE, call)
                 .onErrorResume(WebClientResponseException.class, e -> {
                     if (e.getStatusCode() == HttpStatus.BAD_REQUEST)
                         return Mono.error(new RuntimeException("Bad request : " + e.getMessage()));
@@ -48,4 +99,9 @@ public class UserService {
                 });
     }
 
+    private <T> Mono<T> guard(Mono<T> call) {
+        return hedgeDelay == null
+                ? resilientCalls.idempotent(USER_SERVICE, call)
+                : resilientCalls.hedged(USER_SERVICE, call, hedgeDelay);
+    }
 }
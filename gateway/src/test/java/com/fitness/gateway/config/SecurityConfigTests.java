@@ -0,0 +1,36 @@
+package com.fitness.gateway.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.oauth2.jwt.Jwt;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SecurityConfigTests {
+
+    @Test
+    void mapsKeycloakRealmRolesToRoleAuthorities() {
+        Jwt jwt = Jwt.withTokenValue("token")
+                .header("alg", "RS256")
+                .subject("kc-1")
+                .claim("scope", "profile email")
+                .claim("realm_access", Map.of("roles", List.of("admin", "offline_access")))
+                .build();
+
+        assertThat(SecurityConfig.jwtAuthenticationConverter().convert(jwt).getAuthorities())
+                .extracting(GrantedAuthority::getAuthority)
+                .containsExactlyInAnyOrder("SCOPE_profile", "SCOPE_email", "ROLE_admin", "ROLE_offline_access");
+    }
+
+    @Test
+    void tokensWithoutRealmRolesOnlyGetTheirScopes() {
+        Jwt jwt = Jwt.withTokenValue("token").header("alg", "RS256").subject("kc-1").claim("scope", "profile").build();
+
+        assertThat(SecurityConfig.jwtAuthenticationConverter().convert(jwt).getAuthorities())
+                .extracting(GrantedAuthority::getAuthority)
+                .containsExactly("SCOPE_profile");
+    }
+}
@@ -0,0 +1,177 @@
+package com.fitness.gateway.filter;
+
+import com.fitness.gateway.userService.dto.RegisterUser;
+import com.fitness.gateway.userService.dto.UserResponse;
+import com.fitness.gateway.userService.service.UserService;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.MACSigner;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class KeycloakUserSyncFilterTests {
+
+    private static final String USER_ID = "5f0c2b7e-2a61-4c1c-9a3b-0f6d2d1c9e11";
+
+    private StubUserService userService;
+    private KeycloakUserSyncFilter filter;
+    private Set<String> forwardedUserIds;
+    private AtomicInteger forwarded;
+    private WebFilterChain chain;
+
+    @BeforeEach
+    void setUp() {
+        userService = new StubUserService();
+        filter = new KeycloakUserSyncFilter(userService, 1000, Duration.ofMinutes(10), 1000, Duration.ofMinutes(5));
+        forwardedUserIds = ConcurrentHashMap.newKeySet();
+        forwarded = new AtomicInteger();
+        chain = exchange -> {
+            forwardedUserIds.add(exchange.getRequest().getHeaders().getFirst("X-User-Id"));
+            forwarded.incrementAndGet();
+            return Mono.empty();
+        };
+    }
+
+    @Test
+    void concurrentFirstRequestsOfANewUserShareOneSync() throws Exception {
+        userService.exists = false;
+        userService.validationDelay = Duration.ofMillis(200);
+        String token = token(Duration.ofMinutes(5));
+
+        int requests = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(requests);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < requests; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return filter.filter(exchange(token), chain).block(Duration.ofSeconds(5));
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(userService.validations).hasValue(1);
+        assertThat(userService.registrations).hasValue(1);
+        assertThat(forwarded).hasValue(requests);
+        assertThat(forwardedUserIds).containsExactly(USER_ID);
+
+        // synced users skip the round trip
+        filter.filter(exchange(token), chain).block();
+        assertThat(userService.validations).hasValue(1);
+    }
+
+    @Test
+    void doesNotRememberAFailedSync() {
+        userService.failures.set(1);
+        String token = token(Duration.ofMinutes(5));
+
+        assertThatThrownBy(() -> filter.filter(exchange(token), chain).block())
+                .hasMessageContaining("userservice down");
+        assertThat(forwarded).hasValue(0);
+
+        filter.filter(exchange(token), chain).block();
+
+        assertThat(userService.validations).hasValue(2);
+        assertThat(forwarded).hasValue(1);
+    }
+
+    @Test
+    void keepsParsedClaimsNoLongerThanTheTokenIsValid() throws Exception {
+        String valid = token(Duration.ofMinutes(5));
+        assertThat(filter.userDetails(valid)).isSameAs(filter.userDetails(valid));
+
+        // already expired: parsed on every call
+        String expired = token(Duration.ofMinutes(-1));
+        assertThat(filter.userDetails(expired)).isNotSameAs(filter.userDetails(expired));
+
+        // expires well within the claims TTL
+        String expiring = token(Duration.ofSeconds(1));
+        RegisterUser parsed = filter.userDetails(expiring);
+        assertThat(filter.userDetails(expiring)).isSameAs(parsed);
+        Thread.sleep(1_100);
+        assertThat(filter.userDetails(expiring)).isNotSameAs(parsed);
+    }
+
+    private static MockServerWebExchange exchange(String token) {
+        return MockServerWebExchange.from(MockServerHttpRequest.get("/api/activities")
+                .header(HttpHeaders.AUTHORIZATION, token));
+    }
+
+    private static String token(Duration validFor) {
+        try {
+            JWTClaimsSet claims = new JWTClaimsSet.Builder()
+                    .subject(USER_ID)
+                    .expirationTime(new Date(System.currentTimeMillis() + validFor.toMillis()))
+                    .claim("email", "jane.doe@example.com")
+                    .claim("given_name", "Jane")
+                    .claim("family_name", "Doe")
+                    .build();
+            SignedJWT jwt = new SignedJWT(new JWSHeader(JWSAlgorithm.HS256), claims);
+            jwt.sign(new MACSigner(new byte[32]));
+            return "Bearer " + jwt.serialize();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Counts the calls the filter makes; the first {@code failures} validations fail.
+     */
+    private static final class StubUserService extends UserService {
+
+        private final AtomicInteger validations = new AtomicInteger();
+        private final AtomicInteger registrations = new AtomicInteger();
+        private final AtomicInteger failures = new AtomicInteger();
+        private volatile boolean exists = true;
+        private volatile Duration validationDelay = Duration.ZERO;
+
+        StubUserService() {
+            super(null, null, false, null, false, null, 0);
+        }
+
+        @Override
+        public Mono<Boolean> validateUser(String userId) {
+            validations.incrementAndGet();
+            if (failures.getAndUpdate(left -> Math.max(0, left - 1)) > 0) {
+                return Mono.error(new RuntimeException("userservice down"));
+            }
+            return Mono.delay(validationDelay).thenReturn(exists);
+        }
+
+        @Override
+        public Mono<UserResponse> registerUser(RegisterUser registerUser) {
+            registrations.incrementAndGet();
+            return Mono.just(new UserResponse());
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.fitness.gateway.filter;
+
+import com.fitness.gateway.cache.RecommendationResponseCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.security.Principal;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RecommendationCacheGatewayFilterFactoryTests {
+
+    private static final String PATH = "/api/ai/recommendationcontroller/getuserrecommendation/user-1";
+
+    private RecommendationResponseCache cache;
+    private GatewayFilter filter;
+    private AtomicInteger downstreamCalls;
+
+    @BeforeEach
+    void setUp() {
+        cache = new RecommendationResponseCache(DataSize.ofMegabytes(1), DataSize.ofKilobytes(64), Duration.ofMinutes(1));
+        RecommendationCacheGatewayFilterFactory.Config config = new RecommendationCacheGatewayFilterFactory.Config();
+        config.setTtl(Duration.ofMinutes(1));
+        filter = new RecommendationCacheGatewayFilterFactory(cache).apply(config);
+        downstreamCalls = new AtomicInteger();
+    }
+
+    @Test
+    void servesRepeatedReadsFromCache() {
+        MockServerWebExchange first = exchange(MockServerHttpRequest.get(PATH));
+        run(first);
+        MockServerWebExchange second = exchange(MockServerHttpRequest.get(PATH));
+        run(second);
+
+        assertThat(downstreamCalls).hasValue(1);
+        assertThat(second.getResponse().getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(second.getResponse().getHeaders().getFirst("X-Cache")).isEqualTo("HIT");
+        assertThat(second.getResponse().getBodyAsString().block()).isEqualTo("[{\"userId\":\"user-1\"}]");
+        assertThat(second.getResponse().getHeaders().getETag()).isEqualTo(first.getResponse().getHeaders().getETag());
+    }
+
+    @Test
+    void answersMatchingIfNoneMatchWithNotModified() {
+        MockServerWebExchange first = exchange(MockServerHttpRequest.get(PATH));
+        run(first);
+        String etag = first.getResponse().getHeaders().getETag();
+
+        MockServerWebExchange conditional = exchange(MockServerHttpRequest.get(PATH).header(HttpHeaders.IF_NONE_MATCH, etag));
+        run(conditional);
+
+        assertThat(downstreamCalls).hasValue(1);
+        assertThat(conditional.getResponse().getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+    }
+
+    @Test
+    void keysEntriesByUserAndDropsThemOnInvalidation() {
+        run(exchange(MockServerHttpRequest.get(PATH)));
+        run(exchange(MockServerHttpRequest.get(PATH), "user-2"));
+        assertThat(downstreamCalls).hasValue(2);
+
+        cache.invalidateUser("user-1");
+        run(exchange(MockServerHttpRequest.get(PATH), "user-2"));
+
+        assertThat(downstreamCalls).hasValue(3);
+    }
+
+    private void run(ServerWebExchange exchange) {
+        filter.filter(exchange, downstream()).block();
+    }
+
+    private GatewayFilterChain downstream() {
+        return exchange -> {
+            downstreamCalls.incrementAndGet();
+            exchange.getResponse().setStatusCode(HttpStatus.OK);
+            exchange.getResponse().getHeaders().setContentType(MediaType.APPLICATION_JSON);
+            byte[] body = "[{\"userId\":\"user-1\"}]".getBytes(StandardCharsets.UTF_8);
+            return exchange.getResponse().writeWith(Mono.just(exchange.getResponse().bufferFactory().wrap(body)));
+        };
+    }
+
+    private static MockServerWebExchange exchange(MockServerHttpRequest.BaseBuilder<?> request) {
+        return exchange(request, "user-1");
+    }
+
+    private static MockServerWebExchange exchange(MockServerHttpRequest.BaseBuilder<?> request, String user) {
+        Principal principal = () -> user;
+        return MockServerWebExchange.builder(request).principal(principal).build();
+    }
+}
@@ -0,0 +1,46 @@
+package com.fitness.userservice.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Local caches in front of the user lookups that every activity and gateway request makes. Both are bounded and
+ * expire after a TTL, so instances that did not see a registration catch up within
+ * {@code user.cache.exists.ttl}. Hits, misses and evictions are published as {@code cache.*} metrics.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String USER_EXISTS = "userExists";
+    public static final String USER_PROFILES = "userProfiles";
+
+    @Bean
+    public CacheManager cacheManager(@Value("${user.cache.exists.max-size:100000}") long existsMaxSize,
+                                     @Value("${user.cache.exists.ttl:5m}") Duration existsTtl,
+                                     @Value("${user.cache.profiles.max-size:10000}") long profilesMaxSize,
+                                     @Value("${user.cache.profiles.ttl:10m}") Duration profilesTtl) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        // only the caches below, so a misspelt cache name fails instead of silently creating an unbounded cache
+        cacheManager.setCacheNames(List.of());
+        cacheManager.registerCustomCache(USER_EXISTS, Caffeine.newBuilder()
+                .maximumSize(existsMaxSize)
+                .expireAfterWrite(existsTtl)
+                .recordStats()
+                .build());
+        cacheManager.registerCustomCache(USER_PROFILES, Caffeine.newBuilder()
+                .maximumSize(profilesMaxSize)
+                .expireAfterWrite(profilesTtl)
+                .recordStats()
+                .build());
+        return cacheManager;
+    }
+}
@@ -0,0 +1,85 @@
+package com.fitness.userservice.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+
+/**
+ * Sizes the Hikari pool from the core count and publishes how much of it is in use. With
+ * {@code user.datasource.pool.connections-per-core} set, the pool is fixed at
+ * {@code cores * connections-per-core + effective-spindles} connections; {@code user.datasource.pool.cores}
+ * defaults to the cores this JVM sees. Boot already publishes {@code hikaricp.connections.*}, including the
+ * {@code acquire} timer for the time requests wait for a connection; {@code hikaricp.connections.utilization} adds
+ * active connections as a fraction of the maximum.
+ */
+@Configuration
+@Slf4j
+public class DataSourceConfig {
+
+    @Bean
+    public static BeanPostProcessor hikariPoolSizer(@Value("${user.datasource.pool.cores:0}") int cores,
+                                                    @Value("${user.datasource.pool.connections-per-core:0}") int connectionsPerCore,
+                                                    @Value("${user.datasource.pool.effective-spindles:1}") int effectiveSpindles) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (connectionsPerCore > 0 && bean instanceof HikariDataSource hikariDataSource) {
+                    int poolSize = poolSize(cores, connectionsPerCore, effectiveSpindles);
+                    // a fixed pool: a burst never waits for new connections to be opened
+                    hikariDataSource.setMaximumPoolSize(poolSize);
+                    hikariDataSource.setMinimumIdle(poolSize);
+                    log.info("Sized connection pool {} to {} connections", hikariDataSource.getPoolName(), poolSize);
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    public MeterBinder hikariUtilizationMetrics(DataSource dataSource) {
+        return registry -> {
+            HikariDataSource hikariDataSource = unwrapHikari(dataSource);
+            if (hikariDataSource == null) {
+                return;
+            }
+            Gauge.builder("hikaricp.connections.utilization", hikariDataSource, DataSourceConfig::utilization)
+                    .tag("pool", String.valueOf(hikariDataSource.getPoolName()))
+                    .description("Active connections as a fraction of the maximum pool size")
+                    .register(registry);
+        };
+    }
+
+    static int poolSize(int cores, int connectionsPerCore, int effectiveSpindles) {
+        int effectiveCores = cores > 0 ? cores : Runtime.getRuntime().availableProcessors();
+        return effectiveCores * connectionsPerCore + effectiveSpindles;
+    }
+
+    private static double utilization(HikariDataSource hikariDataSource) {
+        HikariPoolMXBean pool = hikariDataSource.getHikariPoolMXBean();
+        // null until the first connection is requested
+        if (pool == null) {
+            return Double.NaN;
+        }
+        return (double) pool.getActiveConnections() / hikariDataSource.getMaximumPoolSize();
+    }
+
+    private static HikariDataSource unwrapHikari(DataSource dataSource) {
+        if (dataSource instanceof HikariDataSource hikariDataSource) {
+            return hikariDataSource;
+        }
+        try {
+            return dataSource.isWrapperFor(HikariDataSource.class) ? dataSource.unwrap(HikariDataSource.class) : null;
+        } catch (SQLException e) {
+            return null;
+        }
+    }
+}
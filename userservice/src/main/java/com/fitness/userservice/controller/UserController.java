@@ -1,12 +1,30 @@
 package com.fitness.userservice.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fitness.userservice.dto.RegisterUser;
 import com.fitness.userservice.dto.UserResponse;
+import com.fitness.userservice.services.UserImportReader;
+import com.fitness.userservice.services.UserImportService;
 import com.fitness.userservice.services.UserService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/users")
@@ -14,6 +32,12 @@ import org.springframework.web.bind.annotation.*;
 public class UserController {
     @Autowired
     private UserService userService;
+    @Autowired
+    private UserImportService userImportService;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Value("${user.import.request-timeout:30m}")
+    private Duration importTimeout;
 
     @PostMapping("/register")
     public ResponseEntity<UserResponse> register(@Valid @RequestBody RegisterUser registerUser) {
@@ -31,4 +55,45 @@ public class UserController {
         return ResponseEntity.ok(userService.existByUserId(userId));
     }
 
+    @PostMapping("/validate")
+    public ResponseEntity<Map<String, Boolean>> validateUsers(@RequestBody Set<String> userIds) {
+        return ResponseEntity.ok(userService.existByUserIds(userIds));
+    }
+
+    /**
+     * Registers the users of an NDJSON or CSV body, answering with one line of progress per imported chunk and a
+     * final line with {@code done} set. The response streams for as long as the import runs, so this request
+     * alone gets {@code user.import.request-timeout} instead of the default async timeout. The gateway only
+     * lets admins through.
+     */
+    @PostMapping(value = "/import", consumes = {MediaType.APPLICATION_NDJSON_VALUE, "text/csv"},
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> importUsers(HttpServletRequest request) throws IOException {
+        UserImportReader reader = userImportService.open(MediaType.parseMediaType(request.getContentType()),
+                request.getInputStream());
+        AsyncWebRequest asyncWebRequest = WebAsyncUtils.getAsyncManager(request).getAsyncWebRequest();
+        if (asyncWebRequest != null) {
+            asyncWebRequest.setTimeout(importTimeout.toMillis());
+        }
+        StreamingResponseBody body = outputStream -> {
+            ObjectWriter writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+            JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream);
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+            try (reader) {
+                userImportService.importUsers(reader, progress -> {
+                    try {
+                        writer.writeValue(generator, progress);
+                        generator.writeRaw('\n');
+                        // so the client sees each chunk as it completes
+                        generator.flush();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
 }
@@ -0,0 +1,26 @@
+package com.fitness.userservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Running totals of an import, sent after every chunk with the rows that chunk rejected, and once more with
+ * {@code done} set when the input is exhausted.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class UserImportProgress {
+    private long processed;
+    private long imported;
+    private long duplicates;
+    private long invalid;
+    private long elapsedMillis;
+    private double rowsPerSecond;
+    private double chunkRowsPerSecond;
+    private boolean done;
+    private List<UserImportRejection> rejections;
+}
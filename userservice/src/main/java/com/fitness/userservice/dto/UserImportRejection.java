@@ -0,0 +1,20 @@
+package com.fitness.userservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class UserImportRejection {
+
+    public enum Status {
+        INVALID,
+        DUPLICATE
+    }
+
+    private long line;
+    private Status status;
+    private String reason;
+}
@@ -4,7 +4,13 @@ import com.fitness.userservice.models.User;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.Set;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, String> {
@@ -12,5 +18,27 @@ public interface UserRepository extends JpaRepository<User, String> {
 
     Boolean existsByKeycloakId(String userId);
 
+    User findByKeycloakId(String keycloakId);
+
+    @Query("select u.keycloakId from User u where u.keycloakId in :keycloakIds")
+    Set<String> findExistingKeycloakIds(@Param("keycloakIds") Collection<String> keycloakIds);
+
+    @Query("select u.email from User u where u.email in :emails")
+    Set<String> findExistingEmails(@Param("emails") Collection<String> emails);
+
     User findByEmail(@NotBlank(message = "Email is Required") @Email(message = "Invalid email format") String email);
+
+    /**
+     * Inserts the user, or returns the already registered user with the same email, in one statement. The no-op
+     * update on conflict is what makes Postgres return the existing row.
+     */
+    @Transactional
+    @Query(nativeQuery = true, value = """
+            INSERT INTO users (id, keycloak_id, email, password, firstname, lastname, role, created_at, updated_at)
+            VALUES (:#{#user.id}, :#{#user.keycloakId}, :#{#user.email}, :#{#user.password}, :#{#user.firstname},
+                    :#{#user.lastname}, :#{#user.role.name()}, LOCALTIMESTAMP, LOCALTIMESTAMP)
+            ON CONFLICT (email) DO UPDATE SET email = EXCLUDED.email
+            RETURNING *
+            """)
+    User insertOrGetByEmail(@Param("user") User user);
 }
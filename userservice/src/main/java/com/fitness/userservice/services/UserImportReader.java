@@ -0,0 +1,157 @@
+package com.fitness.userservice.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fitness.userservice.dto.RegisterUser;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * Reads the rows of a user import one line at a time, so the input is never held in memory. NDJSON has one
+ * {@link RegisterUser} object per line. CSV starts with a header naming the columns, any of {@code keycloakId},
+ * {@code email}, {@code password}, {@code firstname} and {@code lastname}; fields may be quoted, but not span lines.
+ * A row that cannot be parsed is returned with an error instead of a user, blank lines are skipped.
+ */
+public class UserImportReader implements Closeable {
+
+    private static final Map<String, BiConsumer<RegisterUser, String>> CSV_COLUMNS = Map.of(
+            "keycloakid", RegisterUser::setKeycloakId,
+            "email", RegisterUser::setEmail,
+            "password", RegisterUser::setPassword,
+            "firstname", RegisterUser::setFirstname,
+            "lastname", RegisterUser::setLastname);
+
+    record Row(long line, RegisterUser user, String error) {
+    }
+
+    private final BufferedReader input;
+    // NDJSON only
+    private final ObjectReader jsonReader;
+    // CSV only, the setter of each column; null for columns that are ignored
+    private final List<BiConsumer<RegisterUser, String>> columns;
+    private long line;
+
+    private UserImportReader(BufferedReader input, ObjectReader jsonReader,
+                             List<BiConsumer<RegisterUser, String>> columns, long line) {
+        this.input = input;
+        this.jsonReader = jsonReader;
+        this.columns = columns;
+        this.line = line;
+    }
+
+    static UserImportReader ndjson(BufferedReader input, ObjectReader jsonReader) {
+        return new UserImportReader(input, jsonReader, null, 0);
+    }
+
+    /**
+     * Reads the header right away, so an unusable file is rejected before anything is imported.
+     */
+    static UserImportReader csv(BufferedReader input) throws IOException {
+        String header = input.readLine();
+        if (header == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "CSV import has no header");
+        }
+        List<String> names = splitCsv(header);
+        if (names == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Malformed CSV header: " + header);
+        }
+        names = names.stream().map(name -> name.trim().toLowerCase(Locale.ROOT)).toList();
+        if (!names.contains("email") || !names.contains("password")) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "CSV header must name the email and password columns: " + header);
+        }
+        List<BiConsumer<RegisterUser, String>> columns = new ArrayList<>();
+        names.forEach(name -> columns.add(CSV_COLUMNS.get(name)));
+        return new UserImportReader(input, null, columns, 1);
+    }
+
+    /**
+     * The next row, or null at the end of the input.
+     */
+    Row next() throws IOException {
+        String text;
+        do {
+            text = input.readLine();
+            if (text == null) {
+                return null;
+            }
+            line++;
+        } while (text.isBlank());
+        return jsonReader != null ? parseJson(text) : parseCsv(text);
+    }
+
+    @Override
+    public void close() throws IOException {
+        input.close();
+    }
+
+    private Row parseJson(String text) {
+        try {
+            RegisterUser user = jsonReader.readValue(text);
+            return user == null ? new Row(line, null, "Not a user object") : new Row(line, user, null);
+        } catch (JsonProcessingException e) {
+            return new Row(line, null, "Malformed JSON: " + e.getOriginalMessage());
+        }
+    }
+
+    private Row parseCsv(String text) {
+        List<String> fields = splitCsv(text);
+        if (fields == null) {
+            return new Row(line, null, "Unterminated quoted field");
+        }
+        if (fields.size() != columns.size()) {
+            return new Row(line, null, "Expected " + columns.size() + " fields but found " + fields.size());
+        }
+        RegisterUser user = new RegisterUser();
+        for (int i = 0; i < fields.size(); i++) {
+            BiConsumer<RegisterUser, String> column = columns.get(i);
+            if (column != null && !fields.get(i).isEmpty()) {
+                column.accept(user, fields.get(i));
+            }
+        }
+        return new Row(line, user, null);
+    }
+
+    /**
+     * Splits one CSV line; {@code ""} inside a quoted field is a quote. Null if a quoted field is not closed.
+     */
+    private static List<String> splitCsv(String text) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (quoted) {
+                if (c != '"') {
+                    field.append(c);
+                } else if (i + 1 < text.length() && text.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            return null;
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
@@ -0,0 +1,240 @@
+package com.fitness.userservice.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fitness.userservice.config.CacheConfig;
+import com.fitness.userservice.dto.RegisterUser;
+import com.fitness.userservice.dto.UserImportProgress;
+import com.fitness.userservice.dto.UserImportRejection;
+import com.fitness.userservice.models.User;
+import com.fitness.userservice.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk registration for onboarding whole organisations. Rows are taken {@code user.import.chunk-size} at a time;
+ * each chunk is checked against the database with one {@code IN} query per unique column and its new users are
+ * written in one transaction with JDBC batches of {@code user.import.jdbc-batch-size}. Every chunk costs the same
+ * few statements and starts from an empty persistence context, so throughput does not drop as the import grows.
+ * Users already registered under the same email or keycloak id, or repeated within the input, are reported as
+ * duplicates rather than updated.
+ */
+@Service
+@Slf4j
+public class UserImportService {
+
+    static final MediaType TEXT_CSV = MediaType.parseMediaType("text/csv");
+
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private CacheManager cacheManager;
+    @Autowired
+    private Validator validator;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${user.import.chunk-size:500}")
+    private int chunkSize;
+    @Value("${user.import.jdbc-batch-size:50}")
+    private int jdbcBatchSize;
+
+    /**
+     * A reader for NDJSON, or for CSV when the content type is {@code text/csv}.
+     */
+    public UserImportReader open(MediaType contentType, InputStream input) throws IOException {
+        Charset charset = contentType.getCharset() != null ? contentType.getCharset() : StandardCharsets.UTF_8;
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, charset));
+        if (TEXT_CSV.includes(contentType)) {
+            return UserImportReader.csv(reader);
+        }
+        if (MediaType.APPLICATION_NDJSON.includes(contentType)) {
+            return UserImportReader.ndjson(reader, objectMapper.readerFor(RegisterUser.class));
+        }
+        throw new ResponseStatusException(HttpStatus.UNSUPPORTED_MEDIA_TYPE, "Cannot import " + contentType);
+    }
+
+    /**
+     * Imports every row of the reader, passing the progress to the listener after each chunk and at the end.
+     * Returns the final totals.
+     */
+    public UserImportProgress importUsers(UserImportReader reader, Consumer<UserImportProgress> listener)
+            throws IOException {
+        long start = System.nanoTime();
+        UserImportProgress totals = new UserImportProgress();
+        List<UserImportReader.Row> chunk = new ArrayList<>(chunkSize);
+        UserImportReader.Row row;
+        while ((row = reader.next()) != null) {
+            chunk.add(row);
+            if (chunk.size() == chunkSize) {
+                listener.accept(importChunk(chunk, totals, start));
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            listener.accept(importChunk(chunk, totals, start));
+        }
+        UserImportProgress done = snapshot(totals, start, 0, List.of());
+        done.setDone(true);
+        log.info("Imported {} of {} users: {} duplicates, {} invalid, {} rows/s", done.getImported(),
+                done.getProcessed(), done.getDuplicates(), done.getInvalid(), Math.round(done.getRowsPerSecond()));
+        listener.accept(done);
+        return done;
+    }
+
+    private UserImportProgress importChunk(List<UserImportReader.Row> rows, UserImportProgress totals, long start) {
+        long chunkStart = System.nanoTime();
+        List<UserImportRejection> rejections = new ArrayList<>();
+        List<UserImportReader.Row> candidates = new ArrayList<>(rows.size());
+        Set<String> emails = new HashSet<>();
+        Set<String> keycloakIds = new HashSet<>();
+        for (UserImportReader.Row row : rows) {
+            String invalid = row.error() != null ? row.error() : violations(row.user());
+            if (invalid != null) {
+                rejections.add(new UserImportRejection(row.line(), UserImportRejection.Status.INVALID, invalid));
+                continue;
+            }
+            String keycloakId = row.user().getKeycloakId();
+            if (emails.contains(row.user().getEmail()) || (keycloakId != null && keycloakIds.contains(keycloakId))) {
+                rejections.add(new UserImportRejection(row.line(), UserImportRejection.Status.DUPLICATE,
+                        "Repeats an earlier row"));
+                continue;
+            }
+            emails.add(row.user().getEmail());
+            if (keycloakId != null) {
+                keycloakIds.add(keycloakId);
+            }
+            candidates.add(row);
+        }
+
+        List<User> users = new ArrayList<>(candidates.size());
+        if (!candidates.isEmpty()) {
+            Set<String> existingEmails = userRepository.findExistingEmails(emails);
+            Set<String> existingKeycloakIds = keycloakIds.isEmpty()
+                    ? Set.of() : userRepository.findExistingKeycloakIds(keycloakIds);
+            List<UserImportReader.Row> newRows = new ArrayList<>(candidates.size());
+            for (UserImportReader.Row row : candidates) {
+                if (existingEmails.contains(row.user().getEmail())) {
+                    rejections.add(new UserImportRejection(row.line(), UserImportRejection.Status.DUPLICATE,
+                            "Email already registered"));
+                } else if (existingKeycloakIds.contains(row.user().getKeycloakId())) {
+                    rejections.add(new UserImportRejection(row.line(), UserImportRejection.Status.DUPLICATE,
+                            "Keycloak id already registered"));
+                } else {
+                    newRows.add(row);
+                    users.add(UserService.mapToUser(row.user()));
+                }
+            }
+            if (!users.isEmpty()) {
+                try {
+                    insertAll(users);
+                } catch (DataIntegrityViolationException e) {
+                    // someone registered one of these users since the lookup; the chunk was rolled back
+                    log.warn("Batch insert of {} users conflicted, inserting them one at a time", users.size());
+                    users = insertEach(newRows, rejections);
+                }
+                Cache existsCache = cacheManager.getCache(CacheConfig.USER_EXISTS);
+                users.stream()
+                        .map(User::getKeycloakId)
+                        .filter(Objects::nonNull)
+                        .forEach(existsCache::evict);
+            }
+        }
+
+        rejections.sort((a, b) -> Long.compare(a.getLine(), b.getLine()));
+        totals.setProcessed(totals.getProcessed() + rows.size());
+        totals.setImported(totals.getImported() + users.size());
+        totals.setDuplicates(totals.getDuplicates() + rejections.stream()
+                .filter(rejection -> rejection.getStatus() == UserImportRejection.Status.DUPLICATE).count());
+        totals.setInvalid(totals.getInvalid() + rejections.stream()
+                .filter(rejection -> rejection.getStatus() == UserImportRejection.Status.INVALID).count());
+        return snapshot(totals, start, rows.size() / seconds(chunkStart), rejections);
+    }
+
+    private void insertAll(List<User> users) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            entityManager.unwrap(Session.class).setJdbcBatchSize(jdbcBatchSize);
+            userRepository.saveAllAndFlush(users);
+            entityManager.clear();
+        });
+    }
+
+    /**
+     * Inserts the rows with the single-user upsert, reporting the ones registered in the meantime as duplicates.
+     */
+    private List<User> insertEach(List<UserImportReader.Row> rows, List<UserImportRejection> rejections) {
+        List<User> inserted = new ArrayList<>();
+        for (UserImportReader.Row row : rows) {
+            User user = UserService.mapToUser(row.user());
+            user.setId(UUID.randomUUID().toString());
+            try {
+                User saved = userRepository.insertOrGetByEmail(user);
+                if (user.getId().equals(saved.getId())) {
+                    inserted.add(saved);
+                } else {
+                    rejections.add(new UserImportRejection(row.line(), UserImportRejection.Status.DUPLICATE,
+                            "Email already registered"));
+                }
+            } catch (DataIntegrityViolationException e) {
+                rejections.add(new UserImportRejection(row.line(), UserImportRejection.Status.DUPLICATE,
+                        "Keycloak id already registered"));
+            }
+        }
+        return inserted;
+    }
+
+    private String violations(RegisterUser user) {
+        Set<ConstraintViolation<RegisterUser>> violations = validator.validate(user);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(ConstraintViolation::getMessage)
+                .sorted()
+                .collect(Collectors.joining("; "));
+    }
+
+    private static UserImportProgress snapshot(UserImportProgress totals, long start, double chunkRowsPerSecond,
+                                               List<UserImportRejection> rejections) {
+        double seconds = seconds(start);
+        return new UserImportProgress(totals.getProcessed(), totals.getImported(), totals.getDuplicates(),
+                totals.getInvalid(), Math.round(seconds * 1000), totals.getProcessed() / seconds, chunkRowsPerSecond,
+                false, rejections);
+    }
+
+    private static double seconds(long since) {
+        return Math.max(System.nanoTime() - since, 1) / 1e9;
+    }
+}
@@ -1,60 +1,136 @@
 package com.fitness.userservice.services;
 
+import com.fitness.userservice.config.CacheConfig;
 import com.fitness.userservice.dto.RegisterUser;
 import com.fitness.userservice.dto.UserResponse;
 import com.fitness.userservice.models.User;
 import com.fitness.userservice.repository.UserRepository;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.CachePut;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
 
 @Service
 @Slf4j
 public class UserService {
     @Autowired
     private UserRepository userRepository;
+    @Autowired
+    private CacheManager cacheManager;
 
-    public UserResponse register(RegisterUser registerUser) {
+    @Value("${user.validation.bulk.max-size:1000}")
+    private int maxBulkSize;
 
-        if (userRepository.existsByEmail(registerUser.getEmail())) {
-//            throw new RuntimeException("Email already exist");
+    /**
+     * Drops a cached "does not exist" answer for the keycloak id and caches the profile of the returned user.
+     */
+    @Caching(
+            evict = @CacheEvict(cacheNames = CacheConfig.USER_EXISTS, key = "#registerUser.keycloakId",
+                    condition = "#registerUser.keycloakId != null"),
+            put = @CachePut(cacheNames = CacheConfig.USER_PROFILES, key = "#result.id"))
+    public UserResponse register(RegisterUser registerUser) {
+        User user = mapToUser(registerUser);
+        // generated here because the upsert bypasses hibernate's id generation
+        user.setId(UUID.randomUUID().toString());
+        User savedUser;
+        try {
+            savedUser = userRepository.insertOrGetByEmail(user);
+        } catch (DataIntegrityViolationException e) {
+            // without a keycloak id the violation is some other constraint, and the lookup would match any user
+            // registered without one
+            if (registerUser.getKeycloakId() == null) {
+                throw e;
+            }
+            // the keycloak id is already registered under another email
+            savedUser = userRepository.findByKeycloakId(registerUser.getKeycloakId());
+            if (savedUser == null) {
+                throw e;
+            }
+        }
+        if (!user.getId().equals(savedUser.getId())) {
             log.info("User already exist");
-            User existingUser = userRepository.findByEmail(registerUser.getEmail());
-            UserResponse userResponse = new UserResponse();
-            userResponse.setId(existingUser.getId());
-            userResponse.setEmail(existingUser.getEmail());
-            userResponse.setFirstname(existingUser.getFirstname());
-            userResponse.setLastname(existingUser.getLastname());
-            userResponse.setPassword(existingUser.getPassword());
-            userResponse.setCreatedAt(existingUser.getCreatedAt());
-            userResponse.setUpdatedAt(existingUser.getUpdatedAt());
-            userResponse.setKeycloakId(existingUser.getKeycloakId());
-            return userResponse;
         }
+        return mapToResponse(savedUser);
+    }
+
+    @Cacheable(cacheNames = CacheConfig.USER_PROFILES)
+    public UserResponse getUserProfile(String userId) {
+
+        User savedUser = userRepository.findById(userId).orElseThrow(() -> new RuntimeException("User not found"));
+        return mapToResponse(savedUser);
+    }
+
+    @Cacheable(cacheNames = CacheConfig.USER_EXISTS)
+    public Boolean existByUserId(String userId) {
+        log.info("Calling user service for {}", userId);
+//        return userRepository.existsById(userId);
+        return userRepository.existsByKeycloakId(userId);
+    }
+
+    /**
+     * Bulk {@link #existByUserId}: ids with a cached answer are served from the cache, the rest are looked up with
+     * one {@code IN} query on the keycloak id index and their answers cached.
+     */
+    public Map<String, Boolean> existByUserIds(Collection<String> userIds) {
+        if (userIds.size() > maxBulkSize) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Too many user ids: " + userIds.size() + " > " + maxBulkSize);
+        }
+        Cache existsCache = cacheManager.getCache(CacheConfig.USER_EXISTS);
+        Map<String, Boolean> result = new HashMap<>();
+        List<String> misses = new ArrayList<>();
+        for (String userId : new HashSet<>(userIds)) {
+            if (userId == null) {
+                continue;
+            }
+            Boolean cached = existsCache.get(userId, Boolean.class);
+            if (cached != null) {
+                result.put(userId, cached);
+            } else {
+                misses.add(userId);
+            }
+        }
+        if (!misses.isEmpty()) {
+            log.info("Validating {} users", misses.size());
+            Set<String> existing = userRepository.findExistingKeycloakIds(misses);
+            for (String userId : misses) {
+                boolean exists = existing.contains(userId);
+                existsCache.put(userId, exists);
+                result.put(userId, exists);
+            }
+        }
+        return result;
+    }
+
+    static User mapToUser(RegisterUser registerUser) {
         User user = new User();
         user.setEmail(registerUser.getEmail());
         user.setFirstname(registerUser.getFirstname());
         user.setPassword(registerUser.getPassword());
         user.setLastname(registerUser.getLastname());
         user.setKeycloakId(registerUser.getKeycloakId());
-
-        User savedUser = userRepository.save(user);
-
-        UserResponse userResponse = new UserResponse();
-        userResponse.setId(savedUser.getId());
-        userResponse.setEmail(savedUser.getEmail());
-        userResponse.setFirstname(savedUser.getFirstname());
-        userResponse.setLastname(savedUser.getLastname());
-        userResponse.setPassword(savedUser.getPassword());
-        userResponse.setCreatedAt(savedUser.getCreatedAt());
-        userResponse.setUpdatedAt(savedUser.getUpdatedAt());
-        userResponse.setKeycloakId(savedUser.getKeycloakId());
-        return userResponse;
+        return user;
     }
 
-    public UserResponse getUserProfile(String userId) {
-
-        User savedUser = userRepository.findById(userId).orElseThrow(() -> new RuntimeException("User not found"));
+    UserResponse mapToResponse(User savedUser) {
         UserResponse userResponse = new UserResponse();
         userResponse.setId(savedUser.getId());
         userResponse.setKeycloakId(savedUser.getKeycloakId());
@@ -64,13 +140,6 @@ public class UserService {
         userResponse.setPassword(savedUser.getPassword());
         userResponse.setCreatedAt(savedUser.getCreatedAt());
         userResponse.setUpdatedAt(savedUser.getUpdatedAt());
-
         return userResponse;
     }
-
-    public Boolean existByUserId(String userId) {
-        log.info("Calling user service for {}", userId);
-//        return userRepository.existsById(userId);
-        return userRepository.existsByKeycloakId(userId);
-    }
 }
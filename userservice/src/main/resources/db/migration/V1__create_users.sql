@@ -0,0 +1,14 @@
+-- The users table as hibernate's ddl-auto=update created it. Databases that already have it are baselined at
+-- this version (spring.flyway.baseline-on-migrate), so this only runs on empty databases.
+CREATE TABLE users
+(
+    id          VARCHAR(255) NOT NULL PRIMARY KEY,
+    keycloak_id VARCHAR(255),
+    email       VARCHAR(255) UNIQUE,
+    password    VARCHAR(255) NOT NULL,
+    firstname   VARCHAR(255),
+    lastname    VARCHAR(255),
+    role        VARCHAR(255) CHECK (role IN ('USER', 'ADMIN')),
+    created_at  TIMESTAMP(6),
+    updated_at  TIMESTAMP(6)
+);
@@ -0,0 +1,4 @@
+-- existsByKeycloakId runs for every activity and gateway request and used to scan the whole table.
+-- Built concurrently so existing tables stay writable; flyway runs this migration outside a transaction.
+-- Fails if two users already share a keycloak id; those rows have to be merged first.
+CREATE UNIQUE INDEX CONCURRENTLY IF NOT EXISTS ux_users_keycloak_id ON users (keycloak_id);
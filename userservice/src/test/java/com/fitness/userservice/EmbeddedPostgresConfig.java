@@ -0,0 +1,49 @@
+package com.fitness.userservice;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * A real Postgres standing in for the production database, so the flyway migrations and the Postgres-only SQL
+ * run unchanged. One server is shared by every test context in the JVM.
+ */
+@TestConfiguration(proxyBeanMethods = false)
+public class EmbeddedPostgresConfig {
+
+    private static EmbeddedPostgres postgres;
+
+    @Bean
+    public DataSource dataSource() {
+        return server().getPostgresDatabase();
+    }
+
+    /**
+     * JDBC url of the shared server, for tests that build their own pool.
+     */
+    public static String jdbcUrl() {
+        return server().getJdbcUrl("postgres", "postgres");
+    }
+
+    private static synchronized EmbeddedPostgres server() {
+        if (postgres == null) {
+            try {
+                postgres = EmbeddedPostgres.start();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    postgres.close();
+                } catch (IOException ignored) {
+                    // the JVM is exiting anyway
+                }
+            }));
+        }
+        return postgres;
+    }
+}
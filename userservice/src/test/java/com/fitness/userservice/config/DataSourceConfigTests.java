@@ -0,0 +1,50 @@
+package com.fitness.userservice.config;
+
+import com.fitness.userservice.EmbeddedPostgresConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DataSourceConfigTests {
+
+    @Test
+    void fixesThePoolSizeFromTheCoreCount() {
+        try (HikariDataSource dataSource = new HikariDataSource()) {
+            DataSourceConfig.hikariPoolSizer(4, 2, 1).postProcessAfterInitialization(dataSource, "dataSource");
+
+            assertThat(dataSource.getMaximumPoolSize()).isEqualTo(9);
+            assertThat(dataSource.getMinimumIdle()).isEqualTo(9);
+        }
+    }
+
+    @Test
+    void leavesThePoolAloneWithoutConnectionsPerCore() {
+        try (HikariDataSource dataSource = new HikariDataSource()) {
+            dataSource.setMaximumPoolSize(7);
+
+            DataSourceConfig.hikariPoolSizer(4, 0, 1).postProcessAfterInitialization(dataSource, "dataSource");
+
+            assertThat(dataSource.getMaximumPoolSize()).isEqualTo(7);
+        }
+    }
+
+    @Test
+    void reportsActiveConnectionsAsAFractionOfThePool() throws Exception {
+        try (HikariDataSource dataSource = new HikariDataSource()) {
+            dataSource.setJdbcUrl(EmbeddedPostgresConfig.jdbcUrl());
+            dataSource.setPoolName("test-pool");
+            dataSource.setMaximumPoolSize(4);
+            SimpleMeterRegistry registry = new SimpleMeterRegistry();
+            new DataSourceConfig().hikariUtilizationMetrics(dataSource).bindTo(registry);
+
+            try (Connection first = dataSource.getConnection(); Connection second = dataSource.getConnection()) {
+                assertThat(registry.get("hikaricp.connections.utilization").tag("pool", "test-pool").gauge().value())
+                        .isEqualTo(0.5);
+            }
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.fitness.userservice.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fitness.userservice.services.UserImportService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class UserControllerTests {
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        ObjectMapper objectMapper = new ObjectMapper();
+        UserImportService userImportService = new UserImportService();
+        ReflectionTestUtils.setField(userImportService, "objectMapper", objectMapper);
+        ReflectionTestUtils.setField(userImportService, "chunkSize", 500);
+        UserController userController = new UserController();
+        ReflectionTestUtils.setField(userController, "userImportService", userImportService);
+        ReflectionTestUtils.setField(userController, "objectMapper", objectMapper);
+        ReflectionTestUtils.setField(userController, "importTimeout", Duration.ofMinutes(30));
+        mockMvc = MockMvcBuilders.standaloneSetup(userController)
+                .setAsyncRequestTimeout(30_000)
+                .build();
+    }
+
+    @Test
+    void onlyTheImportGetsTheLongAsyncTimeout() throws Exception {
+        MvcResult result = mockMvc.perform(post("/api/users/import")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(""))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        assertThat(result.getRequest().getAsyncContext().getTimeout()).isEqualTo(Duration.ofMinutes(30).toMillis());
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("\"done\":true")));
+    }
+}
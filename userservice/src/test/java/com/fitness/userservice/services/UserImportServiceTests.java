@@ -0,0 +1,153 @@
+package com.fitness.userservice.services;
+
+import com.fitness.userservice.EmbeddedPostgresConfig;
+import com.fitness.userservice.config.CacheConfig;
+import com.fitness.userservice.dto.RegisterUser;
+import com.fitness.userservice.dto.UserImportProgress;
+import com.fitness.userservice.dto.UserImportRejection;
+import com.fitness.userservice.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.validation.ValidationAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * Imports commit chunk by chunk, so these tests run outside the usual rolled-back test transaction.
+ */
+@DataJpaTest(properties = {"spring.cloud.config.enabled=false", "user.import.chunk-size=3"})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ImportAutoConfiguration({JacksonAutoConfiguration.class, ValidationAutoConfiguration.class})
+@Import({EmbeddedPostgresConfig.class, CacheConfig.class, UserService.class, UserImportService.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class UserImportServiceTests {
+
+    private static final MediaType TEXT_CSV = MediaType.parseMediaType("text/csv");
+
+    @Autowired
+    private UserImportService userImportService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @BeforeEach
+    void clearCaches() {
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+    }
+
+    @AfterEach
+    void deleteUsers() {
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void importsNdjsonInChunksAndReportsDuplicatesAndInvalidRows() throws IOException {
+        userService.register(registerUser("kc-existing", "existing@example.com"));
+        assertThat(userService.existByUserId("kc-new-1")).isFalse();
+        String ndjson = """
+                {"keycloakId":"kc-new-1","email":"new1@example.com","password":"secret123"}
+                {"keycloakId":"kc-other","email":"existing@example.com","password":"secret123"}
+                {"keycloakId":"kc-existing","email":"other@example.com","password":"secret123"}
+                {"keycloakId":"kc-new-2","email":"new2@example.com","password":"secret123"}
+                {"keycloakId":"kc-new-2","email":"new3@example.com","password":"secret123"}
+                {"keycloakId":"kc-new-4", "email":
+
+                {"keycloakId":"kc-new-5","email":"not-an-email","password":"secret123"}
+                {"keycloakId":"kc-new-1","email":"new1@example.com","password":"secret123"}
+                """;
+
+        List<UserImportProgress> progress = importUsers(MediaType.APPLICATION_NDJSON, ndjson);
+
+        assertThat(progress).hasSize(4);
+        assertThat(progress).extracting(UserImportProgress::getProcessed).containsExactly(3L, 6L, 8L, 8L);
+        assertThat(progress).extracting(UserImportProgress::isDone).containsExactly(false, false, false, true);
+        UserImportProgress done = progress.get(3);
+        assertThat(done.getImported()).isEqualTo(2);
+        assertThat(done.getDuplicates()).isEqualTo(4);
+        assertThat(done.getInvalid()).isEqualTo(2);
+        assertThat(progress.get(0).getRejections()).extracting(UserImportRejection::getLine, UserImportRejection::getReason)
+                .containsExactly(tuple(2L, "Email already registered"),
+                        tuple(3L, "Keycloak id already registered"));
+        assertThat(progress.get(1).getRejections()).extracting(UserImportRejection::getLine, UserImportRejection::getStatus)
+                .containsExactly(tuple(5L, UserImportRejection.Status.DUPLICATE),
+                        tuple(6L, UserImportRejection.Status.INVALID));
+        assertThat(progress.get(2).getRejections()).extracting(UserImportRejection::getLine, UserImportRejection::getStatus)
+                .containsExactly(tuple(8L, UserImportRejection.Status.INVALID),
+                        tuple(9L, UserImportRejection.Status.DUPLICATE));
+
+        assertThat(userRepository.count()).isEqualTo(3);
+        // the cached miss from before the import was evicted
+        assertThat(userService.existByUserId("kc-new-1")).isTrue();
+    }
+
+    @Test
+    void importsCsvWithQuotedFieldsAndIgnoresUnknownColumns() throws IOException {
+        String csv = """
+                email,password,firstname,lastname,department,keycloakId
+                ana@example.com,secret123,Ana,"de la Cruz, Jr.",sales,kc-ana
+                "bo@example.com",secret123,Bo,"O""Neil",,kc-bo
+                cy@example.com,secret123,Cy
+                """;
+
+        UserImportProgress done = importUsers(TEXT_CSV, csv).get(1);
+
+        assertThat(done.getImported()).isEqualTo(2);
+        assertThat(done.getInvalid()).isEqualTo(1);
+        assertThat(userRepository.findByEmail("ana@example.com").getLastname()).isEqualTo("de la Cruz, Jr.");
+        assertThat(userRepository.findByEmail("bo@example.com").getLastname()).isEqualTo("O\"Neil");
+        assertThat(userRepository.findByKeycloakId("kc-bo").getFirstname()).isEqualTo("Bo");
+    }
+
+    @Test
+    void rejectsCsvWithoutTheRequiredColumnsBeforeImporting() {
+        assertThatThrownBy(() -> userImportService.open(TEXT_CSV, stream("keycloakId,email\nkc-1,one@example.com\n")))
+                .isInstanceOf(ResponseStatusException.class)
+                .hasMessageContaining("must name the email and password columns");
+    }
+
+    private List<UserImportProgress> importUsers(MediaType contentType, String body) throws IOException {
+        List<UserImportProgress> progress = new ArrayList<>();
+        try (UserImportReader reader = userImportService.open(contentType, stream(body))) {
+            userImportService.importUsers(reader, progress::add);
+        }
+        return progress;
+    }
+
+    private static ByteArrayInputStream stream(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static RegisterUser registerUser(String keycloakId, String email) {
+        RegisterUser registerUser = new RegisterUser();
+        registerUser.setKeycloakId(keycloakId);
+        registerUser.setEmail(email);
+        registerUser.setPassword("secret123");
+        return registerUser;
+    }
+}
@@ -0,0 +1,189 @@
+package com.fitness.userservice.services;
+
+import com.fitness.userservice.EmbeddedPostgresConfig;
+import com.fitness.userservice.config.CacheConfig;
+import com.fitness.userservice.dto.RegisterUser;
+import com.fitness.userservice.dto.UserResponse;
+import com.fitness.userservice.models.User;
+import com.fitness.userservice.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Counts the SQL statements behind each endpoint, so duplicate or N+1 queries show up as failures. Runs against
+ * the schema built by the flyway migrations, which hibernate validates against the entities.
+ */
+@DataJpaTest(properties = {
+        "spring.cloud.config.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=validate",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        // the batching settings of the prod profile
+        "spring.jpa.properties.hibernate.jdbc.batch_size=50",
+        "spring.jpa.properties.hibernate.order_inserts=true"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({EmbeddedPostgresConfig.class, CacheConfig.class, UserService.class})
+class UserQueryCountTests {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+    }
+
+    @Test
+    void registerIsOneStatementForNewAndExistingUsers() {
+        UserResponse registered = statements(1, () -> userService.register(registerUser("kc-1", "one@example.com")));
+        UserResponse again = statements(1, () -> userService.register(registerUser("kc-1", "one@example.com")));
+
+        assertThat(again.getId()).isEqualTo(registered.getId());
+        assertThat(userRepository.count()).isEqualTo(1);
+    }
+
+    @Test
+    void validateIsOneQueryAndThenCached() {
+        userService.register(registerUser("kc-2", "two@example.com"));
+
+        assertThat(statements(1, () -> userService.existByUserId("kc-2"))).isTrue();
+        assertThat(statements(0, () -> userService.existByUserId("kc-2"))).isTrue();
+        assertThat(statements(1, () -> userService.existByUserId("unknown"))).isFalse();
+    }
+
+    @Test
+    void bulkValidateIsOneInQueryForTheUncachedIds() {
+        userService.register(registerUser("kc-5", "five@example.com"));
+        userService.register(registerUser("kc-6", "six@example.com"));
+        userService.existByUserId("kc-5");
+
+        assertThat(statements(1, () -> userService.existByUserIds(List.of("kc-5", "kc-6", "unknown"))))
+                .containsExactlyInAnyOrderEntriesOf(Map.of("kc-5", true, "kc-6", true, "unknown", false));
+        assertThat(statements(0, () -> userService.existByUserIds(List.of("kc-6", "unknown"))))
+                .containsExactlyInAnyOrderEntriesOf(Map.of("kc-6", true, "unknown", false));
+    }
+
+    @Test
+    void getUserProfileIsOneQueryAndThenCached() {
+        String id = userService.register(registerUser("kc-3", "three@example.com")).getId();
+        cacheManager.getCache(CacheConfig.USER_PROFILES).clear();
+
+        assertThat(statements(1, () -> userService.getUserProfile(id)).getEmail()).isEqualTo("three@example.com");
+        assertThat(statements(0, () -> userService.getUserProfile(id)).getEmail()).isEqualTo("three@example.com");
+    }
+
+    @Test
+    void savingManyUsersInsertsThemInBatches() {
+        List<User> users = IntStream.range(0, 120)
+                .mapToObj(i -> {
+                    User user = new User();
+                    user.setKeycloakId("kc-batch-" + i);
+                    user.setEmail("batch-" + i + "@example.com");
+                    user.setPassword("secret123");
+                    return user;
+                })
+                .toList();
+
+        // unbatched, every insert is prepared on its own; batched, one statement carries all of them
+        statements(1, () -> userRepository.saveAll(users));
+
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(120);
+    }
+
+    @Test
+    void keycloakIdsAreUniquelyIndexed() {
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT indexdef FROM pg_indexes WHERE tablename = 'users' AND indexname = 'ux_users_keycloak_id'",
+                String.class)).contains("UNIQUE", "(keycloak_id)");
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void registeringAKnownKeycloakIdUnderANewEmailReturnsThatUser() {
+        try {
+            UserResponse registered = userService.register(registerUser("kc-4", "four@example.com"));
+
+            UserResponse again = userService.register(registerUser("kc-4", "renamed@example.com"));
+
+            assertThat(again.getId()).isEqualTo(registered.getId());
+            assertThat(again.getEmail()).isEqualTo("four@example.com");
+        } finally {
+            userRepository.deleteAll();
+        }
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void aFailedRegistrationWithoutKeycloakIdIsNotAnsweredWithAnotherUser() {
+        try {
+            userService.register(registerUser(null, "five@example.com"));
+            RegisterUser withoutPassword = registerUser(null, "six@example.com");
+            withoutPassword.setPassword(null);
+
+            assertThatThrownBy(() -> userService.register(withoutPassword))
+                    .isInstanceOf(DataIntegrityViolationException.class);
+        } finally {
+            userRepository.deleteAll();
+        }
+    }
+
+    /**
+     * Runs the call with an empty persistence context and checks how many statements it prepared.
+     */
+    private <T> T statements(long expected, Supplier<T> call) {
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+        T result = call.get();
+        entityManager.flush();
+        assertThat(statistics.getPrepareStatementCount()).as("SQL statements").isEqualTo(expected);
+        return result;
+    }
+
+    private static RegisterUser registerUser(String keycloakId, String email) {
+        RegisterUser registerUser = new RegisterUser();
+        registerUser.setKeycloakId(keycloakId);
+        registerUser.setEmail(email);
+        registerUser.setPassword("secret123");
+        return registerUser;
+    }
+}
@@ -0,0 +1,84 @@
+package com.fitness.userservice.services;
+
+import com.fitness.userservice.EmbeddedPostgresConfig;
+import com.fitness.userservice.config.CacheConfig;
+import com.fitness.userservice.dto.RegisterUser;
+import com.fitness.userservice.dto.UserResponse;
+import com.fitness.userservice.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.context.annotation.Import;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest(properties = "spring.cloud.config.enabled=false")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({EmbeddedPostgresConfig.class, CacheConfig.class, UserService.class})
+class UserServiceCacheTests {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @BeforeEach
+    void clearCaches() {
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+    }
+
+    @Test
+    void answersRepeatedExistenceChecksFromTheCache() {
+        userService.register(registerUser("kc-1", "one@example.com"));
+        assertThat(userService.existByUserId("kc-1")).isTrue();
+
+        userRepository.deleteAll();
+
+        assertThat(userService.existByUserId("kc-1")).isTrue();
+        assertThat(nativeCache(CacheConfig.USER_EXISTS).stats().hitCount()).isEqualTo(1);
+    }
+
+    @Test
+    void registeringEvictsACachedMissAndCachesTheProfile() {
+        assertThat(userService.existByUserId("kc-2")).isFalse();
+
+        UserResponse registered = userService.register(registerUser("kc-2", "two@example.com"));
+
+        assertThat(userService.existByUserId("kc-2")).isTrue();
+        userRepository.deleteAll();
+        assertThat(userService.getUserProfile(registered.getId()).getEmail()).isEqualTo("two@example.com");
+    }
+
+    @Test
+    void doesNotCacheLookupsOfMissingProfiles() {
+        UserResponse registered = userService.register(registerUser("kc-3", "three@example.com"));
+        nativeCache(CacheConfig.USER_PROFILES).invalidateAll();
+        userRepository.deleteAll();
+
+        assertThatThrownBy(() -> userService.getUserProfile(registered.getId()))
+                .hasMessage("User not found");
+        assertThat(nativeCache(CacheConfig.USER_PROFILES).estimatedSize()).isZero();
+    }
+
+    private Cache<Object, Object> nativeCache(String name) {
+        return ((CaffeineCache) cacheManager.getCache(name)).getNativeCache();
+    }
+
+    private static RegisterUser registerUser(String keycloakId, String email) {
+        RegisterUser registerUser = new RegisterUser();
+        registerUser.setKeycloakId(keycloakId);
+        registerUser.setEmail(email);
+        registerUser.setPassword("secret123");
+        return registerUser;
+    }
+}